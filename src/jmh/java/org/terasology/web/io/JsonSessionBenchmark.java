@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.web.client.AnonymousHeadlessClient;
+import org.terasology.web.client.HeadlessClientFactory;
+import org.terasology.web.resources.BenchmarkResources;
+import org.terasology.web.resources.ResourceManager;
+import org.terasology.web.resources.base.ResourceMethodName;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JsonSession#accessResource}, including the parsing of the JSON input and the encoding of the result
+ * as it's done to send it to a WebSocket client.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSessionBenchmark {
+
+    @Param({"10", "1000"})
+    private int items;
+
+    private JsonSession session;
+    private List<String> dataPath;
+    private JsonElement putInput;
+
+    @Setup
+    public void setup() {
+        BenchmarkResources.Payload payload = new BenchmarkResources.Payload(items);
+        BenchmarkResources.install(BenchmarkResources.createTree(2, new BenchmarkResources.DataResource(payload),
+                new BenchmarkResources.ItemsResource(payload)));
+        dataPath = BenchmarkResources.nestedPath(2, BenchmarkResources.DATA_RESOURCE);
+        putInput = new Gson().toJsonTree(payload);
+        HeadlessClientFactory clientFactory = new HeadlessClientFactory(null, null) {
+            @Override
+            public AnonymousHeadlessClient connectNewAnonymousHeadlessClient() {
+                return new BenchmarkResources.BenchmarkClient();
+            }
+        };
+        // the authentication handler is not needed to access public resources
+        session = new JsonSession(null, clientFactory, ResourceManager.getInstance());
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.disconnect();
+    }
+
+    @Benchmark
+    public String get() {
+        ActionResult result = session.accessResource(dataPath, ResourceMethodName.GET, null);
+        return JsonStringEncoder.encode(result::writeTo);
+    }
+
+    @Benchmark
+    public String put() {
+        ActionResult result = session.accessResource(dataPath, ResourceMethodName.PUT, putInput);
+        return JsonStringEncoder.encode(result::writeTo);
+    }
+}
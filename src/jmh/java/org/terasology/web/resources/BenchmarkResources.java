@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.terasology.web.client.AnonymousHeadlessClient;
+import org.terasology.web.client.ClientSecurityInfo;
+import org.terasology.web.resources.base.AbstractItemCollectionResource;
+import org.terasology.web.resources.base.AbstractSimpleResource;
+import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ItemResourceMethod;
+import org.terasology.web.resources.base.ResourceAccessException;
+import org.terasology.web.resources.base.ResourceMethod;
+import org.terasology.web.resources.base.ResourcePath;
+import org.terasology.web.resources.base.RouterResource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.terasology.web.resources.base.ResourceMethodFactory.createItemMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+
+/**
+ * Synthetic resources and clients shared by the benchmarks, which don't depend on a running engine.
+ */
+public final class BenchmarkResources {
+
+    // the names of the real top-level resources, so that the root router has a realistic size
+    private static final List<String> TOP_LEVEL_NAMES = Arrays.asList("onlinePlayers", "console", "games", "engineState", "modules",
+            "worldGenerators", "config", "serverAdmins", "metrics");
+    public static final String DATA_RESOURCE = "data";
+    public static final String ITEMS_RESOURCE = "items";
+    public static final String NESTED_PREFIX = "level";
+
+    private BenchmarkResources() {
+    }
+
+    public static final class Entry {
+        private final String id;
+        private final String version;
+        private final String displayName;
+        private final String description;
+        private final List<String> dependencies;
+
+        private Entry(int index) {
+            id = "module" + index;
+            version = "1.0." + index;
+            displayName = "Module " + index;
+            description = "The description of the module number " + index + ", which is <b>not</b> very long.";
+            dependencies = Arrays.asList("engine", "core", "module" + (index + 1));
+        }
+    }
+
+    public static final class Payload {
+        private final List<Entry> entries;
+
+        public Payload(int size) {
+            entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entries.add(new Entry(i));
+            }
+        }
+
+        public int size() {
+            return entries.size();
+        }
+    }
+
+    /**
+     * A resource with a public GET method, a PUT method which replaces the payload, and no client specific output.
+     */
+    public static final class DataResource extends AbstractSimpleResource {
+        private volatile Payload payload;
+
+        public DataResource(Payload payload) {
+            this.payload = payload;
+        }
+
+        @Override
+        protected ResourceMethod<Void, Payload> getGetMethod(ResourcePath path) throws ResourceAccessException {
+            return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> payload);
+        }
+
+        @Override
+        protected ResourceMethod<Payload, Payload> getPutMethod(ResourcePath path) throws ResourceAccessException {
+            return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Payload.class, (data, client) -> {
+                payload = data;
+                return data;
+            });
+        }
+    }
+
+    /**
+     * A collection whose items are the entries of a payload, identified by their index.
+     */
+    public static final class ItemsResource extends AbstractItemCollectionResource {
+        private final Payload payload;
+
+        public ItemsResource(Payload payload) {
+            this.payload = payload;
+        }
+
+        @Override
+        protected ResourceMethod<Void, List<Entry>> getGetCollectionMethod() throws ResourceAccessException {
+            return createParameterlessMethod(ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> payload.entries);
+        }
+
+        @Override
+        protected ItemResourceMethod<Void, Entry> getGetItemMethod() throws ResourceAccessException {
+            return createItemMethod(ClientSecurityRequirements.PUBLIC, Void.class, (data, id, client) -> {
+                try {
+                    return payload.entries.get(Integer.parseInt(id));
+                } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+                    throw ResourceAccessException.NOT_FOUND;
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds a resource tree like the real one, where the "data" and "items" resources are at the root
+     * and also below a chain of routers "level0/level1/...".
+     * @param depth the length of the router chain.
+     */
+    public static RouterResource createTree(int depth, DataResource dataResource, ItemsResource itemsResource) {
+        RouterResource nested = new RouterResource.Builder()
+                .addSubResource(DATA_RESOURCE, dataResource)
+                .addSubResource(ITEMS_RESOURCE, itemsResource)
+                .build();
+        for (int i = depth - 1; i > 0; i--) {
+            nested = new RouterResource.Builder().addSubResource(NESTED_PREFIX + i, nested).build();
+        }
+        RouterResource.Builder root = new RouterResource.Builder()
+                .addSubResource(DATA_RESOURCE, dataResource)
+                .addSubResource(ITEMS_RESOURCE, itemsResource);
+        for (String name: TOP_LEVEL_NAMES) {
+            root.addSubResource(name, new RouterResource.Builder().build());
+        }
+        if (depth > 0) {
+            root.addSubResource(NESTED_PREFIX + 0, nested);
+        }
+        return root.build();
+    }
+
+    /**
+     * @return the path of a resource at the end of the router chain built by {@link #createTree(int, DataResource, ItemsResource)}.
+     */
+    public static List<String> nestedPath(int depth, String... leaf) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            result.add(NESTED_PREFIX + i);
+        }
+        result.addAll(Arrays.asList(leaf));
+        return result;
+    }
+
+    /**
+     * Installs the specified resource tree in the {@link ResourceManager} singleton, and disables the coalescing
+     * of the updates so that they are delivered on the notifying thread.
+     */
+    public static void install(RouterResource rootResource) {
+        ResourceManager.getInstance().setResources(rootResource, Collections.emptyMap(), Collections.emptySet());
+        ResourceManager.getInstance().setUpdateInterval(0);
+    }
+
+    /**
+     * An anonymous client which isn't connected to any entity system, with fixed security information.
+     */
+    public static final class BenchmarkClient extends AnonymousHeadlessClient {
+        private static final ClientSecurityInfo SECURITY_INFO = new ClientSecurityInfo(false, false);
+
+        @Override
+        public ClientSecurityInfo getSecurityInfo() {
+            return SECURITY_INFO;
+        }
+
+        @Override
+        public void disconnect() {
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasology.web.client.HeadlessClient;
+import org.terasology.web.resources.base.InputParser;
+import org.terasology.web.resources.base.ResourceAccessException;
+import org.terasology.web.resources.base.ResourceMethodName;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Measures {@link ResourceManager#performAction} end to end, and the delivery of a resource change
+ * to a varying number of registered clients.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceManagerBenchmark {
+
+    private static final InputParser<Object> PASS_THROUGH_PARSER = new InputParser<Object>() {
+        @Override
+        public <T> T parse(Object input, Class<T> outputType) {
+            return outputType.cast(input);
+        }
+    };
+    // stands for the serialization each connection type performs once per update
+    private static final Function<ResourceUpdate, Object> ENCODER = (update) -> new Object();
+
+    @Param({"1", "100", "1000"})
+    private int clients;
+
+    private final ResourceManager resourceManager = ResourceManager.getInstance();
+    private final List<HeadlessClient> registeredClients = new ArrayList<>();
+    private final AtomicLong deliveredUpdates = new AtomicLong();
+    private BenchmarkResources.Payload payload;
+    private BenchmarkResources.DataResource dataResource;
+    private ResourcePath dataPath;
+    private List<String> itemPath;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        payload = new BenchmarkResources.Payload(10);
+        dataResource = new BenchmarkResources.DataResource(payload);
+        BenchmarkResources.install(BenchmarkResources.createTree(2, dataResource, new BenchmarkResources.ItemsResource(payload)));
+        dataPath = new ResourcePath(BenchmarkResources.DATA_RESOURCE);
+        itemPath = BenchmarkResources.nestedPath(2, BenchmarkResources.ITEMS_RESOURCE, "5");
+        for (int i = 0; i < clients; i++) {
+            HeadlessClient client = new BenchmarkResources.BenchmarkClient();
+            registeredClients.add(client);
+            resourceManager.addClient(client, (update) -> {
+                update.getEncoded(ENCODER);
+                deliveredUpdates.incrementAndGet();
+            }, (path, data) -> { });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registeredClients.forEach(resourceManager::removeClient);
+        registeredClients.clear();
+    }
+
+    @Benchmark
+    public Object performGet() throws ResourceAccessException {
+        return resourceManager.performAction(new ResourcePath(itemPath), ResourceMethodName.GET, null, PASS_THROUGH_PARSER, registeredClients.get(0));
+    }
+
+    @Benchmark
+    public Object performPut() throws ResourceAccessException {
+        return resourceManager.performAction(new ResourcePath(BenchmarkResources.DATA_RESOURCE), ResourceMethodName.PUT, payload,
+                PASS_THROUGH_PARSER, registeredClients.get(0));
+    }
+
+    @Benchmark
+    public void fanOut(Blackhole blackhole) {
+        resourceManager.onChangedForAllClients(dataPath, dataResource);
+        blackhole.consume(deliveredUpdates.get());
+    }
+}
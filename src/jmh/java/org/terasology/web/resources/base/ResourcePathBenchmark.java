@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations on {@link ResourcePath} performed for each request and each change notification:
+ * construction from the request, hashing (paths are map keys in the update coalescer and in the resource manager)
+ * and the prefixing done by the routers while a notification travels to the root.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourcePathBenchmark {
+
+    @Param({"1", "4"})
+    private int length;
+
+    private List<String> items;
+    private ResourcePath path;
+    private ResourcePath equalPath;
+    private final Map<ResourcePath, Object> map = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        items = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            items.add("segment" + i);
+        }
+        path = new ResourcePath(items);
+        equalPath = new ResourcePath(items);
+        map.put(path, this);
+    }
+
+    @Benchmark
+    public ResourcePath construct() {
+        return new ResourcePath(items);
+    }
+
+    @Benchmark
+    public int hash() {
+        return path.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsOther() {
+        return path.equals(equalPath);
+    }
+
+    @Benchmark
+    public Object mapLookup() {
+        return map.get(equalPath);
+    }
+
+    @Benchmark
+    public ResourcePath pushToRoot() {
+        ResourcePath result = ResourcePath.createEmpty();
+        for (int i = length - 1; i >= 0; i--) {
+            result = result.pushItem(items.get(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.web.resources.BenchmarkResources;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the resolution of a resource method through a chain of {@link RouterResource}s of increasing depth,
+ * both walking the routers and with the {@link RouteTable} compiled from them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+    @Param({"0", "2", "8"})
+    private int depth;
+
+    private RouterResource rootResource;
+    private RouteTable routeTable;
+    // paths are immutable, so they are built once: their construction is measured by ResourcePathBenchmark
+    private ResourcePath simpleResourcePath;
+    private ResourcePath itemPath;
+    private ResourcePath missingPath;
+
+    @Setup
+    public void setup() {
+        BenchmarkResources.Payload payload = new BenchmarkResources.Payload(10);
+        rootResource = BenchmarkResources.createTree(depth, new BenchmarkResources.DataResource(payload), new BenchmarkResources.ItemsResource(payload));
+        routeTable = RouteTable.compile(rootResource);
+        simpleResourcePath = new ResourcePath(BenchmarkResources.nestedPath(depth, BenchmarkResources.DATA_RESOURCE));
+        itemPath = new ResourcePath(BenchmarkResources.nestedPath(depth, BenchmarkResources.ITEMS_RESOURCE, "5"));
+        missingPath = new ResourcePath(BenchmarkResources.nestedPath(depth, "missing"));
+    }
+
+    @Benchmark
+    public ResourceMethod simpleResourceGet() throws ResourceAccessException {
+        return rootResource.getMethod(ResourceMethodName.GET, simpleResourcePath);
+    }
+
+    @Benchmark
+    public ResourceMethod itemGet() throws ResourceAccessException {
+        return rootResource.getMethod(ResourceMethodName.GET, itemPath);
+    }
+
+    @Benchmark
+    public Object notFound() {
+        try {
+            return rootResource.getMethod(ResourceMethodName.GET, missingPath).perform(null, null);
+        } catch (ResourceAccessException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public ResourceMethod compiledSimpleResourceGet() throws ResourceAccessException {
+        return routeTable.getMethod(ResourceMethodName.GET, simpleResourcePath);
+    }
+
+    @Benchmark
+    public ResourceMethod compiledItemGet() throws ResourceAccessException {
+        return routeTable.getMethod(ResourceMethodName.GET, itemPath);
+    }
+
+    @Benchmark
+    public Object compiledNotFound() {
+        try {
+            return routeTable.getMethod(ResourceMethodName.GET, missingPath).perform(null, null);
+        } catch (ResourceAccessException ex) {
+            return ex;
+        }
+    }
+}
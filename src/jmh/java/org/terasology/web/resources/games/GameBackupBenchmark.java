@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.game.GameManifest;
+import org.terasology.utilities.FilesUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the time needed to back up a synthetic saved game, made of a manifest and of the specified number of chunk files
+ * spread over a few region directories, with the sequential copy previously performed by {@link GamesBackupsResource}
+ * and with the modes of {@link GameBackupEngine}. The throughput is the size of the save (files * fileSize) divided by the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameBackupBenchmark {
+
+    private static final int REGIONS = 8;
+
+    @Param({"SEQUENTIAL", "COPY", "HARD_LINK", "AUTO"})
+    private String strategy;
+
+    @Param({"500"})
+    private int files;
+
+    @Param({"65536"})
+    private int fileSize;
+
+    private final GameBackupEngine engine = GameBackupEngine.getInstance();
+    private Path root;
+    private Path source;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void createSave() throws IOException {
+        root = Files.createTempDirectory("game-backup-benchmark");
+        source = root.resolve("save");
+        target = root.resolve("backup");
+        Random random = new Random(0);
+        byte[] data = new byte[fileSize];
+        for (int i = 0; i < files; i++) {
+            Path region = source.resolve("world").resolve("region" + (i % REGIONS));
+            Files.createDirectories(region);
+            random.nextBytes(data);
+            Files.write(region.resolve("chunk" + i + ".dat"), data);
+        }
+        Files.write(source.resolve(GameManifest.DEFAULT_FILE_NAME), "{}".getBytes());
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteBackup() throws IOException {
+        FilesUtil.recursiveDelete(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSave() throws IOException {
+        FilesUtil.recursiveDelete(root);
+    }
+
+    @Benchmark
+    public Object backup() throws Exception {
+        if (strategy.equals("SEQUENTIAL")) {
+            copySequentially(source, target);
+            return BackupMode.COPY;
+        }
+        return engine.backup(source, target, BackupMode.valueOf(strategy), Collections.singleton(Paths.get(GameManifest.DEFAULT_FILE_NAME)),
+                new GameBackupEngine.ProgressListener() {
+                    @Override
+                    public void onStarted(int totalFiles, long totalBytes) {
+                    }
+
+                    @Override
+                    public void onFileCompleted(long fileBytes) {
+                    }
+                }).get();
+    }
+
+    private static void copySequentially(Path src, Path dst) throws IOException {
+        List<Path> paths = Files.walk(src).collect(Collectors.toList());
+        for (Path path: paths) {
+            Files.copy(path, dst.resolve(src.relativize(path)));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.serverAdminManagement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.web.client.ClientSecurityInfo;
+import org.terasology.web.client.ClientSecurityInfoCache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the permission checks performed for every request and update by many concurrent sessions: computing the
+ * {@link ClientSecurityInfo} on each check, which locks the shared admin list, against obtaining it from a {@link ClientSecurityInfoCache}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class ClientSecurityInfoBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class AdminList {
+        private final ServerAdminsManager manager = new ServerAdminsManager(null, false);
+        private final AtomicInteger nextSession = new AtomicInteger();
+
+        @Setup
+        public void setup() {
+            for (int i = 0; i < 16; i++) {
+                manager.addAdmin("admin" + i);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        private String clientId;
+        private ClientSecurityInfoCache cache;
+
+        @Setup
+        public void setup(AdminList adminList) {
+            // half of the sessions belong to admins
+            int index = adminList.nextSession.getAndIncrement();
+            clientId = (index % 2 == 0 ? "admin" : "user") + index;
+            cache = new ClientSecurityInfoCache(adminList.manager, true, clientId);
+        }
+    }
+
+    @Benchmark
+    public ClientSecurityInfo uncached(AdminList adminList, Session session) {
+        return new ClientSecurityInfo(true, adminList.manager.clientHasAdminPermissions(session.clientId));
+    }
+
+    @Benchmark
+    public ClientSecurityInfo cached(Session session) {
+        return session.cache.get();
+    }
+}
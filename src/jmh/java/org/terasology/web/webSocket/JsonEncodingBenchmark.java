@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.io.ActionResultMessageBodyWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the encoding of resource results through an intermediate JSON tree with the direct streaming encoding,
+ * both for WebSocket messages and HTTP response bodies. Run with the gc profiler (the default of the jmh task)
+ * to compare the allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonEncodingBenchmark {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final Collection<String> RESOURCE_PATH = Arrays.asList("modules", "available");
+
+    @Param({"10", "1000"})
+    private int items;
+
+    private List<ModuleInfo> data;
+    private final ActionResultMessageBodyWriter bodyWriter = new ActionResultMessageBodyWriter();
+    private final DiscardingOutputStream output = new DiscardingOutputStream();
+
+    private static final class ModuleInfo {
+        private final String id;
+        private final String version;
+        private final String displayName;
+        private final String description;
+        private final List<String> dependencies;
+
+        private ModuleInfo(int index) {
+            id = "module" + index;
+            version = "1.0." + index;
+            displayName = "Module " + index;
+            description = "The description of the module number " + index + ", which is <b>not</b> very long.";
+            dependencies = Arrays.asList("engine", "core", "module" + (index + 1));
+        }
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        data = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            data.add(new ModuleInfo(i));
+        }
+    }
+
+    @Benchmark
+    public String webSocketTree() {
+        ActionResult result = new ActionResult(GSON.toJsonTree(data));
+        return GSON.toJson(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT, RESOURCE_PATH, result.toJsonTree(GSON)));
+    }
+
+    @Benchmark
+    public String webSocketStreamed() {
+        return WebSocketHandler.encodeActionResult(ActionResult.ofObject(data, GSON), RESOURCE_PATH);
+    }
+
+    @Benchmark
+    public long httpTree() throws IOException {
+        ActionResult result = new ActionResult(GSON.toJsonTree(data));
+        try (Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(result.getData().toString());
+        }
+        return output.count;
+    }
+
+    @Benchmark
+    public long httpStreamed() throws IOException {
+        bodyWriter.writeTo(ActionResult.ofObject(data, GSON), ActionResult.class, ActionResult.class, null, null, null, output);
+        return output.count;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.web.resources.BenchmarkResources;
+import org.terasology.web.resources.ResourceUpdate;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of the resource requests received from WebSocket clients and the encoding
+ * of the RESOURCE_CHANGED messages sent to them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketMessageBenchmark {
+
+    private static final String GET_REQUEST = "{\"messageType\":\"RESOURCE_REQUEST\",\"data\":"
+            + "{\"method\":\"GET\",\"resourcePath\":[\"modules\",\"available\"]}}";
+    private static final String PUT_REQUEST = "{\"messageType\":\"RESOURCE_REQUEST\",\"data\":"
+            + "{\"method\":\"PUT\",\"resourcePath\":[\"config\",\"MOTD\"],\"data\":\"Welcome to the server!\"}}";
+
+    // only the encoding benchmark depends on the payload size
+    @State(Scope.Thread)
+    public static class Update {
+        @Param({"10", "1000"})
+        private int items;
+
+        private BenchmarkResources.Payload payload;
+        private ResourcePath path;
+
+        @Setup
+        public void setup() {
+            payload = new BenchmarkResources.Payload(items);
+            path = new ResourcePath("modules", "available");
+        }
+    }
+
+    @Benchmark
+    public ResourceRequestClientMessage decodeGet() {
+        return WebSocketHandler.decodeResourceRequest(WebSocketHandler.decodeMessage(GET_REQUEST).getData());
+    }
+
+    @Benchmark
+    public ResourceRequestClientMessage decodePut() {
+        return WebSocketHandler.decodeResourceRequest(WebSocketHandler.decodeMessage(PUT_REQUEST).getData());
+    }
+
+    @Benchmark
+    public String encodeResourceChanged(Update update) {
+        // a new update each time, otherwise the cached encoding would be returned
+        return WebSocketHandler.encodeResourceChanged(new ResourceUpdate(update.path, update.payload));
+    }
+}
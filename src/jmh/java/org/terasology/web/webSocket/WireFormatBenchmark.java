@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.io.JsonStringEncoder;
+import org.terasology.web.io.cbor.CborWriter;
+import org.terasology.web.io.gsonUtils.ByteArrayTypeAdapter;
+import org.terasology.web.resources.BenchmarkResources;
+import org.terasology.web.resources.ResourceUpdate;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON text and CBOR binary {@link WireFormat}s: the encoding of RESOURCE_CHANGED messages and of action results
+ * carrying byte arrays, and the decoding of a client message. The size of the frames encoded or decoded by each benchmark is reported
+ * as the "frameBytes" secondary result, so it's included in the JSON report along with the times.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(byte[].class, ByteArrayTypeAdapter.getInstance())
+            .create();
+    private static final String PUT_REQUEST = "{\"messageType\":\"RESOURCE_REQUEST\",\"data\":"
+            + "{\"method\":\"PUT\",\"resourcePath\":[\"config\",\"MOTD\"],\"data\":\"Welcome to the server!\"}}";
+
+    @State(Scope.Thread)
+    public static class Update {
+        @Param({"10", "1000"})
+        private int items;
+
+        private BenchmarkResources.Payload payload;
+        private ResourcePath path;
+        private long jsonBytes;
+        private long cborBytes;
+
+        @Setup
+        public void setup() {
+            payload = new BenchmarkResources.Payload(items);
+            path = new ResourcePath("modules", "available");
+            ResourceUpdate update = new ResourceUpdate(path, payload);
+            jsonBytes = utf8Length(WireFormat.JSON.encodeResourceChanged(update));
+            cborBytes = WireFormat.CBOR.encodeResourceChanged(update).length;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Binary {
+        @Param({"64", "4096"})
+        private int bytes;
+
+        private byte[] data;
+        private long jsonBytes;
+        private long cborBytes;
+
+        @Setup
+        public void setup() {
+            data = new byte[bytes];
+            new Random(1).nextBytes(data);
+            jsonBytes = utf8Length(WireFormat.JSON.encode(encodeBinary(data)));
+            cborBytes = WireFormat.CBOR.encode(encodeBinary(data)).length;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Request {
+        private final String json = PUT_REQUEST;
+        private long jsonBytes;
+        private byte[] cbor;
+
+        @Setup
+        public void setup() {
+            jsonBytes = utf8Length(json);
+            cbor = CborWriter.encode((writer) -> writer.jsonValue(json));
+        }
+    }
+
+    /**
+     * The size of the frame handled by a benchmark; it's constant for a trial, so it's computed by the setup of the other states
+     * and only copied at each invocation, to keep the computation of the size out of the measured time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FrameSize {
+        public long frameBytes;
+    }
+
+    private static long utf8Length(String json) {
+        return json.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static JsonStringEncoder.Content encodeBinary(byte[] data) {
+        return WebSocketHandler.actionResultContent(ActionResult.ofObject(data, GSON), null);
+    }
+
+    @Benchmark
+    public String encodeResourceChangedJson(Update update, FrameSize size) {
+        size.frameBytes = update.jsonBytes;
+        // a new update each time, otherwise the cached encoding would be returned
+        return WireFormat.JSON.encodeResourceChanged(new ResourceUpdate(update.path, update.payload));
+    }
+
+    @Benchmark
+    public byte[] encodeResourceChangedCbor(Update update, FrameSize size) {
+        size.frameBytes = update.cborBytes;
+        return WireFormat.CBOR.encodeResourceChanged(new ResourceUpdate(update.path, update.payload));
+    }
+
+    @Benchmark
+    public String encodeBinaryJson(Binary binary, FrameSize size) {
+        size.frameBytes = binary.jsonBytes;
+        return WireFormat.JSON.encode(encodeBinary(binary.data));
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryCbor(Binary binary, FrameSize size) {
+        size.frameBytes = binary.cborBytes;
+        return WireFormat.CBOR.encode(encodeBinary(binary.data));
+    }
+
+    @Benchmark
+    public ClientToServerMessage decodeJson(Request request, FrameSize size) {
+        size.frameBytes = request.jsonBytes;
+        return WebSocketHandler.decodeMessage(request.json);
+    }
+
+    @Benchmark
+    public ClientToServerMessage decodeCbor(Request request, FrameSize size) {
+        size.frameBytes = request.cbor.length;
+        return WebSocketHandler.decodeBinaryMessage(request.cbor, 0, request.cbor.length);
+    }
+}
@@ -56,7 +56,9 @@ public final class EngineRunner {
             if (newState instanceof StateMainMenu) {
                 engine.shutdown();
             } else if (engine.getState() instanceof StateIngame) {
-                newState.getContext().get(ComponentSystemManager.class).register(new ServerAdminListUpdaterSystem());
+                ComponentSystemManager componentSystemManager = newState.getContext().get(ComponentSystemManager.class);
+                componentSystemManager.register(new ServerAdminListUpdaterSystem());
+                componentSystemManager.register(new EngineThreadExecutorSystem());
             }
             JsonSession.handleEngineStateChanged(newState);
         });
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on the engine main thread, between two ticks, so that they can safely access the entity system.
+ * The engine states which support it ({@link StateEngineIdle}, and the ingame state through {@link EngineThreadExecutorSystem})
+ * call {@link #runPendingTasks()} at each update; in the other states (like while a game is loading) there is no tick to wait for,
+ * so the tasks are run directly on the thread which submits them.
+ */
+public final class EngineThreadExecutor implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EngineThreadExecutor.class);
+    private static final EngineThreadExecutor INSTANCE = new EngineThreadExecutor();
+    // the tasks submitted by other tasks beyond this limit are left for the next tick, so that they can't stall the engine
+    private static final int MAX_TASKS_PER_TICK = 256;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // the thread which is running the pending tasks at each tick, or null if no engine state is doing it
+    private Thread engineThread;
+
+    EngineThreadExecutor() {
+    }
+
+    public static EngineThreadExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        synchronized (this) {
+            if (engineThread != null && engineThread != Thread.currentThread()) {
+                tasks.add(task);
+                // wakes the engine thread up if it's idling in awaitTasks
+                notifyAll();
+                return;
+            }
+        }
+        runTask(task);
+    }
+
+    /**
+     * Runs the tasks submitted since the previous call; from now on, the tasks submitted by other threads
+     * are queued until the next call, until {@link #stopRunningTasks()} is called.
+     * Must be called on the engine thread at each tick.
+     */
+    public void runPendingTasks() {
+        synchronized (this) {
+            engineThread = Thread.currentThread();
+        }
+        for (int i = 0; i < MAX_TASKS_PER_TICK; i++) {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                break;
+            }
+            runTask(task);
+        }
+    }
+
+    /**
+     * Blocks the calling thread until a task is submitted or the specified time elapses, returning immediately if
+     * there are already pending tasks; used by the engine states which have nothing else to do between the ticks.
+     */
+    public synchronized void awaitTasks(long timeoutMillis) throws InterruptedException {
+        // loops because wait may return spuriously, before a task is queued or the time elapses
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long remainingNanos = deadline - System.nanoTime();
+        while (tasks.isEmpty() && remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            remainingNanos = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Must be called by the engine states which call {@link #runPendingTasks()} when they stop doing so, e.g. when disposed;
+     * the pending tasks are run immediately, and the following ones are run directly by the threads which submit them.
+     */
+    public void stopRunningTasks() {
+        synchronized (this) {
+            engineThread = null;
+        }
+        // no task can be queued anymore, so this terminates
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            runTask(task);
+        }
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException ex) {
+            logger.error("Unhandled exception in a task run on the engine thread", ex);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web;
+
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+
+/**
+ * Runs the tasks submitted to the {@link EngineThreadExecutor} at each tick while a game is running.
+ */
+public class EngineThreadExecutorSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+    @Override
+    public void update(float delta) {
+        EngineThreadExecutor.getInstance().runPendingTasks();
+    }
+
+    @Override
+    public void shutdown() {
+        EngineThreadExecutor.getInstance().stopRunningTasks();
+    }
+}
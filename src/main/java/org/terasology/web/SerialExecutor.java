@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the submitted tasks one at a time and in submission order, using the threads of a shared executor.
+ * At most one thread of the shared executor is used at a time, so many instances can share a small pool.
+ */
+public final class SerialExecutor implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerialExecutor.class);
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final Executor sharedExecutor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public SerialExecutor(Executor sharedExecutor) {
+        this.sharedExecutor = sharedExecutor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        scheduleIfNecessary();
+    }
+
+    private void scheduleIfNecessary() {
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            sharedExecutor.execute(this::runTasks);
+        }
+    }
+
+    private void runTasks() {
+        try {
+            // give the shared threads back after a batch, so that a busy instance doesn't starve the others
+            for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    logger.error("Unhandled exception in serially executed task", ex);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        scheduleIfNecessary();
+    }
+}
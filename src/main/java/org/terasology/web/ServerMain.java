@@ -35,10 +35,12 @@ import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.glassfish.jersey.media.sse.SseFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.server.mvc.freemarker.FreemarkerMvcFeature;
 import org.glassfish.jersey.servlet.ServletContainer;
@@ -49,11 +51,15 @@ import org.terasology.engine.paths.PathManager;
 import org.terasology.engine.subsystem.common.ConfigurationSubsystem;
 import org.terasology.web.io.ActionResultMessageBodyWriter;
 import org.terasology.web.io.gsonUtils.GsonMessageBodyHandler;
+import org.terasology.web.resources.ResourceManager;
 import org.terasology.web.serverAdminManagement.ServerAdminsManager;
 import org.terasology.web.servlet.AboutServlet;
 import org.terasology.web.servlet.HttpAPIServlet;
+import org.terasology.web.servlet.JsonSessionWithEventQueue;
 import org.terasology.web.servlet.LogServlet;
 import org.terasology.web.servlet.WsConnectionServlet;
+import org.terasology.web.webSocket.CompressionPolicy;
+import org.terasology.web.webSocket.OutboundQueuePolicy;
 
 
 /**
@@ -66,6 +72,10 @@ public final class ServerMain {
     private static final String ARG_ENGINE_DIR = "-homedir=";
     private static final String ARG_ENGINE_SERVER_PORT = "-serverPort=";
     private static final String ARG_WAIT_MANUAL_START = "-dontStartDefault";
+    private static final int DEFAULT_HTTP_GZIP_MIN_SIZE = 1024;
+    // the responses of the other types (e.g. images and the event streams) are sent uncompressed
+    private static final String[] DEFAULT_HTTP_GZIP_MIME_TYPES = {"application/json", "text/html", "text/plain", "text/css",
+        "application/javascript", "image/svg+xml"};
 
     private static boolean autoStart = true;
 
@@ -101,15 +111,27 @@ public final class ServerMain {
 
         Integer httpsPort = Integer.valueOf(httpsPortEnv);
 
+        String resourceUpdateIntervalEnv = System.getenv("RESOURCE_UPDATE_INTERVAL");
+        if (resourceUpdateIntervalEnv != null) {
+            ResourceManager.getInstance().setUpdateInterval(Long.parseLong(resourceUpdateIntervalEnv));
+        }
+
+        OutboundQueuePolicy webSocketQueuePolicy = readWebSocketQueuePolicy();
+        CompressionPolicy webSocketCompressionPolicy = readWebSocketCompressionPolicy();
+        String httpEventBufferSizeEnv = System.getenv("HTTP_EVENT_BUFFER_SIZE");
+        int httpEventBufferSize = httpEventBufferSizeEnv == null ? JsonSessionWithEventQueue.DEFAULT_EVENT_BUFFER_CAPACITY : Integer.parseInt(httpEventBufferSizeEnv);
+        String httpSessionTtlEnv = System.getenv("HTTP_SESSION_TTL");
+        long httpSessionTtl = httpSessionTtlEnv == null ? HttpAPIServlet.DEFAULT_SESSION_TIME_TO_LIVE_SECONDS : Long.parseLong(httpSessionTtlEnv);
+
         // this is mostly for I18nMap, but can have an influence on other
         // string formats. Note that metainfo.ftl explicitly sets the locale to
         // define the date format.
         Locale.setDefault(Locale.ENGLISH);
 
-        Server server = createServer(httpPort, httpsPort, keystorePassword,
+        Server server = createServer(httpPort, httpsPort, keystorePassword, webSocketQueuePolicy, webSocketCompressionPolicy,
                 new LogServlet(),
                 new AboutServlet(),
-                new HttpAPIServlet());
+                new HttpAPIServlet(httpEventBufferSize, httpSessionTtl));
 
         server.start();
         logger.info("Web server started on port {}!", httpPort);
@@ -119,6 +141,34 @@ public final class ServerMain {
         server.join();
     }
 
+    private static OutboundQueuePolicy readWebSocketQueuePolicy() {
+        OutboundQueuePolicy defaults = OutboundQueuePolicy.DEFAULT;
+        String maxPendingEventsEnv = System.getenv("WS_MAX_PENDING_EVENTS");
+        String eventOverflowPolicyEnv = System.getenv("WS_EVENT_OVERFLOW_POLICY");
+        String maxPendingSizeEnv = System.getenv("WS_MAX_PENDING_SIZE");
+        return new OutboundQueuePolicy(
+                maxPendingEventsEnv == null ? defaults.getMaxPendingEvents() : Integer.parseInt(maxPendingEventsEnv),
+                eventOverflowPolicyEnv == null ? defaults.getEventOverflowPolicy() : OutboundQueuePolicy.EventOverflowPolicy.valueOf(eventOverflowPolicyEnv),
+                maxPendingSizeEnv == null ? defaults.getMaxPendingSize() : Long.parseLong(maxPendingSizeEnv));
+    }
+
+    private static CompressionPolicy readWebSocketCompressionPolicy() {
+        CompressionPolicy defaults = CompressionPolicy.DEFAULT;
+        String minSizeEnv = System.getenv("WS_DEFLATE_MIN_SIZE");
+        String contextTakeoverEnv = System.getenv("WS_DEFLATE_CONTEXT_TAKEOVER");
+        return new CompressionPolicy(
+                minSizeEnv == null ? defaults.getMinMessageSize() : Integer.parseInt(minSizeEnv),
+                contextTakeoverEnv == null ? defaults.isContextTakeover() : Boolean.parseBoolean(contextTakeoverEnv));
+    }
+
+    private static void configureGzip(GzipHandler gzipHandler) {
+        String minSizeEnv = System.getenv("HTTP_GZIP_MIN_SIZE");
+        String mimeTypesEnv = System.getenv("HTTP_GZIP_MIME_TYPES");
+        gzipHandler.setMinGzipSize(minSizeEnv == null ? DEFAULT_HTTP_GZIP_MIN_SIZE : Integer.parseInt(minSizeEnv));
+        gzipHandler.setIncludedMimeTypes(mimeTypesEnv == null ? DEFAULT_HTTP_GZIP_MIME_TYPES : mimeTypesEnv.split(","));
+        gzipHandler.addExcludedMimeTypes(SseFeature.SERVER_SENT_EVENTS); // compression would buffer the event streams
+    }
+
     private static void handleArgs(String[] args) {
         List<String> helpArgs = Arrays.asList(ARGS_HELP);
         Path homePath = Paths.get(""); //use current directory as default
@@ -153,6 +203,19 @@ public final class ServerMain {
         System.out.println(ARG_WAIT_MANUAL_START + ": do not generate and start a game with the default settings, but wait for manual setup via the web interface");
         System.out.println();
         System.out.println("The web server port (default 8080) can be overridden by setting the environment variable HTTP_PORT.");
+        System.out.println("The minimum interval in milliseconds between two updates of the same resource sent to the clients (default 100, 0 to disable merging) "
+                + "can be overridden by setting the environment variable RESOURCE_UPDATE_INTERVAL.");
+        System.out.println("The messages buffered for each WebSocket client are limited by the environment variables WS_MAX_PENDING_EVENTS (default 256), "
+                + "WS_EVENT_OVERFLOW_POLICY (DROP_OLDEST or SUMMARIZE_OLDEST, the default) and WS_MAX_PENDING_SIZE "
+                + "(in characters, default 4194304; above this the client is disconnected).");
+        System.out.println("WebSocket messages are compressed with permessage-deflate, when the client supports it, if they are at least WS_DEFLATE_MIN_SIZE "
+                + "bytes long (default 1024, -1 to disable the compression); set WS_DEFLATE_CONTEXT_TAKEOVER to false to reset the compression context "
+                + "after each message.");
+        System.out.println("HTTP responses are compressed with gzip if they are at least HTTP_GZIP_MIN_SIZE bytes long (default 1024) "
+                + "and their type is in the comma separated list HTTP_GZIP_MIME_TYPES (default " + String.join(",", DEFAULT_HTTP_GZIP_MIME_TYPES) + ").");
+        System.out.println("The number of events kept for each HTTP client until they are read from /api/events (default 256) "
+                + "can be overridden by setting the environment variable HTTP_EVENT_BUFFER_SIZE.");
+        System.out.println("HTTP API sessions which are not used for 1800 seconds are closed; the time can be overridden by setting the environment variable HTTP_SESSION_TTL.");
     }
 
     private static void setupLogging() {
@@ -164,7 +227,8 @@ public final class ServerMain {
         LoggingContext.initialize(path);
     }
 
-    private static Server createServer(int httpPort, int httpsPort, String keystorePassword, Object... annotatedObjects) throws Exception {
+    private static Server createServer(int httpPort, int httpsPort, String keystorePassword, OutboundQueuePolicy webSocketQueuePolicy,
+                                       CompressionPolicy webSocketCompressionPolicy, Object... annotatedObjects) throws Exception {
         Server server = new Server(httpPort);
 
         ResourceHandler logFileResourceHandler = new ResourceHandler();
@@ -185,6 +249,7 @@ public final class ServerMain {
         rc.register(new GsonMessageBodyHandler());               // register JSON serializer
         rc.register(new ActionResultMessageBodyWriter());
         rc.register(FreemarkerMvcFeature.class);
+        rc.register(SseFeature.class);
 
         for (Object servlet : annotatedObjects) {
             rc.register(servlet);
@@ -211,9 +276,12 @@ public final class ServerMain {
         server.addConnector(sslConnector);
 
         ServletContextHandler jerseyContext = new ServletContextHandler(ServletContextHandler.GZIP);
+        configureGzip(jerseyContext.getGzipHandler());
         jerseyContext.setResourceBase("templates");
-        jerseyContext.addServlet(new ServletHolder(new ServletContainer(rc)), "/*");
-        jerseyContext.addServlet(new ServletHolder(WsConnectionServlet.class), "/ws/*");
+        ServletHolder jerseyServletHolder = new ServletHolder(new ServletContainer(rc));
+        jerseyServletHolder.setAsyncSupported(true); // required to suspend the long-polling requests to /api/events
+        jerseyContext.addServlet(jerseyServletHolder, "/*");
+        jerseyContext.addServlet(new ServletHolder(new WsConnectionServlet(webSocketQueuePolicy, webSocketCompressionPolicy)), "/ws/*");
 
         HandlerList handlers = new HandlerList();
         handlers.addHandler(logContext);
@@ -42,6 +42,9 @@ import org.terasology.rendering.nui.internal.NUIManagerInternal;
  */
 public class StateEngineIdle implements GameState {
 
+    // the maximum time between two ticks while no web request needs the engine thread
+    private static final long IDLE_TICK_MILLIS = 100;
+
     private EngineEntityManager entityManager;
     private EventSystem eventSystem;
     private ComponentSystemManager componentSystemManager;
@@ -80,6 +83,7 @@ public class StateEngineIdle implements GameState {
 
     @Override
     public void dispose(boolean shuttingDown) {
+        EngineThreadExecutor.getInstance().stopRunningTasks();
         eventSystem.process();
 
         componentSystemManager.shutdown();
@@ -94,8 +98,16 @@ public class StateEngineIdle implements GameState {
 
     @Override
     public void update(float delta) {
+        EngineThreadExecutor engineThreadExecutor = EngineThreadExecutor.getInstance();
+        engineThreadExecutor.runPendingTasks();
         eventSystem.process();
-        Thread.yield();
+        // without a game, the events are only sent by the tasks submitted by the web requests (e.g. console commands),
+        // so rather than spinning the engine loop sleeps until a task arrives, with a periodic tick for everything else
+        try {
+            engineThreadExecutor.awaitTasks(IDLE_TICK_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
@@ -22,6 +22,7 @@ import org.terasology.rendering.nui.Color;
 public class AnonymousHeadlessClient implements HeadlessClient {
 
     private EntityRef entity = EntityRef.NULL;
+    private final ClientSecurityInfoCache securityInfoCache = new ClientSecurityInfoCache(false, getId());
 
     public AnonymousHeadlessClient() {
     }
@@ -37,6 +38,11 @@ public class AnonymousHeadlessClient implements HeadlessClient {
         return true;
     }
 
+    @Override
+    public ClientSecurityInfo getSecurityInfo() {
+        return securityInfoCache.get();
+    }
+
     @Override
     public void disconnect() {
         entity.destroy();
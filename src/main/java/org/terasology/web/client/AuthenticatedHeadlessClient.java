@@ -24,9 +24,11 @@ public class AuthenticatedHeadlessClient extends AbstractClient implements Headl
 
     private String id;
     private boolean connectedToEntityManager;
+    private final ClientSecurityInfoCache securityInfoCache;
 
     public AuthenticatedHeadlessClient(String id) {
         this.id = id;
+        this.securityInfoCache = new ClientSecurityInfoCache(true, id);
     }
 
     @Override
@@ -40,6 +42,11 @@ public class AuthenticatedHeadlessClient extends AbstractClient implements Headl
         return false;
     }
 
+    @Override
+    public ClientSecurityInfo getSecurityInfo() {
+        return securityInfoCache.get();
+    }
+
 
     @Override
     public void disconnect() {
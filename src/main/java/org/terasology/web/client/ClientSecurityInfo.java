@@ -17,8 +17,8 @@ package org.terasology.web.client;
 
 public class ClientSecurityInfo {
 
-    private boolean isAuthenticated;
-    private boolean hasAdminPermission;
+    private final boolean isAuthenticated;
+    private final boolean hasAdminPermission;
 
     public ClientSecurityInfo(boolean isAuthenticated, boolean hasAdminPermission) {
         this.isAuthenticated = isAuthenticated;
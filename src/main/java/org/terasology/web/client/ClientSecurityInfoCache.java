@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.client;
+
+import org.terasology.web.serverAdminManagement.ServerAdminsManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps the {@link ClientSecurityInfo} of a client, which is checked for every request and for every update sent to it,
+ * so that it's recomputed only when the server admin list changes rather than looked up in the list each time.
+ */
+public final class ClientSecurityInfoCache {
+
+    private static final class Entry {
+        private final long adminListVersion;
+        private final ClientSecurityInfo securityInfo;
+
+        private Entry(long adminListVersion, ClientSecurityInfo securityInfo) {
+            this.adminListVersion = adminListVersion;
+            this.securityInfo = securityInfo;
+        }
+    }
+
+    private final Supplier<ServerAdminsManager> serverAdminsManager;
+    private final boolean authenticated;
+    private final String clientId;
+    private volatile Entry entry;
+
+    public ClientSecurityInfoCache(ServerAdminsManager serverAdminsManager, boolean authenticated, String clientId) {
+        this(() -> serverAdminsManager, authenticated, clientId);
+    }
+
+    /**
+     * Creates a cache which uses the global {@link ServerAdminsManager}, obtained only when the security info is first requested.
+     */
+    public ClientSecurityInfoCache(boolean authenticated, String clientId) {
+        this(ServerAdminsManager::getInstance, authenticated, clientId);
+    }
+
+    private ClientSecurityInfoCache(Supplier<ServerAdminsManager> serverAdminsManager, boolean authenticated, String clientId) {
+        this.serverAdminsManager = serverAdminsManager;
+        this.authenticated = authenticated;
+        this.clientId = clientId;
+    }
+
+    public ClientSecurityInfo get() {
+        ServerAdminsManager adminsManager = serverAdminsManager.get();
+        // the version is read before the list, so if the list changes meanwhile the entry is recomputed on the next call
+        long adminListVersion = adminsManager.getAdminListVersion();
+        Entry currentEntry = entry;
+        if (currentEntry == null || currentEntry.adminListVersion != adminListVersion) {
+            currentEntry = new Entry(adminListVersion,
+                    new ClientSecurityInfo(authenticated, adminsManager.clientHasAdminPermissions(clientId)));
+            entry = currentEntry;
+        }
+        return currentEntry.securityInfo;
+    }
+}
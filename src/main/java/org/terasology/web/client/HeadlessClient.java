@@ -21,7 +21,6 @@ import org.terasology.entitySystem.event.Event;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.network.Client;
 import org.terasology.rendering.world.viewDistance.ViewDistance;
-import org.terasology.web.serverAdminManagement.ServerAdminsManager;
 import org.terasology.world.chunks.Chunk;
 
 public interface HeadlessClient extends Client {
@@ -29,9 +28,11 @@ public interface HeadlessClient extends Client {
     void connect(EntityManager entityManager);
     boolean isAnonymous();
 
-    default ClientSecurityInfo getSecurityInfo() {
-        return new ClientSecurityInfo(!isAnonymous(), ServerAdminsManager.getInstance().clientHasAdminPermissions(getId()));
-    }
+    /**
+     * Called for every request and for every update sent to the client, so implementations should keep the result
+     * in a {@link ClientSecurityInfoCache} rather than looking the client up in the server admin list each time.
+     */
+    ClientSecurityInfo getSecurityInfo();
 
     @Override
     default void onChunkRelevant(Vector3i pos, Chunk chunk) {
@@ -16,12 +16,24 @@
 package org.terasology.web.io;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
+import org.terasology.web.io.cbor.CborWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
 
 public class ActionResult {
 
     public static final ActionResult OK = new ActionResult(Status.OK);
+    private static final byte[] JSON_NULL = "null".getBytes(StandardCharsets.UTF_8);
 
     public enum Status {
         OK,
@@ -36,6 +48,16 @@ public class ActionResult {
     private Status status;
     private String message;
     private JsonElement data;
+    // when not null, the data is serialized with this Gson instance only when needed, preferably by writeTo
+    private transient Object rawData;
+    private transient Gson rawDataGson;
+    // when not null, the data already serialized as UTF-8 JSON, which is copied to the output as it is
+    private transient byte[] serializedData;
+    // when not null, provides the same data encoded to CBOR, which is written instead of the JSON one to the CBOR writers
+    private transient Supplier<byte[]> cborDataSupplier;
+    private transient String entityTag;
+    // when not null, the data is the array of these results, e.g. of the operations of a batch
+    private transient List<ActionResult> results;
 
     public ActionResult(Status status, String message, JsonElement data) {
         this.status = status;
@@ -59,6 +81,47 @@ public class ActionResult {
         this(Status.BAD_REQUEST, getExceptionMessage(ex), null);
     }
 
+    /**
+     * Creates a successful result whose data is serialized directly to the output when the result is written with
+     * {@link #writeTo(JsonWriter)} or {@link #writeDataTo(JsonWriter)}, without building an intermediate JSON tree.
+     */
+    public static ActionResult ofObject(Object data, Gson gson) {
+        ActionResult result = new ActionResult(Status.OK, null, null);
+        result.rawData = data;
+        result.rawDataGson = gson;
+        return result;
+    }
+
+    /**
+     * Creates a successful result whose data has already been serialized, e.g. because it's cached.
+     * @param serializedData the UTF-8 JSON representation of the data; it's not copied, so it must not be modified afterwards.
+     * @param entityTag a value which changes whenever the serialized data changes, used by HTTP conditional requests.
+     */
+    public static ActionResult ofSerializedData(byte[] serializedData, String entityTag) {
+        return ofSerializedData(serializedData, entityTag, null);
+    }
+
+    /**
+     * Like {@link #ofSerializedData(byte[], String)}, but the data is written in its CBOR encoding, obtained from the specified
+     * supplier only when needed, to the {@link CborWriter}s; this avoids parsing the JSON again and keeps byte arrays as native byte strings.
+     */
+    public static ActionResult ofSerializedData(byte[] serializedData, String entityTag, Supplier<byte[]> cborDataSupplier) {
+        ActionResult result = new ActionResult(Status.OK, null, null);
+        result.serializedData = serializedData;
+        result.entityTag = entityTag;
+        result.cborDataSupplier = cborDataSupplier;
+        return result;
+    }
+
+    /**
+     * Creates a successful result whose data is the array of the specified results, each one written like {@link #writeTo(JsonWriter)}.
+     */
+    public static ActionResult ofResults(List<ActionResult> results) {
+        ActionResult result = new ActionResult(Status.OK, null, null);
+        result.results = results;
+        return result;
+    }
+
     private static String getExceptionMessage(JsonSyntaxException ex) {
         Throwable cause = ex.getCause();
         if (cause != null) {
@@ -76,10 +139,109 @@ public class ActionResult {
     }
 
     public JsonElement getData() {
+        if (data == null && serializedData != null) {
+            data = new JsonParser().parse(new String(serializedData, StandardCharsets.UTF_8));
+            serializedData = null;
+        }
+        if (data == null && rawDataGson != null) {
+            data = rawDataGson.toJsonTree(rawData);
+            rawDataGson = null;
+            rawData = null;
+        }
+        if (data == null && results != null) {
+            JsonArray array = new JsonArray();
+            for (ActionResult result: results) {
+                array.add(result.toJsonObject());
+            }
+            data = array;
+            results = null;
+        }
         return data;
     }
 
+    private JsonObject toJsonObject() {
+        JsonObject result = new JsonObject();
+        result.addProperty("status", status.name());
+        if (message != null) {
+            result.addProperty("message", message);
+        }
+        if (hasData()) {
+            result.add("data", getData());
+        }
+        return result;
+    }
+
+    public boolean hasData() {
+        if (serializedData != null) {
+            return !Arrays.equals(serializedData, JSON_NULL);
+        }
+        if (rawDataGson != null) {
+            return rawData != null;
+        }
+        if (results != null) {
+            return true;
+        }
+        return data != null && !data.isJsonNull();
+    }
+
     public JsonElement toJsonTree(Gson gson) {
+        getData();
         return gson.toJsonTree(this);
     }
+
+    /**
+     * @return the entity tag of a result created with {@link #ofSerializedData(byte[], String)}, or null.
+     */
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    /**
+     * @return the data of a result created with {@link #ofSerializedData(byte[], String)}, which must not be modified; null otherwise.
+     */
+    public byte[] getSerializedData() {
+        return serializedData;
+    }
+
+    /**
+     * Writes the data of this result, or a JSON null if there isn't any.
+     */
+    public void writeDataTo(JsonWriter writer) throws IOException {
+        if (serializedData != null && cborDataSupplier != null && writer instanceof CborWriter) {
+            ((CborWriter) writer).encodedValue(cborDataSupplier.get());
+        } else if (serializedData != null) {
+            writer.jsonValue(new String(serializedData, StandardCharsets.UTF_8));
+        } else if (results != null) {
+            writer.beginArray();
+            for (ActionResult result: results) {
+                result.writeTo(writer);
+            }
+            writer.endArray();
+        } else if (rawDataGson != null) {
+            if (rawData == null) {
+                writer.nullValue();
+            } else {
+                rawDataGson.toJson(rawData, rawData.getClass(), writer);
+            }
+        } else {
+            JsonStringEncoder.writeElement(writer, data);
+        }
+    }
+
+    /**
+     * Writes this result as a JSON object with the status, message and data keys, the same as {@link #toJsonTree(Gson)}
+     * (keys with null values are omitted).
+     */
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("status").value(status.name());
+        if (message != null) {
+            writer.name("message").value(message);
+        }
+        if (hasData()) {
+            writer.name("data");
+            writeDataTo(writer);
+        }
+        writer.endObject();
+    }
 }
@@ -16,10 +16,13 @@
 package org.terasology.web.io;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.gson.stream.JsonWriter;
 import org.terasology.web.servlet.JsonWebApplicationException;
 
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
@@ -28,7 +31,6 @@ import javax.ws.rs.ext.Provider;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
@@ -63,10 +65,22 @@ public class ActionResultMessageBodyWriter implements MessageBodyWriter<ActionRe
         if (actionResult.getStatus() != ActionResult.Status.OK) {
             throw new JsonWebApplicationException(actionResult.getMessage(), ERRORMAP.get(actionResult.getStatus()));
         }
-        if (actionResult.getData() != null && !actionResult.getData().isJsonNull()) {
-            try (Writer writer = new OutputStreamWriter(entityStream, StandardCharsets.UTF_8)) {
-                writer.write(actionResult.getData().toString());
-            }
+        if (actionResult.getEntityTag() != null) {
+            // allows the clients to send conditional requests for the same resource (see HttpAPIServlet.accessResourceGet)
+            httpHeaders.putSingle(HttpHeaders.ETAG, new EntityTag(actionResult.getEntityTag()));
+        }
+        if (!actionResult.hasData()) {
+            return;
+        }
+        byte[] serializedData = actionResult.getSerializedData();
+        if (serializedData != null) {
+            entityStream.write(serializedData);
+            return;
+        }
+        // the data is serialized straight to the response, without building a JSON tree or string first
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(entityStream, StandardCharsets.UTF_8))) {
+            writer.setLenient(true);
+            actionResult.writeDataTo(writer);
         }
     }
 }
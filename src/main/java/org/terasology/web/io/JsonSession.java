@@ -15,10 +15,12 @@
  */
 package org.terasology.web.io;
 
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
 import org.terasology.config.Config;
 import org.terasology.engine.modes.GameState;
 import org.terasology.entitySystem.entity.EntityManager;
@@ -41,29 +43,42 @@ import org.terasology.web.authentication.ClientAuthenticationMessage;
 import org.terasology.web.authentication.HandshakeHello;
 import org.terasology.web.client.HeadlessClient;
 import org.terasology.web.client.HeadlessClientFactory;
-import org.terasology.web.io.gsonUtils.ByteArrayBase64Serializer;
+import org.terasology.web.io.cbor.CborWriter;
+import org.terasology.web.io.gsonUtils.ByteArrayTypeAdapter;
 import org.terasology.web.io.gsonUtils.ValidatorTypeAdapterFactory;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.ResourceManager;
+import org.terasology.web.resources.ResourceUpdate;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class JsonSession {
 
+    public static final int MAX_BATCH_SIZE = 64;
+
     private static final Gson GSON = new GsonBuilder()
             .registerTypeAdapterFactory(ValidatorTypeAdapterFactory.getInstance())
             .registerTypeAdapter(BigInteger.class, BigIntegerBase64Serializer.getInstance())
-            .registerTypeAdapter(byte[].class, ByteArrayBase64Serializer.getInstance())
+            .registerTypeAdapter(byte[].class, ByteArrayTypeAdapter.getInstance())
             .registerTypeAdapter(Name.class, new NameTypeAdapter())
             .registerTypeAdapter(Version.class, new VersionTypeAdapter())
             .registerTypeAdapter(I18nMap.class, new I18nMapTypeAdapter())
             .registerTypeAdapterFactory(new UriTypeAdapterFactory())
+            // the output is written straight to HTTP responses and WebSocket messages, which are never embedded in HTML
+            .disableHtmlEscaping()
             .create();
     private static final InputParser<JsonElement> JSON_INPUT_PARSER = new InputParser<JsonElement>() {
         @Override
@@ -75,15 +90,31 @@ public class JsonSession {
             }
         }
     };
-    private static Set<JsonSession> allSessions = new HashSet<>();
+    private static final Function<ResourceUpdate, JsonElement> UPDATE_DATA_SERIALIZER = (update) -> GSON.toJsonTree(update.getData());
+    private static final Function<ResourceUpdate, byte[]> UPDATE_DATA_BYTES_SERIALIZER =
+            (update) -> GSON.toJson(update.getData()).getBytes(StandardCharsets.UTF_8);
+    private static final Function<ResourceUpdate, byte[]> UPDATE_DATA_CBOR_SERIALIZER = (update) -> CborWriter.encode((writer) -> {
+        Object data = update.getData();
+        if (data == null) {
+            writer.nullValue();
+        } else {
+            GSON.toJson(data, data.getClass(), writer);
+        }
+    });
+    // a hash of the serialized data, which doesn't need to be cryptographically secure since it's only compared with previous ones
+    private static final Function<ResourceUpdate, String> UPDATE_DATA_ENTITY_TAG =
+            (update) -> Hashing.murmur3_128().hashBytes(update.getEncoded(UPDATE_DATA_BYTES_SERIALIZER)).toString();
+    // sessions are created and closed by the web server threads while the engine thread iterates them on state changes
+    private static final Set<JsonSession> allSessions = ConcurrentHashMap.newKeySet();
 
     private final AuthenticationHandshakeHandler authHandler;
     private final ResourceManager resourceManager;
 
+    // the client is replaced on authentication and engine state changes; these transitions are synchronized on the session itself
     private HeadlessClientFactory headlessClientFactory;
-    private HeadlessClient client;
-    private BiConsumer<Collection<String>, JsonElement> resourceChangeSubscriber = (path, data) -> { };
-    private BiConsumer<Collection<String>, JsonElement> resourceEventListener = (path, data) -> { };
+    private volatile HeadlessClient client;
+    private volatile Consumer<ResourceUpdate> resourceChangeSubscriber = (update) -> { };
+    private volatile BiConsumer<Collection<String>, JsonElement> resourceEventListener = (path, data) -> { };
 
     JsonSession(AuthenticationHandshakeHandler authHandler, HeadlessClientFactory headlessClientFactory, ResourceManager resourceManager) {
         this.authHandler = authHandler;
@@ -101,25 +132,40 @@ public class JsonSession {
 
     public static void disconnectAllClients() {
         for (JsonSession session: allSessions) {
-            session.client.disconnect();
+            session.disconnectClient();
         }
     }
 
     public static void handleEngineStateChanged(GameState newEngineState) {
-        allSessions.forEach((instance) -> {
-            instance.headlessClientFactory = new HeadlessClientFactory(newEngineState.getContext().get(EntityManager.class));
-            instance.removeResourceObservers();
-            instance.client.disconnect();
-            if (instance.isAuthenticated()) {
-                instance.client = instance.headlessClientFactory.connectNewHeadlessClient(instance.client.getId());
-            } else {
-                instance.client = instance.headlessClientFactory.connectNewAnonymousHeadlessClient();
-            }
-            instance.setResourceObservers();
-        });
+        allSessions.forEach((instance) -> instance.reconnect(new HeadlessClientFactory(newEngineState.getContext().get(EntityManager.class))));
+    }
+
+    private synchronized void disconnectClient() {
+        if (client != null) {
+            client.disconnect();
+        }
+    }
+
+    private synchronized void reconnect(HeadlessClientFactory newHeadlessClientFactory) {
+        if (client == null) {
+            return; // the session has been closed concurrently
+        }
+        headlessClientFactory = newHeadlessClientFactory;
+        removeResourceObservers();
+        client.disconnect();
+        if (isAuthenticated()) {
+            client = headlessClientFactory.connectNewHeadlessClient(client.getId());
+        } else {
+            client = headlessClientFactory.connectNewAnonymousHeadlessClient();
+        }
+        setResourceObservers();
     }
 
-    public void setResourceChangeSubscriber(BiConsumer<Collection<String>, JsonElement> resourceChangeSubscriber) {
+    /**
+     * @param resourceChangeSubscriber receives the updates for the resources this session's client is allowed to read;
+     * use {@link #serializeUpdateData(ResourceUpdate)} to obtain the JSON representation of the new resource state.
+     */
+    public void setResourceChangeSubscriber(Consumer<ResourceUpdate> resourceChangeSubscriber) {
         this.resourceChangeSubscriber = resourceChangeSubscriber;
     }
 
@@ -127,8 +173,29 @@ public class JsonSession {
         this.resourceEventListener = resourceEventListener;
     }
 
-    private void notifyResourceChanged(ResourcePath resourcePath, Object newData) {
-        resourceChangeSubscriber.accept(Collections.unmodifiableCollection(resourcePath.getItemList()), GSON.toJsonTree(newData));
+    /**
+     * @return the JSON representation of the updated resource data, which is computed only once for each update
+     * and then shared between all the sessions receiving it.
+     */
+    public static JsonElement serializeUpdateData(ResourceUpdate update) {
+        return update.getEncoded(UPDATE_DATA_SERIALIZER);
+    }
+
+    /**
+     * Writes the JSON representation of the updated resource data directly to the specified writer, without building
+     * the tree returned by {@link #serializeUpdateData(ResourceUpdate)} (unless it's already available).
+     */
+    public static void writeUpdateData(ResourceUpdate update, JsonWriter writer) throws IOException {
+        Object data = update.getData();
+        if (data == null) {
+            writer.nullValue();
+        } else {
+            GSON.toJson(data, data.getClass(), writer);
+        }
+    }
+
+    private void notifyResourceChanged(ResourceUpdate update) {
+        resourceChangeSubscriber.accept(update);
     }
 
     private void notifyResourceEvent(ResourcePath resourcePath, Object eventData) {
@@ -144,7 +211,8 @@ public class JsonSession {
     }
 
     public boolean isAuthenticated() {
-        return client != null && !client.isAnonymous();
+        HeadlessClient currentClient = client;
+        return currentClient != null && !currentClient.isAnonymous();
     }
 
     public ActionResult initAuthentication() {
@@ -152,10 +220,10 @@ public class JsonSession {
             return new ActionResult(ActionResult.Status.FORBIDDEN, "Already authenticated");
         }
         HandshakeHello serverHello = authHandler.initServerHello();
-        return new ActionResult(GSON.toJsonTree(serverHello));
+        return ActionResult.ofObject(serverHello, GSON);
     }
 
-    public ActionResult finishAuthentication(JsonElement clientMessage) {
+    public synchronized ActionResult finishAuthentication(JsonElement clientMessage) {
         if (isAuthenticated()) {
             return new ActionResult(ActionResult.Status.FORBIDDEN, "Already authenticated");
         }
@@ -167,7 +235,7 @@ public class JsonSession {
             String clientId = clientAuthentication.getClientHello().getCertificate().getId();
             client = headlessClientFactory.connectNewHeadlessClient(clientId);
             setResourceObservers(); //observe the notifications sent for the authenticated client
-            return new ActionResult(GSON.toJsonTree(serverVerification));
+            return ActionResult.ofObject(serverVerification, GSON);
         } catch (JsonSyntaxException ex) {
             return new ActionResult(ex);
         } catch (AuthenticationFailedException ex) {
@@ -175,20 +243,80 @@ public class JsonSession {
         }
     }
 
-    public void disconnect() {
+    public synchronized void disconnect() {
+        if (client == null) {
+            return;
+        }
         removeResourceObservers();
         client.disconnect();
         client = null;
         allSessions.remove(this);
     }
 
+    /**
+     * @return a future completed with the current state of a resource, the same that would be delivered to the resource change
+     * subscriber if it changed, or exceptionally with a {@link ResourceAccessException} (see {@link ResourceAccessException#getResultToSend(Throwable)}).
+     */
+    public CompletableFuture<ResourceUpdate> getResourceStateAsync(List<String> resourcePath) {
+        return resourceManager.getResourceStateAsync(new ResourcePath(resourcePath), null, JSON_INPUT_PARSER, client);
+    }
+
+    /**
+     * Performs a resource request and waits for its result; see {@link #accessResourceAsync(List, ResourceMethodName, JsonElement)}.
+     */
     public ActionResult accessResource(List<String> resourcePath, ResourceMethodName methodName, JsonElement inputData) {
-        try {
-            Object resultData = resourceManager.performAction(new ResourcePath(resourcePath), methodName, inputData, JSON_INPUT_PARSER, client);
-            return new ActionResult(GSON.toJsonTree(resultData));
-        } catch (ResourceAccessException ex) {
-            return ex.getResultToSend();
+        return accessResourceAsync(resourcePath, methodName, inputData).join();
+    }
+
+    /**
+     * Performs a resource request on the thread required by the resource method (see {@link ResourceManager#performActionAsync}).
+     * @return a future completed with the result, which is never completed exceptionally unless the method fails unexpectedly.
+     */
+    public CompletableFuture<ActionResult> accessResourceAsync(List<String> resourcePath, ResourceMethodName methodName, JsonElement inputData) {
+        ResourcePath path = new ResourcePath(resourcePath);
+        if (methodName == ResourceMethodName.GET) {
+            // the serialized state and its hash are cached along with the state itself, when the resource allows it
+            return resourceManager.getResourceStateAsync(path, inputData, JSON_INPUT_PARSER, client).handle((state, failure) -> failure != null
+                    ? ResourceAccessException.getResultToSend(failure)
+                    : ActionResult.ofSerializedData(state.getEncoded(UPDATE_DATA_BYTES_SERIALIZER), state.getEncoded(UPDATE_DATA_ENTITY_TAG),
+                            () -> state.getEncoded(UPDATE_DATA_CBOR_SERIALIZER)));
         }
+        return resourceManager.performActionAsync(path, methodName, inputData, JSON_INPUT_PARSER, client).handle((resultData, failure) ->
+                failure != null ? ResourceAccessException.getResultToSend(failure) : ActionResult.ofObject(resultData, GSON));
     }
 
+    /**
+     * Performs a batch of resource requests and waits for the result; see {@link #accessResourceBatchAsync(JsonElement)}.
+     */
+    public ActionResult accessResourceBatch(JsonElement batch) {
+        return accessResourceBatchAsync(batch).join();
+    }
+
+    /**
+     * Performs several resource requests in order, each one even if the previous ones have failed; each request is started
+     * when the previous one is complete.
+     * @param batch an array of objects with the method, resourcePath and (optionally) data keys, at most {@link #MAX_BATCH_SIZE}.
+     * @return a future completed with a result whose data is the array of the results of the requests, in the same order.
+     */
+    public CompletableFuture<ActionResult> accessResourceBatchAsync(JsonElement batch) {
+        BatchOperation[] operations;
+        try {
+            operations = GSON.fromJson(batch, BatchOperation[].class);
+        } catch (JsonSyntaxException ex) {
+            return CompletableFuture.completedFuture(new ActionResult(ex));
+        }
+        if (operations == null || Arrays.asList(operations).contains(null)) {
+            return CompletableFuture.completedFuture(new ActionResult(ActionResult.Status.BAD_REQUEST, "The batch must be an array of operations"));
+        } else if (operations.length > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(new ActionResult(ActionResult.Status.BAD_REQUEST,
+                    "A batch can contain at most " + MAX_BATCH_SIZE + " operations"));
+        }
+        List<ActionResult> results = new ArrayList<>(operations.length);
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+        for (BatchOperation operation: operations) {
+            previous = previous.thenCompose((ignored) -> accessResourceAsync(operation.getResourcePath(), operation.getMethod(), operation.getData()))
+                    .thenAccept(results::add);
+        }
+        return previous.thenApply((ignored) -> ActionResult.ofResults(results));
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+/**
+ * Encodes JSON documents to strings by writing them to a {@link JsonWriter} backed by a per-thread reusable buffer,
+ * so that no intermediate JSON tree is built and the only allocation proportional to the output size is the final string.
+ * The writer has the same settings as the one used by a Gson instance created with disableHtmlEscaping.
+ */
+public final class JsonStringEncoder {
+
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(JsonWriter writer) throws IOException;
+    }
+
+    // a buffer grown past this size by an exceptionally large message is released instead of being retained by the thread
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+    // writes with the settings of the writer it's given, unlike Gson.toJson(JsonElement, JsonWriter) which replaces them temporarily
+    private static final TypeAdapter<JsonElement> JSON_ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    private JsonStringEncoder() {
+    }
+
+    public static String encode(Content content) {
+        Buffer buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            // nested call from within another encoding on the same thread
+            buffer = new Buffer();
+        }
+        buffer.inUse = true;
+        StringBuffer chars = buffer.writer.getBuffer();
+        try {
+            JsonWriter writer = new JsonWriter(buffer.writer);
+            writer.setLenient(true);
+            writer.setSerializeNulls(false);
+            content.writeTo(writer);
+            writer.flush();
+            return chars.toString();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            buffer.inUse = false;
+            if (chars.capacity() > MAX_RETAINED_CAPACITY) {
+                BUFFERS.remove();
+            } else {
+                chars.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Writes a JSON tree; null is written as a JSON null.
+     */
+    public static void writeElement(JsonWriter writer, JsonElement element) throws IOException {
+        JSON_ELEMENT_ADAPTER.write(writer, element == null ? JsonNull.INSTANCE : element);
+    }
+
+    public static void writeStringArray(JsonWriter writer, Collection<String> items) throws IOException {
+        writer.beginArray();
+        for (String item: items) {
+            writer.value(item);
+        }
+        writer.endArray();
+    }
+
+    private static final class Buffer {
+        private final StringWriter writer = new StringWriter(INITIAL_CAPACITY);
+        private boolean inUse;
+    }
+}
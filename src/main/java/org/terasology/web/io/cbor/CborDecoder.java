@@ -0,0 +1,288 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.cbor;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes <a href="https://tools.ietf.org/html/rfc7049">CBOR</a> data items to Gson trees, which can then be
+ * deserialized with the same type adapters used for JSON; tags are ignored. Since a Gson tree can only hold strings, numbers
+ * and booleans, byte strings are stored as strings with one character per byte, prefixed by {@link #BYTE_STRING_MARKER}:
+ * unlike Base64 this only widens the bytes, and the byte array adapter converts them back with {@link #getByteStringBytes(String)}.
+ */
+public final class CborDecoder {
+
+    private static final int MAX_DEPTH = 64;
+    private static final int BREAK = 0xff;
+    /**
+     * The first character of the strings holding a byte string; it's not valid in Base64, so they can't be mistaken for the
+     * Base64 strings used for byte arrays in JSON.
+     */
+    public static final char BYTE_STRING_MARKER = '\u0000';
+
+    private final byte[] input;
+    private final int end;
+    private int position;
+
+    private CborDecoder(byte[] input, int offset, int length) {
+        this.input = input;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Decodes a single data item which must span exactly the specified region of the array.
+     * @throws JsonSyntaxException if the data is not well-formed CBOR.
+     */
+    public static JsonElement decode(byte[] input, int offset, int length) {
+        CborDecoder decoder = new CborDecoder(input, offset, length);
+        JsonElement result = decoder.readItem(0);
+        if (decoder.position != decoder.end) {
+            throw new JsonSyntaxException("Unexpected data after the end of the CBOR item");
+        }
+        return result;
+    }
+
+    public static JsonElement decode(byte[] input) {
+        return decode(input, 0, input.length);
+    }
+
+    /**
+     * @return whether the string holds a byte string decoded by this class.
+     */
+    public static boolean isByteString(String value) {
+        return !value.isEmpty() && value.charAt(0) == BYTE_STRING_MARKER;
+    }
+
+    /**
+     * @return the bytes held by a string for which {@link #isByteString(String)} returns true.
+     * @throws JsonSyntaxException if the string contains characters which don't represent a byte.
+     */
+    public static byte[] getByteStringBytes(String value) {
+        byte[] result = new byte[value.length() - 1];
+        for (int i = 0; i < result.length; i++) {
+            char c = value.charAt(i + 1);
+            if (c > 0xff) {
+                throw new JsonSyntaxException("Invalid character in a byte string");
+            }
+            result[i] = (byte) c;
+        }
+        return result;
+    }
+
+    private static String toByteStringValue(byte[] bytes) {
+        char[] chars = new char[bytes.length + 1];
+        chars[0] = BYTE_STRING_MARKER;
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i + 1] = (char) (bytes[i] & 0xff);
+        }
+        return new String(chars);
+    }
+
+    private JsonElement readItem(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new JsonSyntaxException("CBOR data is nested too deeply");
+        }
+        int initialByte = readByte();
+        int majorType = initialByte >>> 5;
+        int additionalInfo = initialByte & 0x1f;
+        switch (majorType) {
+            case 0:
+                return new JsonPrimitive(readUnsignedArgument(additionalInfo));
+            case 1:
+                return new JsonPrimitive(-1 - readUnsignedArgument(additionalInfo));
+            case 2:
+                return new JsonPrimitive(toByteStringValue(readBytes(additionalInfo, 2)));
+            case 3:
+                return new JsonPrimitive(new String(readBytes(additionalInfo, 3), StandardCharsets.UTF_8));
+            case 4:
+                return readArray(additionalInfo, depth);
+            case 5:
+                return readMap(additionalInfo, depth);
+            case 6:
+                readArgument(additionalInfo);
+                return readItem(depth + 1);
+            default:
+                return readSimpleValue(additionalInfo);
+        }
+    }
+
+    private JsonArray readArray(int additionalInfo, int depth) {
+        JsonArray result = new JsonArray();
+        if (additionalInfo == 31) {
+            while (!consumeBreak()) {
+                result.add(readItem(depth + 1));
+            }
+        } else {
+            long size = readLength(additionalInfo);
+            for (long i = 0; i < size; i++) {
+                result.add(readItem(depth + 1));
+            }
+        }
+        return result;
+    }
+
+    private JsonObject readMap(int additionalInfo, int depth) {
+        JsonObject result = new JsonObject();
+        if (additionalInfo == 31) {
+            while (!consumeBreak()) {
+                readEntry(result, depth);
+            }
+        } else {
+            long size = readLength(additionalInfo);
+            for (long i = 0; i < size; i++) {
+                readEntry(result, depth);
+            }
+        }
+        return result;
+    }
+
+    private void readEntry(JsonObject target, int depth) {
+        JsonElement key = readItem(depth + 1);
+        if (!key.isJsonPrimitive()) {
+            throw new JsonSyntaxException("CBOR map keys must be strings or numbers");
+        }
+        target.add(key.getAsString(), readItem(depth + 1));
+    }
+
+    private JsonElement readSimpleValue(int additionalInfo) {
+        switch (additionalInfo) {
+            case 20:
+                return new JsonPrimitive(false);
+            case 21:
+                return new JsonPrimitive(true);
+            case 22:
+            case 23:
+                return JsonNull.INSTANCE;
+            case 25:
+                return new JsonPrimitive(halfToDouble((int) readBigEndian(2)));
+            case 26:
+                return new JsonPrimitive(Float.intBitsToFloat((int) readBigEndian(4)));
+            case 27:
+                return new JsonPrimitive(Double.longBitsToDouble(readBigEndian(8)));
+            default:
+                throw new JsonSyntaxException("Unsupported CBOR simple value " + additionalInfo);
+        }
+    }
+
+    private byte[] readBytes(int additionalInfo, int majorType) {
+        if (additionalInfo != 31) {
+            int length = (int) readLength(additionalInfo);
+            byte[] result = new byte[length];
+            System.arraycopy(input, position, result, 0, length);
+            position += length;
+            return result;
+        }
+        // indefinite length string: a sequence of definite length chunks of the same major type
+        ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+        while (!consumeBreak()) {
+            int chunkHeader = readByte();
+            if (chunkHeader >>> 5 != majorType || (chunkHeader & 0x1f) == 31) {
+                throw new JsonSyntaxException("Invalid chunk in an indefinite length CBOR string");
+            }
+            int length = (int) readLength(chunkHeader & 0x1f);
+            chunks.write(input, position, length);
+            position += length;
+        }
+        return chunks.toByteArray();
+    }
+
+    private long readLength(int additionalInfo) {
+        long length = readUnsignedArgument(additionalInfo);
+        if (length > end - position) {
+            // every element takes at least a byte, so this is also an upper bound for array and map sizes
+            throw new JsonSyntaxException("CBOR length exceeds the available data");
+        }
+        return length;
+    }
+
+    private long readUnsignedArgument(int additionalInfo) {
+        long value = readArgument(additionalInfo);
+        if (value < 0) {
+            throw new JsonSyntaxException("CBOR integer out of the supported range");
+        }
+        return value;
+    }
+
+    private long readArgument(int additionalInfo) {
+        if (additionalInfo < 24) {
+            return additionalInfo;
+        }
+        switch (additionalInfo) {
+            case 24:
+                return readBigEndian(1);
+            case 25:
+                return readBigEndian(2);
+            case 26:
+                return readBigEndian(4);
+            case 27:
+                return readBigEndian(8);
+            default:
+                throw new JsonSyntaxException("Invalid CBOR additional information " + additionalInfo);
+        }
+    }
+
+    private boolean consumeBreak() {
+        if (position >= end) {
+            throw new JsonSyntaxException("Unterminated CBOR indefinite length item");
+        }
+        if ((input[position] & 0xff) == BREAK) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private int readByte() {
+        if (position >= end) {
+            throw new JsonSyntaxException("Unexpected end of CBOR data");
+        }
+        return input[position++] & 0xff;
+    }
+
+    private long readBigEndian(int bytes) {
+        if (end - position < bytes) {
+            throw new JsonSyntaxException("Unexpected end of CBOR data");
+        }
+        long result = 0;
+        for (int i = 0; i < bytes; i++) {
+            result = (result << 8) | (input[position++] & 0xff);
+        }
+        return result;
+    }
+
+    private static double halfToDouble(int half) {
+        int exponent = (half >>> 10) & 0x1f;
+        int mantissa = half & 0x3ff;
+        double value;
+        if (exponent == 0) {
+            value = mantissa * Math.pow(2, -24);
+        } else if (exponent == 31) {
+            value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else {
+            value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+        }
+        return (half & 0x8000) != 0 ? -value : value;
+    }
+}
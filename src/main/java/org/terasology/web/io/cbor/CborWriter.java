@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.cbor;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import org.terasology.web.io.JsonStringEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link JsonWriter} which produces <a href="https://tools.ietf.org/html/rfc7049">CBOR</a> instead of JSON text,
+ * so that the same Gson type adapters and streaming encoders can produce either format.
+ * Arrays and objects are written with indefinite length, and byte arrays can be written as native byte strings
+ * with {@link #byteStringValue(byte[])} instead of being encoded as Base64 strings.
+ */
+public class CborWriter extends JsonWriter {
+
+    private static final int MAJOR_UNSIGNED_INTEGER = 0;
+    private static final int MAJOR_NEGATIVE_INTEGER = 1;
+    private static final int MAJOR_BYTE_STRING = 2;
+    private static final int MAJOR_TEXT_STRING = 3;
+    private static final int INDEFINITE_ARRAY = 0x9f;
+    private static final int INDEFINITE_MAP = 0xbf;
+    private static final int BREAK = 0xff;
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int DOUBLE = 0xfb;
+    // all the output goes to the byte stream; the character writer required by the superclass is never used
+    private static final Writer UNUSED_WRITER = new Writer() {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private final ByteArrayOutputStream out;
+    // like in JsonWriter, the name is written only when the value is, so that it can be omitted with null values
+    private String deferredName;
+
+    public CborWriter(ByteArrayOutputStream out) {
+        super(UNUSED_WRITER);
+        this.out = out;
+        setLenient(true);
+        setSerializeNulls(false);
+    }
+
+    /**
+     * Encodes a document to a CBOR byte array, like {@link JsonStringEncoder#encode(JsonStringEncoder.Content)} does with JSON.
+     */
+    public static byte[] encode(JsonStringEncoder.Content content) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(256);
+        try {
+            content.writeTo(new CborWriter(result));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return result.toByteArray();
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        writeDeferredName();
+        out.write(INDEFINITE_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        out.write(BREAK);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        writeDeferredName();
+        out.write(INDEFINITE_MAP);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        out.write(BREAK);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        if (deferredName != null) {
+            throw new IllegalStateException("A value is expected after the name " + deferredName);
+        }
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        writeText(value);
+        return this;
+    }
+
+    /**
+     * Writes the specified JSON document, converted to CBOR.
+     */
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        JsonStringEncoder.writeElement(this, new JsonParser().parse(value));
+        return this;
+    }
+
+    /**
+     * Writes a value which has already been encoded to CBOR, e.g. because it's cached.
+     */
+    public JsonWriter encodedValue(byte[] cbor) throws IOException {
+        writeDeferredName();
+        out.write(cbor);
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (deferredName != null && !getSerializeNulls()) {
+            // the whole name/value pair is omitted
+            deferredName = null;
+            return this;
+        }
+        writeDeferredName();
+        out.write(NULL);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        writeDeferredName();
+        out.write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        writeDeferredName();
+        out.write(DOUBLE);
+        writeBigEndian(Double.doubleToLongBits(value), 8);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        writeDeferredName();
+        if (value >= 0) {
+            writeHeader(MAJOR_UNSIGNED_INTEGER, value);
+        } else {
+            writeHeader(MAJOR_NEGATIVE_INTEGER, -1 - value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+            return value(value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return value(value.doubleValue());
+        }
+        // other numbers, e.g. those parsed from JSON text, are kept as integers if they have an integral representation
+        try {
+            return value(Long.parseLong(value.toString()));
+        } catch (NumberFormatException ex) {
+            return value(value.doubleValue());
+        }
+    }
+
+    public JsonWriter byteStringValue(byte[] value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        writeHeader(MAJOR_BYTE_STRING, value.length);
+        out.write(value);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void writeDeferredName() {
+        if (deferredName != null) {
+            writeText(deferredName);
+            deferredName = null;
+        }
+    }
+
+    private void writeText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeHeader(MAJOR_TEXT_STRING, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private void writeHeader(int majorType, long argument) {
+        int initialByte = majorType << 5;
+        if (argument < 24) {
+            out.write(initialByte | (int) argument);
+        } else if (argument <= 0xffL) {
+            out.write(initialByte | 24);
+            writeBigEndian(argument, 1);
+        } else if (argument <= 0xffffL) {
+            out.write(initialByte | 25);
+            writeBigEndian(argument, 2);
+        } else if (argument <= 0xffffffffL) {
+            out.write(initialByte | 26);
+            writeBigEndian(argument, 4);
+        } else {
+            out.write(initialByte | 27);
+            writeBigEndian(argument, 8);
+        }
+    }
+
+    private void writeBigEndian(long value, int bytes) {
+        for (int i = bytes - 1; i >= 0; i--) {
+            out.write((int) (value >>> (i * 8)));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.gsonUtils;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.terasology.web.io.cbor.CborDecoder;
+import org.terasology.web.io.cbor.CborWriter;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Serializes byte arrays as Base64 strings in JSON, but as native byte strings when the output is a {@link CborWriter}. When reading, the byte strings of the trees
+ * decoded by {@link CborDecoder} are converted back without Base64.
+ */
+public class ByteArrayTypeAdapter extends TypeAdapter<byte[]> {
+
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+    private static final ByteArrayTypeAdapter INSTANCE = new ByteArrayTypeAdapter();
+
+    public static ByteArrayTypeAdapter getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void write(JsonWriter out, byte[] value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (out instanceof CborWriter) {
+            ((CborWriter) out).byteStringValue(value);
+        } else {
+            out.value(ENCODER.encodeToString(value));
+        }
+    }
+
+    @Override
+    public byte[] read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String value = in.nextString();
+        if (CborDecoder.isByteString(value)) {
+            return CborDecoder.getByteStringBytes(value);
+        }
+        return DECODER.decode(value);
+    }
+}
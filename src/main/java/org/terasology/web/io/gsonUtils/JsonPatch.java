@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.gsonUtils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+
+/**
+ * Computes <a href="https://tools.ietf.org/html/rfc6902">RFC 6902</a> JSON Patch documents which transform a JSON value into another.
+ * Arrays are compared after skipping their common prefix and suffix, so adding or removing a few items
+ * (e.g. the online players) results in a patch with as many operations, regardless of the array length.
+ */
+public final class JsonPatch {
+
+    private JsonPatch() {
+    }
+
+    /**
+     * @return an array of patch operations which, applied in order to the source value, produce the target value;
+     * empty if the values are equal.
+     */
+    public static JsonArray diff(JsonElement source, JsonElement target) {
+        JsonArray operations = new JsonArray();
+        diff(source, target, "", operations);
+        return operations;
+    }
+
+    private static void diff(JsonElement source, JsonElement target, String pointer, JsonArray operations) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isJsonObject() && target.isJsonObject()) {
+            diffObjects(source.getAsJsonObject(), target.getAsJsonObject(), pointer, operations);
+        } else if (source.isJsonArray() && target.isJsonArray()) {
+            diffArrays(source.getAsJsonArray(), target.getAsJsonArray(), pointer, operations);
+        } else {
+            operations.add(operation("replace", pointer, target));
+        }
+    }
+
+    private static void diffObjects(JsonObject source, JsonObject target, String pointer, JsonArray operations) {
+        for (Map.Entry<String, JsonElement> sourceEntry: source.entrySet()) {
+            if (!target.has(sourceEntry.getKey())) {
+                operations.add(operation("remove", childPointer(pointer, sourceEntry.getKey()), null));
+            }
+        }
+        for (Map.Entry<String, JsonElement> targetEntry: target.entrySet()) {
+            String childPointer = childPointer(pointer, targetEntry.getKey());
+            JsonElement sourceValue = source.get(targetEntry.getKey());
+            if (sourceValue == null) {
+                operations.add(operation("add", childPointer, targetEntry.getValue()));
+            } else {
+                diff(sourceValue, targetEntry.getValue(), childPointer, operations);
+            }
+        }
+    }
+
+    private static void diffArrays(JsonArray source, JsonArray target, String pointer, JsonArray operations) {
+        int prefix = 0;
+        while (prefix < source.size() && prefix < target.size() && source.get(prefix).equals(target.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < source.size() - prefix && suffix < target.size() - prefix
+                && source.get(source.size() - 1 - suffix).equals(target.get(target.size() - 1 - suffix))) {
+            suffix++;
+        }
+        int sourceEnd = source.size() - suffix;
+        int targetEnd = target.size() - suffix;
+        // the items which are in the same position in both arrays are patched, the others are removed or added
+        int common = Math.min(sourceEnd, targetEnd);
+        for (int i = prefix; i < common; i++) {
+            diff(source.get(i), target.get(i), childPointer(pointer, Integer.toString(i)), operations);
+        }
+        // removing from the end keeps the indexes of the items still to be removed valid
+        for (int i = sourceEnd - 1; i >= common; i--) {
+            operations.add(operation("remove", childPointer(pointer, Integer.toString(i)), null));
+        }
+        for (int i = common; i < targetEnd; i++) {
+            operations.add(operation("add", childPointer(pointer, Integer.toString(i)), target.get(i)));
+        }
+    }
+
+    private static JsonObject operation(String op, String path, JsonElement value) {
+        JsonObject result = new JsonObject();
+        result.addProperty("op", op);
+        result.addProperty("path", path);
+        if (value != null) {
+            result.add("value", value);
+        }
+        return result;
+    }
+
+    private static String childPointer(String pointer, String key) {
+        // escaping defined by RFC 6901
+        return pointer + "/" + key.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collects the counters exposed by the various server components, which are read on demand through the metrics resource.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, Supplier<? extends Number>> metrics = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Map<String, ? extends Number>>> metricGroups = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers a metric, replacing any previously registered one with the same name.
+     * @param name the name of the metric, in the form "component.metricName".
+     * @param valueSupplier a function which returns the current value of the metric; it may be called from any thread.
+     */
+    public void register(String name, Supplier<? extends Number> valueSupplier) {
+        metrics.put(name, valueSupplier);
+    }
+
+    /**
+     * Registers a group of metrics whose names are only known when they are read, e.g. one for each connection.
+     * @param prefix the prefix of the names of the metrics in the group, in the form "component.groupName".
+     * @param valuesSupplier a function which returns the current metrics of the group, mapped by their names relative to the prefix;
+     *                       it may be called from any thread.
+     */
+    public void registerGroup(String prefix, Supplier<? extends Map<String, ? extends Number>> valuesSupplier) {
+        metricGroups.put(prefix, valuesSupplier);
+    }
+
+    public SortedMap<String, Number> getSnapshot() {
+        SortedMap<String, Number> result = new TreeMap<>();
+        metrics.forEach((name, valueSupplier) -> result.put(name, valueSupplier.get()));
+        metricGroups.forEach((prefix, valuesSupplier) ->
+                valuesSupplier.get().forEach((name, value) -> result.put(prefix + "." + name, value)));
+        return result;
+    }
+}
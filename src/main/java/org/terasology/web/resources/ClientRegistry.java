@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.web.client.HeadlessClient;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the clients which receive resource updates and events.
+ * Clients can be added and removed from any thread, also while the registrations are being iterated to broadcast an update;
+ * the maps are {@link ConcurrentHashMap}s, so concurrent modifications only contend on the affected bins and not on a global lock.
+ */
+final class ClientRegistry {
+
+    private final ConcurrentMap<HeadlessClient, Registration> registrations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<EntityRef, Registration> entityIndex = new ConcurrentHashMap<>();
+
+    void add(HeadlessClient client, Consumer<ResourceUpdate> updateSubscriber, BiConsumer<ResourcePath, Object> eventListener) {
+        Registration registration = new Registration(client, updateSubscriber, eventListener);
+        Registration previous = registrations.put(client, registration);
+        if (previous != null) {
+            entityIndex.remove(previous.entity, previous);
+        }
+        entityIndex.put(registration.entity, registration);
+    }
+
+    void remove(HeadlessClient client) {
+        Registration registration = registrations.remove(client);
+        if (registration != null) {
+            // only remove the index entry if it still refers to this registration
+            entityIndex.remove(registration.entity, registration);
+        }
+    }
+
+    /**
+     * @return the registration of the client with the specified entity, or null if no such client is registered.
+     */
+    Registration getByEntity(EntityRef entity) {
+        return entityIndex.get(entity);
+    }
+
+    /**
+     * @return a weakly consistent view of the current registrations, which can be safely iterated while clients are added or removed.
+     */
+    Collection<Registration> getAll() {
+        return Collections.unmodifiableCollection(registrations.values());
+    }
+
+    int size() {
+        return registrations.size();
+    }
+
+    static final class Registration {
+        private final HeadlessClient client;
+        private final EntityRef entity;
+        private final Consumer<ResourceUpdate> updateSubscriber;
+        private final BiConsumer<ResourcePath, Object> eventListener;
+
+        private Registration(HeadlessClient client, Consumer<ResourceUpdate> updateSubscriber, BiConsumer<ResourcePath, Object> eventListener) {
+            this.client = client;
+            this.entity = client.getEntity();
+            this.updateSubscriber = updateSubscriber;
+            this.eventListener = eventListener;
+        }
+
+        HeadlessClient getClient() {
+            return client;
+        }
+
+        void sendUpdate(ResourceUpdate update) {
+            updateSubscriber.accept(update);
+        }
+
+        void sendEvent(ResourcePath senderPath, Object eventData) {
+            eventListener.accept(senderPath, eventData);
+        }
+    }
+}
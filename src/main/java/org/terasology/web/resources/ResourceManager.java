@@ -24,8 +24,10 @@ import org.terasology.engine.modes.GameState;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.systems.ComponentSystem;
 import org.terasology.registry.InjectionHelper;
+import org.terasology.web.ThrowingRunnable;
 import org.terasology.web.client.HeadlessClient;
 import org.terasology.web.io.ActionResult;
+import org.terasology.web.metrics.MetricsRegistry;
 import org.terasology.web.resources.base.InputParser;
 import org.terasology.web.resources.base.Resource;
 import org.terasology.web.resources.base.ResourceAccessException;
@@ -33,12 +35,14 @@ import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourceMethodName;
 import org.terasology.web.resources.base.ResourceObserver;
 import org.terasology.web.resources.base.ResourcePath;
+import org.terasology.web.resources.base.RouteTable;
 import org.terasology.web.resources.base.RouterResource;
 import org.terasology.web.resources.config.ServerMotdResource;
 import org.terasology.web.resources.config.ServerPortResource;
 import org.terasology.web.resources.console.ConsoleResource;
 import org.terasology.web.resources.engineState.EngineStateResource;
 import org.terasology.web.resources.games.GamesResource;
+import org.terasology.web.resources.metrics.MetricsResource;
 import org.terasology.web.resources.modules.AvailableModulesResource;
 import org.terasology.web.resources.modules.ModuleInstallerResource;
 import org.terasology.web.resources.onlinePlayers.OnlinePlayersResource;
@@ -51,6 +55,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -58,14 +63,29 @@ public final class ResourceManager implements ResourceObserver {
 
     private static final Logger logger = LoggerFactory.getLogger(ResourceManager.class);
     private static final ResourceManager INSTANCE = new ResourceManager();
+    private static final long DEFAULT_UPDATE_INTERVAL_MILLIS = 100;
+    // the cached paths come from the clients, but only the successfully read ones are stored
+    private static final int MAX_CACHED_STATES = 1024;
 
-    private RouterResource rootResource;
-    private Map<ResourcePath, Set<ResourcePath>> additionalResourcesToUpdate;
-    private Map<EntityRef, BiConsumer<ResourcePath, Object>> eventListeners = new HashMap<>();
-    private Map<EntityRef, BiConsumer<ResourcePath, Object>> updateSubscribers = new HashMap<>();
-    private Map<EntityRef, HeadlessClient> clientLookup = new HashMap<>();
+    // replaced as a whole on engine state changes, while other threads may be routing requests
+    private volatile RouteTable routeTable;
+    private volatile Map<ResourcePath, Set<ResourcePath>> additionalResourcesToUpdate = Collections.emptyMap();
+    private volatile Set<ResourcePath> uncachedResources = Collections.emptySet();
+    private final ResourceStateCache stateCache = new ResourceStateCache(MAX_CACHED_STATES);
+    private final ClientRegistry clients = new ClientRegistry();
+    private final ResourceMethodDispatcher dispatcher = ResourceMethodDispatcher.createDefault();
+    private final ResourceUpdateCoalescer updateCoalescer =
+            ResourceUpdateCoalescer.createWithDaemonScheduler(DEFAULT_UPDATE_INTERVAL_MILLIS, this::sendUpdateToAllClients);
 
     private ResourceManager() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.register("resourceUpdates.notifications", updateCoalescer::getReceivedNotifications);
+        metrics.register("resourceUpdates.merged", updateCoalescer::getMergedNotifications);
+        metrics.register("resourceUpdates.sent", updateCoalescer::getSentUpdates);
+        metrics.register("clients.registered", clients::size);
+        metrics.register("resourceCache.hits", stateCache::getHits);
+        metrics.register("resourceCache.misses", stateCache::getMisses);
+        metrics.register("resourceCache.entries", stateCache::size);
     }
 
     public static ResourceManager getInstance() {
@@ -77,7 +97,7 @@ public final class ResourceManager implements ResourceObserver {
         Context context = gameState.getContext();
 
         Consumer<Resource> resourceInitializer = (resource) -> initializeResource(context, resource);
-        rootResource = new RouterResource.Builder(resourceInitializer)
+        RouterResource newRootResource = new RouterResource.Builder(resourceInitializer)
                 .addSubResource("onlinePlayers", new OnlinePlayersResource())
                 .addSubResource("console", new ConsoleResource())
                 .addSubResource("games", new GamesResource())
@@ -92,14 +112,44 @@ public final class ResourceManager implements ResourceObserver {
                         .addSubResource("MOTD", new ServerMotdResource())
                         .build())
                 .addSubResource("serverAdmins", new ServerAdminsResource())
+                .addSubResource("metrics", new MetricsResource())
                 .build();
-        rootResource.setObserver(this);
-        additionalResourcesToUpdate = new HashMap<>();
+        Map<ResourcePath, Set<ResourcePath>> newAdditionalResourcesToUpdate = new HashMap<>();
         // when /modules/installer changes, also update /modules/available and /worldGenerators
-        additionalResourcesToUpdate.put(new ResourcePath("modules", "installer"), new HashSet<>(Arrays.asList(
+        newAdditionalResourcesToUpdate.put(new ResourcePath("modules", "installer"), new HashSet<>(Arrays.asList(
                 new ResourcePath("modules", "available"),
                 new ResourcePath("worldGenerators"))));
-        rootResource.notifyChangedForAllClients();
+        // the saved games also change on disk without notifications (e.g. when the running game is saved),
+        // and the metrics change continuously, so they are not cached
+        Set<ResourcePath> newUncachedResources = new HashSet<>(Arrays.asList(
+                new ResourcePath("games"),
+                new ResourcePath("metrics")));
+        setResources(newRootResource, newAdditionalResourcesToUpdate, newUncachedResources);
+    }
+
+    /**
+     * Replaces the resource tree; used by {@link #initialize(TerasologyEngine)} and by the benchmarks, which use synthetic resources.
+     * @param newAdditionalResourcesToUpdate for each resource path, the other resources which must be updated when it changes.
+     * @param newUncachedResources the paths of the resources (and of the resources below them) whose state must not be cached by
+     * {@link #getResourceState(ResourcePath, Object, InputParser, HeadlessClient)}, because they don't notify all their changes.
+     */
+    void setResources(RouterResource newRootResource, Map<ResourcePath, Set<ResourcePath>> newAdditionalResourcesToUpdate,
+                      Set<ResourcePath> newUncachedResources) {
+        newRootResource.setObserver(this);
+        additionalResourcesToUpdate = newAdditionalResourcesToUpdate;
+        uncachedResources = newUncachedResources;
+        routeTable = RouteTable.compile(newRootResource);
+        stateCache.clear();
+        newRootResource.notifyChangedForAllClients();
+    }
+
+    /**
+     * Sets the minimum time between two updates of the same resource sent to all the clients;
+     * the change notifications received in the meantime are merged, and only the latest state is sent.
+     * @param intervalMillis the interval in milliseconds, or 0 to send an update for every notification.
+     */
+    public void setUpdateInterval(long intervalMillis) {
+        updateCoalescer.setIntervalMillis(intervalMillis);
     }
 
     private void initializeResource(Context context, Resource resource) {
@@ -113,62 +163,131 @@ public final class ResourceManager implements ResourceObserver {
         }
     }
 
-    private ResourceMethod getResourceMethod(Resource resource, ResourcePath path, ResourceMethodName methodName, HeadlessClient client) throws ResourceAccessException {
-        ResourceMethod method = resource.getMethod(methodName, path);
+    private void checkClientIsAllowed(ResourceMethod method, HeadlessClient client) throws ResourceAccessException {
         if (!method.clientIsAllowed(client.getSecurityInfo())) {
             // TODO: possibly provide a way to explain a reason for denied access (unauthenticated or not admin)
             throw new ResourceAccessException(new ActionResult(ActionResult.Status.FORBIDDEN, "You are not allowed to access this resource."));
         }
-        return method;
     }
 
     private ResourceMethod getResourceMethod(ResourcePath path, ResourceMethodName methodName, HeadlessClient client) throws ResourceAccessException {
-        return getResourceMethod(rootResource, path, methodName, client);
+        ResourceMethod method = routeTable.getMethod(methodName, path);
+        checkClientIsAllowed(method, client);
+        return method;
     }
 
-    private ResourceMethod getResourceMethod(Resource resource, ResourceMethodName methodName, HeadlessClient client) throws ResourceAccessException {
-        return getResourceMethod(resource, ResourcePath.createEmpty(), methodName, client);
+    /**
+     * Performs a method and waits for its result; see {@link #performActionAsync(ResourcePath, ResourceMethodName, Object, InputParser, HeadlessClient)}.
+     */
+    public <T> Object performAction(ResourcePath path, ResourceMethodName methodName, T inputData, InputParser<T> inputParser, HeadlessClient client)
+            throws ResourceAccessException {
+        return ResourceMethodDispatcher.await(performActionAsync(path, methodName, inputData, inputParser, client));
     }
 
-    public <T> Object performAction(ResourcePath path, ResourceMethodName methodName, T inputData, InputParser<T> inputParser, HeadlessClient client)
+    /**
+     * Performs the specified method of the resource at the specified path on the thread it requires: the permissions are checked
+     * and the input is parsed on the calling thread, while the method may be performed later, e.g. on the next engine tick.
+     * @return a future completed with the output of the method, or exceptionally with a {@link ResourceAccessException}.
+     */
+    public <T> CompletableFuture<Object> performActionAsync(ResourcePath path, ResourceMethodName methodName, T inputData,
+                                                            InputParser<T> inputParser, HeadlessClient client) {
+        try {
+            ResourceMethod method = getResourceMethod(path, methodName, client);
+            Object input = inputParser.parse(inputData, method.getInType());
+            return dispatcher.dispatch(method.getExecutionThread(), () -> method.perform(input, client));
+        } catch (ResourceAccessException ex) {
+            return ResourceMethodDispatcher.failed(ex);
+        }
+    }
+
+    /**
+     * Performs the GET method and waits for its result; see {@link #getResourceStateAsync(ResourcePath, Object, InputParser, HeadlessClient)}.
+     */
+    public <T> ResourceUpdate getResourceState(ResourcePath path, T inputData, InputParser<T> inputParser, HeadlessClient client)
             throws ResourceAccessException {
-        ResourceMethod method = getResourceMethod(path, methodName, client);
-        return method.perform(inputParser.parse(inputData, method.getInType()), client);
+        return ResourceMethodDispatcher.await(getResourceStateAsync(path, inputData, inputParser, client));
     }
 
-    public void addClient(HeadlessClient client, BiConsumer<ResourcePath, Object> updateSubscriber, BiConsumer<ResourcePath, Object> eventListener) {
-        eventListeners.put(client.getEntity(), eventListener);
-        updateSubscribers.put(client.getEntity(), updateSubscriber);
-        clientLookup.put(client.getEntity(), client);
+    /**
+     * Performs the GET method of the resource at the specified path. If its output doesn't depend on the client,
+     * the result is cached until the resource notifies a change, so the following requests are served without performing
+     * the method again; the encoded forms obtained from the returned object are cached as well.
+     * The client's permissions are checked on every request, even when the result is cached.
+     * @return a future completed with the state of the resource (immediately, if it's cached), or exceptionally with a
+     * {@link ResourceAccessException}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<ResourceUpdate> getResourceStateAsync(ResourcePath path, T inputData, InputParser<T> inputParser,
+                                                                       HeadlessClient client) {
+        // the version must be read before the method, which may belong to a resource tree replaced in the meantime
+        long cacheVersion = stateCache.getVersion();
+        try {
+            ResourceMethod method = getResourceMethod(path, ResourceMethodName.GET, client);
+            if (!isCacheable(path, method)) {
+                Object input = inputParser.parse(inputData, method.getInType());
+                return dispatcher.dispatch(method.getExecutionThread(), () -> new ResourceUpdate(path, method.perform(input, client)));
+            }
+            ResourceUpdate cachedState = stateCache.get(path);
+            if (cachedState != null) {
+                return CompletableFuture.completedFuture(cachedState);
+            }
+            return dispatcher.dispatch(method.getExecutionThread(), () -> {
+                ResourceUpdate result = new ResourceUpdate(path, method.perform(null, client));
+                stateCache.put(result, cacheVersion);
+                return result;
+            });
+        } catch (ResourceAccessException ex) {
+            return ResourceMethodDispatcher.failed(ex);
+        }
+    }
+
+    private boolean isCacheable(ResourcePath path, ResourceMethod method) {
+        if (!method.getInType().equals(Void.class) || method.hasClientSpecificOutput()) {
+            return false;
+        }
+        for (ResourcePath uncachedPath: uncachedResources) {
+            if (path.startsWith(uncachedPath)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registers a client to receive the updates and events of the resources it's allowed to access.
+     * Can be called from any thread; the client must be removed with {@link #removeClient(HeadlessClient)}
+     * before it's disconnected from the entity system.
+     */
+    public void addClient(HeadlessClient client, Consumer<ResourceUpdate> updateSubscriber, BiConsumer<ResourcePath, Object> eventListener) {
+        clients.add(client, updateSubscriber, eventListener);
     }
 
     public void removeClient(HeadlessClient client) {
-        eventListeners.remove(client.getEntity());
-        updateSubscribers.remove(client.getEntity());
-        clientLookup.remove(client.getEntity());
+        clients.remove(client);
     }
 
     @Override
     public void onEvent(ResourcePath senderPath, Object eventData, EntityRef targetClientEntity) {
-        eventListeners.get(targetClientEntity).accept(senderPath, eventData);
+        ClientRegistry.Registration registration = clients.getByEntity(targetClientEntity);
+        if (registration == null) {
+            logger.warn("Failed to send event to client with entity ID " + targetClientEntity.getId() + " (corresponding client not registered)");
+            return;
+        }
+        registration.sendEvent(senderPath, eventData);
     }
 
     @Override
     public void onChangedForClient(ResourcePath senderPath, Resource sender, EntityRef targetClientEntity) {
-        HeadlessClient client = clientLookup.get(targetClientEntity);
-        if (client == null) {
-            logger.warn("Failed to send update to client with entity ID" + targetClientEntity.getId() + " (corresponding client not registered)");
+        ClientRegistry.Registration registration = clients.getByEntity(targetClientEntity);
+        if (registration == null) {
+            logger.warn("Failed to send update to client with entity ID " + targetClientEntity.getId() + " (corresponding client not registered)");
+            return;
         }
-        Set<ResourcePath> updatesToSend = new HashSet<>();
-        updatesToSend.add(senderPath);
-        updatesToSend.addAll(additionalResourcesToUpdate.getOrDefault(senderPath, Collections.emptySet()));
-        for (ResourcePath path: updatesToSend) {
+        for (ResourcePath path: getPathsToUpdate(senderPath)) {
+            stateCache.invalidate(path);
             try {
-                ResourceMethod resourceGetMethod = getResourceMethod(path.clone(), ResourceMethodName.GET, client);
-                if (!resourceGetMethod.getInType().equals(Void.class)) {
-                    throw new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR, "This resource's GET method requires input data"));
-                }
-                updateSubscribers.get(targetClientEntity).accept(path, resourceGetMethod.perform(null, client));
+                ResourceMethod resourceGetMethod = getUpdateMethod(path);
+                dispatchUpdate(path, resourceGetMethod, () -> sendUpdateToClient(path, resourceGetMethod, registration));
             } catch (ResourceAccessException ex) {
                 logger.warn("Failed to send update for resource at path " + path.toString(), ex);
             }
@@ -177,6 +296,82 @@ public final class ResourceManager implements ResourceObserver {
 
     @Override
     public void onChangedForAllClients(ResourcePath senderPath, Resource sender) {
-        updateSubscribers.keySet().forEach((clientEntity) -> onChangedForClient(senderPath, sender, clientEntity));
+        for (ResourcePath path: getPathsToUpdate(senderPath)) {
+            stateCache.invalidate(path);
+            updateCoalescer.markDirty(path);
+        }
+    }
+
+    private void sendUpdateToAllClients(ResourcePath path) {
+        try {
+            ResourceMethod resourceGetMethod = getUpdateMethod(path);
+            dispatchUpdate(path, resourceGetMethod, () -> {
+                if (resourceGetMethod.hasClientSpecificOutput()) {
+                    for (ClientRegistry.Registration registration: clients.getAll()) {
+                        sendUpdateToClient(path, resourceGetMethod, registration);
+                    }
+                } else {
+                    broadcastUpdate(path, resourceGetMethod);
+                }
+            });
+        } catch (ResourceAccessException ex) {
+            logger.warn("Failed to send update for resource at path " + path.toString(), ex);
+        }
+    }
+
+    /**
+     * Computes and sends an update on the thread required by the GET method of the resource, without waiting for it.
+     */
+    private void dispatchUpdate(ResourcePath path, ResourceMethod resourceGetMethod, ThrowingRunnable<ResourceAccessException> sender) {
+        dispatcher.dispatch(resourceGetMethod.getExecutionThread(), () -> {
+            sender.run();
+            return null;
+        }).whenComplete((result, ex) -> {
+            if (ex != null) {
+                logger.warn("Failed to send update for resource at path " + path.toString(), ex);
+            }
+        });
+    }
+
+    private Set<ResourcePath> getPathsToUpdate(ResourcePath senderPath) {
+        Set<ResourcePath> result = new HashSet<>();
+        result.add(senderPath);
+        result.addAll(additionalResourcesToUpdate.getOrDefault(senderPath, Collections.emptySet()));
+        return result;
+    }
+
+    private ResourceMethod getUpdateMethod(ResourcePath path) throws ResourceAccessException {
+        ResourceMethod resourceGetMethod = routeTable.getMethod(ResourceMethodName.GET, path);
+        if (!resourceGetMethod.getInType().equals(Void.class)) {
+            throw new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR, "This resource's GET method requires input data"));
+        }
+        return resourceGetMethod;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sendUpdateToClient(ResourcePath path, ResourceMethod resourceGetMethod, ClientRegistry.Registration registration)
+            throws ResourceAccessException {
+        HeadlessClient client = registration.getClient();
+        if (resourceGetMethod.clientIsAllowed(client.getSecurityInfo())) {
+            registration.sendUpdate(new ResourceUpdate(path, resourceGetMethod.perform(null, client)));
+        }
+    }
+
+    /**
+     * Evaluates the resource only once and delivers the same {@link ResourceUpdate} to all the subscribed clients
+     * which are allowed to read it, so that it's also serialized only once.
+     */
+    @SuppressWarnings("unchecked")
+    private void broadcastUpdate(ResourcePath path, ResourceMethod resourceGetMethod) throws ResourceAccessException {
+        ResourceUpdate update = null;
+        for (ClientRegistry.Registration registration: clients.getAll()) {
+            HeadlessClient client = registration.getClient();
+            if (resourceGetMethod.clientIsAllowed(client.getSecurityInfo())) {
+                if (update == null) {
+                    update = new ResourceUpdate(path, resourceGetMethod.perform(null, client));
+                }
+                registration.sendUpdate(update);
+            }
+        }
     }
 }
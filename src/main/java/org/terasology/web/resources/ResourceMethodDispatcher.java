@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.terasology.web.EngineThreadExecutor;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.base.ExecutionThread;
+import org.terasology.web.resources.base.ResourceAccessException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Performs the resource methods on the thread they require (see {@link ExecutionThread}), completing the returned futures
+ * when they're done, so that the threads which receive the requests don't wait for the engine or for slow methods.
+ */
+final class ResourceMethodDispatcher {
+
+    private static final int BACKGROUND_THREADS = 4;
+    private static final int MAX_QUEUED_BACKGROUND_METHODS = 256;
+    private static final ResourceAccessException BUSY = new ResourceAccessException(
+            new ActionResult(ActionResult.Status.GENERIC_ERROR, "The server is too busy to perform this action, please retry later"));
+
+    @FunctionalInterface
+    interface MethodCall<T> {
+        T perform() throws ResourceAccessException;
+    }
+
+    private final Executor engineExecutor;
+    private final Executor backgroundExecutor;
+
+    ResourceMethodDispatcher(Executor engineExecutor, Executor backgroundExecutor) {
+        this.engineExecutor = engineExecutor;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    static ResourceMethodDispatcher createDefault() {
+        ThreadPoolExecutor backgroundPool = new ThreadPoolExecutor(BACKGROUND_THREADS, BACKGROUND_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_BACKGROUND_METHODS),
+                new ThreadFactoryBuilder().setNameFormat("resource-methods-%d").setDaemon(true).build());
+        backgroundPool.allowCoreThreadTimeOut(true);
+        return new ResourceMethodDispatcher(EngineThreadExecutor.getInstance(), backgroundPool);
+    }
+
+    /**
+     * @return a future completed with the result of the call, or exceptionally with the exception it has thrown.
+     */
+    <T> CompletableFuture<T> dispatch(ExecutionThread thread, MethodCall<T> call) {
+        switch (thread) {
+            case ENGINE:
+                return performOn(engineExecutor, call);
+            case BACKGROUND:
+                return performOn(backgroundExecutor, call);
+            default:
+                CompletableFuture<T> result = new CompletableFuture<>();
+                perform(call, result);
+                return result;
+        }
+    }
+
+    private <T> CompletableFuture<T> performOn(Executor executor, MethodCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> perform(call, result));
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(BUSY);
+        }
+        return result;
+    }
+
+    private static <T> void perform(MethodCall<T> call, CompletableFuture<T> result) {
+        try {
+            result.complete(call.perform());
+        } catch (ResourceAccessException | RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    static <T> CompletableFuture<T> failed(ResourceAccessException ex) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(ex);
+        return result;
+    }
+
+    /**
+     * Waits for a future returned by {@link #dispatch(ExecutionThread, MethodCall)}, rethrowing the exception thrown by the method.
+     */
+    static <T> T await(CompletableFuture<T> future) throws ResourceAccessException {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof ResourceAccessException) {
+                throw (ResourceAccessException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the latest known state of the resources whose output doesn't depend on the client, together with
+ * its encoded forms (see {@link ResourceUpdate#getEncoded(java.util.function.Function)}), until the resource notifies a change.
+ * When the cache is full, the least recently used states are evicted, so that the item paths requested by the clients
+ * can't take the place of the frequently used resources.
+ * Each invalidation is stamped with a version and recorded for the top level resource it belongs to;
+ * a state computed before an invalidation of its top level resource is never returned after it.
+ */
+final class ResourceStateCache {
+
+    // the key of the invalidations which affect all the resources
+    private static final String ALL_RESOURCES = "";
+
+    private final Cache<ResourcePath, ResourceUpdate> entries;
+    private final AtomicLong version = new AtomicLong();
+    // the version of the latest invalidation of each top level resource
+    private final Map<String, Long> invalidationVersions = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    ResourceStateCache(int maxEntries) {
+        entries = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    /**
+     * @return the cached state of the resource at the specified path, or null if it must be computed;
+     * in this case, it should be stored with {@link #put(ResourceUpdate, long)} passing the version read before computing it.
+     */
+    ResourceUpdate get(ResourcePath path) {
+        ResourceUpdate result = entries.getIfPresent(path);
+        if (result != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Stores the state of a resource, unless its top level resource has been invalidated since the specified version was read.
+     */
+    void put(ResourceUpdate state, long stateVersion) {
+        ResourcePath path = state.getPath();
+        if (isInvalidatedAfter(path, stateVersion)) {
+            return;
+        }
+        entries.put(path, state);
+        // an invalidation may have happened between the check above and the insertion, without removing the new entry
+        if (isInvalidatedAfter(path, stateVersion)) {
+            entries.asMap().remove(path, state);
+        }
+    }
+
+    /**
+     * Discards the cached state of the resource at the specified path and of the resources below it (e.g. the items of a collection).
+     */
+    void invalidate(ResourcePath path) {
+        recordInvalidation(getTopLevelResource(path));
+        entries.asMap().keySet().removeIf((cachedPath) -> cachedPath.startsWith(path));
+    }
+
+    void clear() {
+        recordInvalidation(ALL_RESOURCES);
+        entries.invalidateAll();
+    }
+
+    private void recordInvalidation(String topLevelResource) {
+        long invalidationVersion = version.incrementAndGet();
+        invalidationVersions.merge(topLevelResource, invalidationVersion, Math::max);
+    }
+
+    private boolean isInvalidatedAfter(ResourcePath path, long stateVersion) {
+        return invalidationVersions.getOrDefault(ALL_RESOURCES, 0L) > stateVersion
+                || invalidationVersions.getOrDefault(getTopLevelResource(path), 0L) > stateVersion;
+    }
+
+    private static String getTopLevelResource(ResourcePath path) {
+        return path.isEmpty() ? ALL_RESOURCES : path.getItemList().get(0);
+    }
+
+    int size() {
+        return (int) entries.size();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Carries the new state of a resource to the clients subscribed to its changes.
+ * When the state doesn't depend on the receiving client, the same instance is delivered to all of them,
+ * so that the encoded forms obtained via {@link #getEncoded(Function)} are computed only once per change.
+ * It's also used for the state returned to the GET requests, which may be cached until the next change.
+ */
+public final class ResourceUpdate {
+
+    private final ResourcePath path;
+    private final Object data;
+    private final Map<Function<ResourceUpdate, ?>, Object> encodedForms = new ConcurrentHashMap<>(4);
+
+    public ResourceUpdate(ResourcePath path, Object data) {
+        this.path = path;
+        this.data = data;
+    }
+
+    public ResourcePath getPath() {
+        return path;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * @param encoder the function used to encode this update; it's also the cache key, so it should be a shared constant.
+     * @return the result of applying the encoder to this update, computed on the first call and then reused.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getEncoded(Function<ResourceUpdate, T> encoder) {
+        // computeIfAbsent is not used because an encoder may in turn request another encoded form of this update
+        Object result = encodedForms.get(encoder);
+        if (result == null) {
+            result = encoder.apply(this);
+            Object previous = encodedForms.putIfAbsent(encoder, result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+        return (T) result;
+    }
+}
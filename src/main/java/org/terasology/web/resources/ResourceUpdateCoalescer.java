@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Merges the change notifications received for the same resource path within a configurable interval,
+ * so that only the latest state of that resource is sent to the clients when the interval elapses.
+ * With an interval of zero, every notification is delivered immediately.
+ */
+final class ResourceUpdateCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceUpdateCoalescer.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<ResourcePath> updateSender;
+    private final Set<ResourcePath> dirtyPaths = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong receivedNotifications = new AtomicLong();
+    private final AtomicLong mergedNotifications = new AtomicLong();
+    private final AtomicLong sentUpdates = new AtomicLong();
+    private volatile long intervalMillis;
+
+    ResourceUpdateCoalescer(ScheduledExecutorService scheduler, long intervalMillis, Consumer<ResourcePath> updateSender) {
+        this.scheduler = scheduler;
+        this.intervalMillis = intervalMillis;
+        this.updateSender = updateSender;
+    }
+
+    static ResourceUpdateCoalescer createWithDaemonScheduler(long intervalMillis, Consumer<ResourcePath> updateSender) {
+        return new ResourceUpdateCoalescer(Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("resource-updates").setDaemon(true).build()), intervalMillis, updateSender);
+    }
+
+    void setIntervalMillis(long value) {
+        intervalMillis = value;
+    }
+
+    void markDirty(ResourcePath path) {
+        receivedNotifications.incrementAndGet();
+        if (intervalMillis <= 0) {
+            send(path);
+        } else if (!dirtyPaths.add(path)) {
+            // an update for this path is already pending and will carry the latest state
+            mergedNotifications.incrementAndGet();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::flush, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flush() {
+        // reset the flag before draining, so that paths marked during the flush are either included in it or in the next one
+        flushScheduled.set(false);
+        Iterator<ResourcePath> iterator = dirtyPaths.iterator();
+        while (iterator.hasNext()) {
+            ResourcePath path = iterator.next();
+            iterator.remove();
+            send(path);
+        }
+    }
+
+    private void send(ResourcePath path) {
+        try {
+            updateSender.accept(path);
+            sentUpdates.incrementAndGet();
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to send update for resource at path " + path.toString(), ex);
+        }
+    }
+
+    long getReceivedNotifications() {
+        return receivedNotifications.get();
+    }
+
+    long getMergedNotifications() {
+        return mergedNotifications.get();
+    }
+
+    long getSentUpdates() {
+        return sentUpdates.get();
+    }
+}
@@ -15,18 +15,29 @@
  */
 package org.terasology.web.resources.base;
 
+import org.terasology.entitySystem.entity.EntityRef;
+
 import java.util.Collections;
 import java.util.Map;
 import java.util.function.Function;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.decorateMethod;
 
+/**
+ * A collection of items identified by ID, each of which can have sub-resources.
+ * The methods of the collection and of its items are created once for each method name and then reused
+ * for any number of requests, so they must obtain the state they depend on when performed rather than when created;
+ * item methods receive the ID of the requested item as parameter.
+ */
 public abstract class AbstractItemCollectionResource extends AbstractObservableResource {
 
     private Map<String, Function<String, Resource>> itemSubResourceProviders;
+    private final MemoizedMethods<ResourceMethod> collectionMethods = new MemoizedMethods<>(this::createCollectionMethod);
+    private final MemoizedMethods<ItemResourceMethod> itemMethods = new MemoizedMethods<>(this::createItemMethod);
 
     protected AbstractItemCollectionResource(Map<String, Function<String, Resource>> itemSubResourceProviders) {
         this.itemSubResourceProviders = itemSubResourceProviders;
+        itemSubResourceProviders.keySet().forEach(ResourcePath::registerSegment);
     }
 
     protected AbstractItemCollectionResource() {
@@ -35,33 +46,56 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
 
     @Override
     public final ResourceMethod getMethod(ResourceMethodName methodName, ResourcePath path) throws ResourceAccessException {
-        String itemId = null;
-        if (!path.isEmpty()) {
-            itemId = path.consumeNextItem();
-            if (!path.isEmpty()) {
-                return getItemSubResourceMethod(methodName, path, itemId);
-            }
+        if (path.isEmpty()) {
+            return collectionMethods.get(methodName);
+        }
+        String itemId = path.getFirstItem();
+        ResourcePath subResourcePath = path.getRemainingPath();
+        if (!subResourcePath.isEmpty()) {
+            return getItemSubResourceMethod(methodName, subResourcePath, itemId);
         }
+        return itemMethods.get(methodName).bind(itemId);
+    }
+
+    private ResourceMethod createCollectionMethod(ResourceMethodName methodName) throws ResourceAccessException {
         switch (methodName) {
             case GET:
-                return itemId == null ? getGetCollectionMethod() : getGetItemMethod(itemId);
+                return getGetCollectionMethod();
             case POST:
-                return itemId == null ? getPostCollectionMethod() : getPostItemMethod(itemId);
+                return getPostCollectionMethod();
             case PUT:
-                return itemId == null ? getPutCollectionMethod() : getPutItemMethod(itemId);
+                return getPutCollectionMethod();
             case DELETE:
-                return itemId == null ? getDeleteCollectionMethod() : getDeleteItemMethod(itemId);
+                return getDeleteCollectionMethod();
             case PATCH:
-                return itemId == null ? getPatchCollectionMethod() : getPatchItemMethod(itemId);
+                return getPatchCollectionMethod();
+        }
+        throw ResourceAccessException.METHOD_NOT_ALLOWED;
+    }
+
+    private ItemResourceMethod createItemMethod(ResourceMethodName methodName) throws ResourceAccessException {
+        switch (methodName) {
+            case GET:
+                return getGetItemMethod();
+            case POST:
+                return getPostItemMethod();
+            case PUT:
+                return getPutItemMethod();
+            case DELETE:
+                return getDeleteItemMethod();
+            case PATCH:
+                return getPatchItemMethod();
         }
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
     private ResourceMethod getItemSubResourceMethod(ResourceMethodName methodName, ResourcePath path, String itemId) throws ResourceAccessException {
-        String subResourceName = path.consumeNextItem();
+        String subResourceName = path.getFirstItem();
         Function<String, Resource> subResourceProvider = itemSubResourceProviders.get(subResourceName);
         if (subResourceProvider != null) {
-            return decorateMethod(subResourceProvider.apply(itemId).getMethod(methodName, path),
+            Resource subResource = subResourceProvider.apply(itemId);
+            subResource.setObserver(createSubResourceObserver(subResourceName, itemId));
+            return decorateMethod(subResource.getMethod(methodName, path.getRemainingPath()),
                     () -> beforeSubResourceAccess(subResourceName, itemId),
                     () -> afterSubResourceAccess(subResourceName, itemId));
         } else {
@@ -69,13 +103,41 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         }
     }
 
+    /**
+     * The sub-resources are created for each request, so the observer of this collection is wrapped when
+     * one is obtained, prefixing the paths it notifies with the item ID and the sub-resource name.
+     * This allows a sub-resource to keep notifying changes after the method which created it has returned.
+     */
+    private ResourceObserver createSubResourceObserver(String subResourceName, String itemId) {
+        return new ResourceObserver() {
+            @Override
+            public void onEvent(ResourcePath senderPath, Object eventData, EntityRef targetClientEntity) {
+                getObserver().onEvent(toCollectionPath(senderPath), eventData, targetClientEntity);
+            }
+
+            @Override
+            public void onChangedForClient(ResourcePath senderPath, Resource sender, EntityRef targetClientEntity) {
+                getObserver().onChangedForClient(toCollectionPath(senderPath), sender, targetClientEntity);
+            }
+
+            @Override
+            public void onChangedForAllClients(ResourcePath senderPath, Resource sender) {
+                getObserver().onChangedForAllClients(toCollectionPath(senderPath), sender);
+            }
+
+            private ResourcePath toCollectionPath(ResourcePath senderPath) {
+                return senderPath.pushItem(subResourceName).pushItem(itemId);
+            }
+        };
+    }
+
     // in subclasses, override the methods supported by the resource
 
     protected ResourceMethod getGetCollectionMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getGetItemMethod(String itemId) throws ResourceAccessException {
+    protected ItemResourceMethod getGetItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -83,7 +145,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getPostItemMethod(String itemId) throws ResourceAccessException {
+    protected ItemResourceMethod getPostItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -91,7 +153,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getPutItemMethod(String itemId) throws ResourceAccessException {
+    protected ItemResourceMethod getPutItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -99,7 +161,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getDeleteItemMethod(String itemId) throws ResourceAccessException {
+    protected ItemResourceMethod getDeleteItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -107,7 +169,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getPatchItemMethod(String itemId) throws ResourceAccessException {
+    protected ItemResourceMethod getPatchItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
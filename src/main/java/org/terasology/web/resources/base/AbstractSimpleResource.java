@@ -15,6 +15,10 @@
  */
 package org.terasology.web.resources.base;
 
+/**
+ * A resource without sub-paths. The methods returned by subclasses can be reused for any number of requests
+ * (see {@link RouteTable}), so they must obtain the state they depend on when performed rather than when created.
+ */
 public abstract class AbstractSimpleResource extends AbstractObservableResource {
 
     @Override
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+/**
+ * The thread on which a {@link ResourceMethod} is performed, so that the web server threads are not used
+ * for methods which access the engine state or take a long time.
+ */
+public enum ExecutionThread {
+    /**
+     * The thread which received the request; only for quick methods which don't access the entity system.
+     */
+    CALLER,
+    /**
+     * The engine main thread, between two ticks; for methods which access the entity system or other engine objects
+     * which are not thread safe.
+     */
+    ENGINE,
+    /**
+     * A bounded pool of background threads; for slow methods (like disk or network I/O) which don't access the entity system.
+     */
+    BACKGROUND
+}
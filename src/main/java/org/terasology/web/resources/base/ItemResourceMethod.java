@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.terasology.network.Client;
+import org.terasology.web.client.ClientSecurityInfo;
+
+/**
+ * A method of the items of a collection, shared by all of them: the ID of the item is bound only when the method
+ * is requested for a path, by {@link #bind(String)}, which returns a lightweight view without copying the definition.
+ */
+public final class ItemResourceMethod<INTYPE, OUTTYPE> {
+
+    private final Class<INTYPE> inType;
+    private final ClientSecurityRequirements securityRequirements;
+    private final ParametrizedMethodHandler<INTYPE, OUTTYPE> handler;
+    private final ExecutionThread executionThread;
+
+    public ItemResourceMethod(Class<INTYPE> inType, ClientSecurityRequirements securityRequirements,
+                              ParametrizedMethodHandler<INTYPE, OUTTYPE> handler, ExecutionThread executionThread) {
+        this.inType = inType;
+        this.securityRequirements = securityRequirements;
+        this.handler = handler;
+        this.executionThread = executionThread;
+    }
+
+    public ItemResourceMethod(Class<INTYPE> inType, ClientSecurityRequirements securityRequirements, ParametrizedMethodHandler<INTYPE, OUTTYPE> handler) {
+        this(inType, securityRequirements, handler, ExecutionThread.CALLER);
+    }
+
+    /**
+     * @return a copy of this method which is performed on the specified thread.
+     */
+    public ItemResourceMethod<INTYPE, OUTTYPE> performedOn(ExecutionThread thread) {
+        return new ItemResourceMethod<>(inType, securityRequirements, handler, thread);
+    }
+
+    public ResourceMethod<INTYPE, OUTTYPE> bind(String itemId) {
+        return new BoundMethod(itemId);
+    }
+
+    private final class BoundMethod implements ResourceMethod<INTYPE, OUTTYPE> {
+
+        private final String itemId;
+
+        private BoundMethod(String itemId) {
+            this.itemId = itemId;
+        }
+
+        @Override
+        public Class<INTYPE> getInType() {
+            return inType;
+        }
+
+        @Override
+        public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+            return securityRequirements.clientIsAllowed(securityInfo);
+        }
+
+        @Override
+        public OUTTYPE perform(INTYPE data, Client client) throws ResourceAccessException {
+            return handler.perform(data, itemId, client);
+        }
+
+        @Override
+        public ExecutionThread getExecutionThread() {
+            return executionThread;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Memoizes the methods of a resource by method name: each method is created the first time it's requested and then
+ * shared by all the following requests. When a method can't be created (e.g. because it's not supported), the creation
+ * is attempted again at each request.
+ */
+final class MemoizedMethods<T> {
+
+    @FunctionalInterface
+    interface MethodCreator<T> {
+        T create(ResourceMethodName methodName) throws ResourceAccessException;
+    }
+
+    private final MethodCreator<T> creator;
+    private final AtomicReferenceArray<T> methods = new AtomicReferenceArray<>(ResourceMethodName.values().length);
+
+    MemoizedMethods(MethodCreator<T> creator) {
+        this.creator = creator;
+    }
+
+    T get(ResourceMethodName methodName) throws ResourceAccessException {
+        int index = methodName.ordinal();
+        T method = methods.get(index);
+        if (method == null) {
+            method = creator.create(methodName);
+            if (!methods.compareAndSet(index, null, method)) {
+                method = methods.get(index);
+            }
+        }
+        return method;
+    }
+}
@@ -17,6 +17,8 @@ package org.terasology.web.resources.base;
 
 import org.terasology.web.io.ActionResult;
 
+import java.util.concurrent.CompletionException;
+
 // TODO: consider decoupling from ActionResult (which is JSON specific)
 public class ResourceAccessException extends Exception {
 
@@ -35,4 +37,17 @@ public class ResourceAccessException extends Exception {
     public ActionResult getResultToSend() {
         return resultToSend;
     }
+
+    /**
+     * @param failure the exception which has completed the future of an asynchronously performed method.
+     * @return the result to send if it's a ResourceAccessException, possibly wrapped in a {@link CompletionException}.
+     * @throws CompletionException wrapping the failure, if it's an unexpected exception.
+     */
+    public static ActionResult getResultToSend(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof ResourceAccessException) {
+            return ((ResourceAccessException) cause).getResultToSend();
+        }
+        throw new CompletionException(cause);
+    }
 }
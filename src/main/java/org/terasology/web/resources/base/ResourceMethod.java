@@ -25,4 +25,19 @@ public interface ResourceMethod<INTYPE, OUTTYPE> {
     boolean clientIsAllowed(ClientSecurityInfo securityInfo);
 
     OUTTYPE perform(INTYPE data, Client client) throws ResourceAccessException;
+
+    /**
+     * @return whether the output of this method depends on the client performing it. If not (the default), the
+     * output is computed once and shared when the same update has to be sent to several clients.
+     */
+    default boolean hasClientSpecificOutput() {
+        return false;
+    }
+
+    /**
+     * @return the thread on which this method must be performed; by default, the one which received the request.
+     */
+    default ExecutionThread getExecutionThread() {
+        return ExecutionThread.CALLER;
+    }
 }
@@ -27,7 +27,7 @@ public final class ResourceMethodFactory {
     public static <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> createParametrizedMethod(
             ResourcePath path, ClientSecurityRequirements securityRequirements, Class<INTYPE> inType,
             ParametrizedMethodHandler<INTYPE, OUTTYPE> handler) throws ResourceAccessException {
-        String parameter = path.assertAndConsumeLastItem();
+        String parameter = path.getSingleItem();
         return createParametrizedMethod(parameter, securityRequirements, inType, handler);
     }
 
@@ -66,6 +66,19 @@ public final class ResourceMethodFactory {
         return createVoidParameterlessMethod(securityRequirements, inType, handler);
     }
 
+    public static <INTYPE, OUTTYPE> ItemResourceMethod<INTYPE, OUTTYPE> createItemMethod(
+            ClientSecurityRequirements securityRequirements, Class<INTYPE> inType, ParametrizedMethodHandler<INTYPE, OUTTYPE> handler) {
+        return new ItemResourceMethod<>(inType, securityRequirements, handler);
+    }
+
+    public static <INTYPE> ItemResourceMethod<INTYPE, Void> createVoidItemMethod(
+            ClientSecurityRequirements securityRequirements, Class<INTYPE> inType, VoidParametrizedMethodHandler<INTYPE> handler) {
+        return createItemMethod(securityRequirements, inType, (data, itemId, client) -> {
+            handler.perform(data, itemId, client);
+            return null;
+        });
+    }
+
     public static <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> decorateMethod(
             ResourceMethod<INTYPE, OUTTYPE> base, ThrowingRunnable<ResourceAccessException> before, ThrowingRunnable<ResourceAccessException> after) {
         return new ResourceMethod<INTYPE, OUTTYPE>() {
@@ -86,6 +99,52 @@ public final class ResourceMethodFactory {
                 after.run();
                 return result;
             }
+
+            @Override
+            public boolean hasClientSpecificOutput() {
+                return base.hasClientSpecificOutput();
+            }
+
+            @Override
+            public ExecutionThread getExecutionThread() {
+                return base.getExecutionThread();
+            }
         };
     }
+
+    /**
+     * @return a method which behaves like the specified one, but is performed on the specified thread.
+     */
+    public static <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> performedOn(ExecutionThread thread, ResourceMethod<INTYPE, OUTTYPE> base) {
+        return new ResourceMethod<INTYPE, OUTTYPE>() {
+            @Override
+            public Class<INTYPE> getInType() {
+                return base.getInType();
+            }
+
+            @Override
+            public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+                return base.clientIsAllowed(securityInfo);
+            }
+
+            @Override
+            public OUTTYPE perform(INTYPE data, Client client) throws ResourceAccessException {
+                return base.perform(data, client);
+            }
+
+            @Override
+            public boolean hasClientSpecificOutput() {
+                return base.hasClientSpecificOutput();
+            }
+
+            @Override
+            public ExecutionThread getExecutionThread() {
+                return thread;
+            }
+        };
+    }
+
+    public static <INTYPE, OUTTYPE> ItemResourceMethod<INTYPE, OUTTYPE> performedOn(ExecutionThread thread, ItemResourceMethod<INTYPE, OUTTYPE> base) {
+        return base.performedOn(thread);
+    }
 }
@@ -23,13 +23,20 @@ public class ResourceMethodImpl<INTYPE, OUTTYPE> implements ResourceMethod<INTYP
     private final Class<INTYPE> inType;
     private final ClientSecurityRequirements securityRequirements;
     private final ParameterlessMethodHandler<INTYPE, OUTTYPE> handler;
+    private final boolean clientSpecificOutput;
 
-    public ResourceMethodImpl(Class<INTYPE> inType, ClientSecurityRequirements securityRequirements, ParameterlessMethodHandler<INTYPE, OUTTYPE> handler) {
+    public ResourceMethodImpl(Class<INTYPE> inType, ClientSecurityRequirements securityRequirements, boolean clientSpecificOutput,
+                              ParameterlessMethodHandler<INTYPE, OUTTYPE> handler) {
         this.inType = inType;
         this.securityRequirements = securityRequirements;
+        this.clientSpecificOutput = clientSpecificOutput;
         this.handler = handler;
     }
 
+    public ResourceMethodImpl(Class<INTYPE> inType, ClientSecurityRequirements securityRequirements, ParameterlessMethodHandler<INTYPE, OUTTYPE> handler) {
+        this(inType, securityRequirements, false, handler);
+    }
+
     @Override
     public Class<INTYPE> getInType() {
         return inType;
@@ -44,4 +51,9 @@ public class ResourceMethodImpl<INTYPE, OUTTYPE> implements ResourceMethod<INTYP
     public OUTTYPE perform(INTYPE data, Client client) throws ResourceAccessException {
         return handler.perform(data, client);
     }
+
+    @Override
+    public boolean hasClientSpecificOutput() {
+        return clientSpecificOutput;
+    }
 }
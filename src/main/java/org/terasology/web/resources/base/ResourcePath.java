@@ -15,80 +15,206 @@
  */
 package org.terasology.web.resources.base;
 
-import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable resource path, stored as a linked list of segments: {@link #getRemainingPath()} and {@link #pushItem(String)}
+ * return paths which share the segments with this one, so routing a request or a notification through the resource tree
+ * doesn't allocate or copy anything. The hash code is computed on construction.
+ */
+public final class ResourcePath {
+
+    private static final ResourcePath EMPTY = new ResourcePath();
+    // the names of the routed resources, so that paths built from client input refer to the same String instances
+    private static final ConcurrentMap<String, String> KNOWN_SEGMENTS = new ConcurrentHashMap<>();
+
+    private final String firstItem;
+    private final ResourcePath remainingPath;
+    private final int size;
+    private final int hash;
+    private List<String> itemList; // lazily computed; safely published since the list is immutable and has only final fields
+
+    private ResourcePath() {
+        this.firstItem = null;
+        this.remainingPath = null;
+        this.size = 0;
+        this.hash = 1;
+    }
 
-// TODO: consider making it immutable and returning a new instance for each operation
-public class ResourcePath {
+    private ResourcePath(String firstItem, ResourcePath remainingPath) {
+        this.firstItem = firstItem;
+        this.remainingPath = remainingPath;
+        this.size = remainingPath.size + 1;
+        this.hash = 31 * remainingPath.hash + firstItem.hashCode();
+    }
 
-    private Deque<String> items;
+    private ResourcePath(ResourcePath other) {
+        this.firstItem = other.firstItem;
+        this.remainingPath = other.remainingPath;
+        this.size = other.size;
+        this.hash = other.hash;
+    }
 
+    /**
+     * Creates a path from the specified segments; the empty ones are ignored.
+     */
     public ResourcePath(Collection<String> items) {
-        this.items = new ArrayDeque<>(items);
-        this.items.removeIf(String::isEmpty);
+        this(fromItems(items.toArray(new String[items.size()])));
     }
 
     public ResourcePath(String... items) {
-        this(Arrays.asList(items));
+        this(fromItems(items));
+    }
+
+    private static ResourcePath fromItems(String[] items) {
+        ResourcePath result = EMPTY;
+        for (int i = items.length - 1; i >= 0; i--) {
+            if (!items[i].isEmpty()) {
+                result = new ResourcePath(intern(items[i]), result);
+            }
+        }
+        return result;
     }
 
     public static ResourcePath createEmpty() {
-        return new ResourcePath(Collections.emptyList());
+        return EMPTY;
+    }
+
+    /**
+     * Registers a segment name used to route requests, so that the equal segments of the paths created later
+     * are replaced with the same instance; this makes the comparisons during routing cheaper.
+     */
+    static String registerSegment(String segment) {
+        String previous = KNOWN_SEGMENTS.putIfAbsent(segment, segment);
+        return previous != null ? previous : segment;
+    }
+
+    private static String intern(String segment) {
+        // only the known names are interned, to avoid retaining arbitrary strings received from the clients
+        String known = KNOWN_SEGMENTS.get(segment);
+        return known != null ? known : segment;
     }
 
     public boolean isEmpty() {
-        return items.isEmpty();
+        return size == 0;
     }
 
-    public String consumeNextItem() throws ResourceAccessException {
-        if (items.isEmpty()) {
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the first segment of this path.
+     * @throws ResourceAccessException NOT_FOUND if the path is empty.
+     */
+    public String getFirstItem() throws ResourceAccessException {
+        if (isEmpty()) {
             throw ResourceAccessException.NOT_FOUND;
         }
-        return items.pollFirst();
+        return firstItem;
     }
 
-    public String assertAndConsumeLastItem() throws ResourceAccessException {
-        if (items.size() != 1) {
+    /**
+     * @return this path without the first segment, or the empty path if this path is already empty.
+     */
+    public ResourcePath getRemainingPath() {
+        return isEmpty() ? this : remainingPath;
+    }
+
+    /**
+     * @return the only segment of this path.
+     * @throws ResourceAccessException NOT_FOUND if the path doesn't have exactly one segment.
+     */
+    public String getSingleItem() throws ResourceAccessException {
+        if (size != 1) {
             throw ResourceAccessException.NOT_FOUND;
         }
-        return consumeNextItem();
+        return firstItem;
     }
 
     public void assertEmpty() throws ResourceAccessException {
-        if (!items.isEmpty()) {
+        if (!isEmpty()) {
             throw ResourceAccessException.NOT_FOUND;
         }
     }
 
+    /**
+     * @return a new path made of the specified segment followed by the segments of this path.
+     */
     public ResourcePath pushItem(String item) {
-        items.offerFirst(item);
-        return this;
+        return new ResourcePath(intern(item), this);
     }
 
-    public Collection<String> getItemList() {
-        return items;
+    /**
+     * @return whether the first segments of this path are the same as the segments of the specified one
+     * (which is true also if the paths are equal).
+     */
+    public boolean startsWith(ResourcePath prefix) {
+        if (prefix.size > size) {
+            return false;
+        }
+        ResourcePath current = this;
+        ResourcePath prefixCurrent = prefix;
+        while (!prefixCurrent.isEmpty()) {
+            if (!current.firstItem.equals(prefixCurrent.firstItem)) {
+                return false;
+            }
+            current = current.remainingPath;
+            prefixCurrent = prefixCurrent.remainingPath;
+        }
+        return true;
     }
 
-    @Override
-    public boolean equals(Object other) {
-        return other instanceof ResourcePath && toString().equals(other.toString());
+    public List<String> getItemList() {
+        List<String> result = itemList;
+        if (result == null) {
+            String[] items = new String[size];
+            ResourcePath current = this;
+            for (int i = 0; i < size; i++) {
+                items[i] = current.firstItem;
+                current = current.remainingPath;
+            }
+            result = Collections.unmodifiableList(Arrays.asList(items));
+            itemList = result;
+        }
+        return result;
     }
 
     @Override
-    public int hashCode() {
-        return toString().hashCode();
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ResourcePath)) {
+            return false;
+        }
+        ResourcePath current = this;
+        ResourcePath otherCurrent = (ResourcePath) other;
+        if (current.size != otherCurrent.size || current.hash != otherCurrent.hash) {
+            return false;
+        }
+        while (current != otherCurrent && !current.isEmpty()) {
+            if (!current.firstItem.equals(otherCurrent.firstItem)) {
+                return false;
+            }
+            current = current.remainingPath;
+            otherCurrent = otherCurrent.remainingPath;
+        }
+        return true;
     }
 
     @Override
-    public ResourcePath clone() {
-        return new ResourcePath(getItemList());
+    public int hashCode() {
+        return hash;
     }
 
     @Override
     public String toString() {
-        return String.join("/", items);
+        return String.join("/", getItemList());
     }
 }
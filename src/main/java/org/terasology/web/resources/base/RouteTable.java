@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A resource tree compiled into a flat table when it's built. The paths made only of router segments are resolved
+ * with a single lookup of the whole path; for the resources which allow it, the lookup directly returns the methods
+ * obtained at compile time, so that no object is allocated for each request.
+ * The other paths (e.g. the items of a collection) are resolved by walking a trie of the router segments
+ * and then asking the resource found for the method of the remaining path.
+ */
+public final class RouteTable {
+
+    private final Route root;
+    private final Map<ResourcePath, Route> staticRoutes;
+
+    private static final class Route {
+        private final Resource resource;
+        private final Map<String, Route> children; // null if the resource is not a router
+        private final Map<ResourceMethodName, ResourceMethod> methods;
+
+        private Route(Resource resource, Map<String, Route> children) {
+            this.resource = resource;
+            this.children = children;
+            this.methods = resolveReusableMethods(resource);
+        }
+
+        private ResourceMethod getMethod(ResourceMethodName methodName, ResourcePath remainingPath) throws ResourceAccessException {
+            if (remainingPath.isEmpty()) {
+                ResourceMethod method = methods.get(methodName);
+                if (method != null) {
+                    return method;
+                }
+            }
+            return resource.getMethod(methodName, remainingPath);
+        }
+    }
+
+    private RouteTable(Route root, Map<ResourcePath, Route> staticRoutes) {
+        this.root = root;
+        this.staticRoutes = staticRoutes;
+    }
+
+    /**
+     * Compiles the specified tree; must be called after the resources are initialized, and the tree must not be modified afterwards.
+     */
+    public static RouteTable compile(RouterResource rootResource) {
+        Map<ResourcePath, Route> staticRoutes = new HashMap<>();
+        Route root = compile(rootResource, new ArrayList<>(), staticRoutes);
+        return new RouteTable(root, staticRoutes);
+    }
+
+    private static Route compile(Resource resource, List<String> path, Map<ResourcePath, Route> staticRoutes) {
+        Route route;
+        if (resource instanceof RouterResource) {
+            RouterResource router = (RouterResource) resource;
+            Map<String, Route> children = new HashMap<>();
+            router.getSubResources().forEach((name, subResource) -> {
+                path.add(name);
+                children.put(name, compile(subResource, path, staticRoutes));
+                path.remove(path.size() - 1);
+            });
+            route = new Route(router.getRootResource(), children);
+        } else {
+            route = new Route(resource, null);
+        }
+        staticRoutes.put(new ResourcePath(path), route);
+        return route;
+    }
+
+    private static Map<ResourceMethodName, ResourceMethod> resolveReusableMethods(Resource resource) {
+        if (!(resource instanceof AbstractSimpleResource)) {
+            return Collections.emptyMap();
+        }
+        // the methods of simple resources only depend on the method name, so they can be obtained once and shared by all requests
+        Map<ResourceMethodName, ResourceMethod> result = new EnumMap<>(ResourceMethodName.class);
+        for (ResourceMethodName methodName: ResourceMethodName.values()) {
+            try {
+                result.put(methodName, resource.getMethod(methodName, ResourcePath.createEmpty()));
+            } catch (ResourceAccessException ex) {
+                // not supported, will be reported again for each request
+            }
+        }
+        return result;
+    }
+
+    public ResourceMethod getMethod(ResourceMethodName methodName, ResourcePath path) throws ResourceAccessException {
+        Route route = staticRoutes.get(path);
+        if (route != null) {
+            return route.getMethod(methodName, ResourcePath.createEmpty());
+        }
+        route = root;
+        ResourcePath remainingPath = path;
+        while (route.children != null && !remainingPath.isEmpty()) {
+            Route child = route.children.get(remainingPath.getFirstItem());
+            if (child == null) {
+                return RouterResource.getNotFoundMethod();
+            }
+            route = child;
+            remainingPath = remainingPath.getRemainingPath();
+        }
+        return route.getMethod(methodName, remainingPath);
+    }
+}
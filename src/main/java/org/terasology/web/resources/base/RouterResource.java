@@ -33,6 +33,21 @@ public final class RouterResource implements Resource {
         this.rootResource = rootResource;
     }
 
+    Resource getRootResource() {
+        return rootResource;
+    }
+
+    Map<String, Resource> getSubResources() {
+        return subResources;
+    }
+
+    /**
+     * @return the method returned for the paths which don't correspond to a resource; it fails with NOT_FOUND when performed.
+     */
+    static ResourceMethod getNotFoundMethod() {
+        return NullResource.NOT_FOUND_METHOD;
+    }
+
     @Override
     public void setObserver(ResourceObserver observer) {
         rootResource.setObserver(observer);
@@ -66,15 +81,30 @@ public final class RouterResource implements Resource {
         if (path.isEmpty()) {
             return rootResource.getMethod(methodName, path);
         } else {
-            String selector = path.consumeNextItem();
-            Resource res = subResources.getOrDefault(selector, NullResource.getInstance());
-            return res.getMethod(methodName, path);
+            Resource res = subResources.getOrDefault(path.getFirstItem(), NullResource.getInstance());
+            return res.getMethod(methodName, path.getRemainingPath());
         }
     }
 
     private static final class NullResource extends AbstractObservableResource {
 
         private static final NullResource INSTANCE = new NullResource();
+        private static final ResourceMethod<Void, Void> NOT_FOUND_METHOD = new ResourceMethod<Void, Void>() {
+            @Override
+            public Class<Void> getInType() {
+                return Void.class;
+            }
+
+            @Override
+            public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+                return true;
+            }
+
+            @Override
+            public Void perform(Void data, Client client) throws ResourceAccessException {
+                throw ResourceAccessException.NOT_FOUND;
+            }
+        };
 
         private NullResource() {
         }
@@ -85,22 +115,7 @@ public final class RouterResource implements Resource {
 
         @Override
         public ResourceMethod getMethod(ResourceMethodName methodName, ResourcePath path) throws ResourceAccessException {
-            return new ResourceMethod<Void, Void>() {
-                @Override
-                public Class<Void> getInType() {
-                    return Void.class;
-                }
-
-                @Override
-                public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
-                    return true;
-                }
-
-                @Override
-                public Void perform(Void data, Client client) throws ResourceAccessException {
-                    throw ResourceAccessException.NOT_FOUND;
-                }
-            };
+            return NOT_FOUND_METHOD;
         }
 
         @Override
@@ -134,7 +149,7 @@ public final class RouterResource implements Resource {
 
         public Builder addSubResource(String name, Resource resource) {
             resourceInitializer.accept(resource);
-            result.subResources.put(name, resource);
+            result.subResources.put(ResourcePath.registerSegment(name), resource);
             return this;
         }
 
@@ -22,7 +22,9 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.terasology.web.resources.base.ResourceMethodFactory.createItemMethod;
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.performedOn;
 
 public abstract class StreamBasedItemCollectionResource<T> extends AbstractItemCollectionResource {
 
@@ -36,13 +38,13 @@ public abstract class StreamBasedItemCollectionResource<T> extends AbstractItemC
 
     @Override
     public final ResourceMethod<Void, List<T>> getGetCollectionMethod() throws ResourceAccessException {
-        return createParameterlessMethod(getGetMethodSecurityRequirements(), Void.class,
-                (data, client) -> getDataSourceStream().collect(Collectors.toList()));
+        return performedOn(getGetMethodExecutionThread(), createParameterlessMethod(getGetMethodSecurityRequirements(), Void.class,
+                (data, client) -> getDataSourceStream().collect(Collectors.toList())));
     }
 
     @Override
-    public final ResourceMethod<Void, T> getGetItemMethod(String itemId) throws ResourceAccessException {
-        return createParameterlessMethod(getGetMethodSecurityRequirements(), Void.class, (data, client) -> {
+    public final ItemResourceMethod<Void, T> getGetItemMethod() throws ResourceAccessException {
+        return performedOn(getGetMethodExecutionThread(), createItemMethod(getGetMethodSecurityRequirements(), Void.class, (data, itemId, client) -> {
             Optional<T> result = getDataSourceStream()
                     .filter(item -> itemMatchesId(itemId, item))
                     .findFirst();
@@ -50,13 +52,20 @@ public abstract class StreamBasedItemCollectionResource<T> extends AbstractItemC
                 throw ResourceAccessException.NOT_FOUND;
             }
             return result.get();
-        });
+        }));
     }
 
     protected ClientSecurityRequirements getGetMethodSecurityRequirements() {
         return ClientSecurityRequirements.PUBLIC;
     }
 
+    /**
+     * @return the thread on which the data source stream is read; override if it accesses the engine state or the disk.
+     */
+    protected ExecutionThread getGetMethodExecutionThread() {
+        return ExecutionThread.CALLER;
+    }
+
     protected abstract Stream<T> getDataSourceStream();
     protected abstract boolean itemMatchesId(String itemId, T item);
 }
@@ -26,10 +26,12 @@ import org.terasology.web.resources.DefaultComponentSystem;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ExecutionThread;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.performedOn;
 
 @RegisterSystem
 public class ConsoleResource extends AbstractSimpleResource implements DefaultComponentSystem {
@@ -44,7 +46,7 @@ public class ConsoleResource extends AbstractSimpleResource implements DefaultCo
 
     @Override
     protected ResourceMethod<String, Void> getPostMethod(ResourcePath path) throws ResourceAccessException {
-        return createVoidParameterlessMethod(path, ClientSecurityRequirements.REQUIRE_AUTH, String.class,
-                (data, client) -> console.execute(data, client.getEntity()));
+        return performedOn(ExecutionThread.ENGINE, createVoidParameterlessMethod(path, ClientSecurityRequirements.REQUIRE_AUTH, String.class,
+                (data, client) -> console.execute(data, client.getEntity())));
     }
 }
@@ -29,6 +29,7 @@ import org.terasology.web.StateEngineIdle;
 import org.terasology.web.io.ActionResult;
 import org.terasology.web.io.JsonSession;
 import org.terasology.web.resources.base.ResourceAccessException;
+import org.terasology.web.resources.games.GameBackupJobs;
 
 import java.util.Map;
 import java.util.Optional;
@@ -82,6 +83,11 @@ public final class EngineStateMetadata {
                 newState = new StateEngineIdle();
                 break;
             case LOADING:
+                if (GameBackupJobs.getInstance().isRunning(gameName)) {
+                    // the engine would write into the files which are being replicated
+                    throw new ResourceAccessException(new ActionResult(ActionResult.Status.CONFLICT,
+                            "A game cannot be loaded while it's being backed up."));
+                }
                 Stream<GameInfo> saveGames = GameProvider.getSavedGames().stream();
                 Optional<GameInfo> game = saveGames.filter((gameInfo) -> gameInfo.getManifest().getTitle().equals(gameName)).findFirst();
                 if (!game.isPresent()) {
@@ -20,11 +20,13 @@ import org.terasology.registry.In;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ExecutionThread;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
 import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.performedOn;
 
 public class EngineStateResource extends AbstractSimpleResource {
 
@@ -39,7 +41,7 @@ public class EngineStateResource extends AbstractSimpleResource {
 
     @Override
     protected ResourceMethod<EngineStateMetadata, Void> getPutMethod(ResourcePath path) throws ResourceAccessException {
-        return createVoidParameterlessMethod(path, ClientSecurityRequirements.REQUIRE_ADMIN, EngineStateMetadata.class,
-                (data, client) -> data.switchEngineToThisState(gameEngine));
+        return performedOn(ExecutionThread.ENGINE, createVoidParameterlessMethod(path, ClientSecurityRequirements.REQUIRE_ADMIN,
+                EngineStateMetadata.class, (data, client) -> data.switchEngineToThisState(gameEngine)));
     }
 }
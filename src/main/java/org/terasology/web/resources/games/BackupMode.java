@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+/**
+ * The ways in which {@link GameBackupEngine} can replicate the files of a saved game.
+ */
+public enum BackupMode {
+    /**
+     * Copies the content of the files, using a pool of threads to copy several files at once.
+     */
+    COPY,
+    /**
+     * Creates hard links to the original files, which makes a backup almost free but shares the data with the game:
+     * it's only consistent as long as the game replaces its files rather than modifying them in place.
+     */
+    HARD_LINK,
+    /**
+     * Creates copy-on-write clones of the files (reflinks), which share the data with the original until one of them is modified;
+     * only some file systems (e.g. Btrfs, XFS) support them, and they are created with the {@code cp} command on Linux.
+     */
+    REFLINK,
+    /**
+     * Uses {@link #REFLINK} if the file system supports it, otherwise {@link #COPY}.
+     */
+    AUTO
+}
@@ -29,11 +29,14 @@ import java.nio.file.Path;
 
 public class DeleteGameMethod extends ResourceMethodImpl<Void, Void> {
 
+    static final Class<Void> IN_TYPE = Void.class;
+    static final ClientSecurityRequirements SECURITY_REQUIREMENTS = ClientSecurityRequirements.REQUIRE_ADMIN;
+
     private PathManager pathManager;
     private String gameName;
 
     public DeleteGameMethod(PathManager pathManager, String gameName) {
-        super(Void.class, ClientSecurityRequirements.REQUIRE_ADMIN, null);
+        super(IN_TYPE, SECURITY_REQUIREMENTS, null);
         this.pathManager = pathManager;
         this.gameName = gameName;
     }
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.utilities.FilesUtil;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Replicates the directory of a saved game to create a backup, without blocking the calling thread.
+ * The source tree is scanned and its directories are created first, then each file is replicated by a separate task;
+ * the tasks of all the backups share a bounded pool of threads, so that several files are copied at once
+ * without letting concurrent backups start an unbounded number of threads.
+ */
+public class GameBackupEngine {
+
+    /**
+     * Receives the progress of a backup; the methods may be called from any thread of the pool.
+     */
+    public interface ProgressListener {
+        void onStarted(int totalFiles, long totalBytes);
+        void onFileCompleted(long fileBytes);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(GameBackupEngine.class);
+    private static final int COPY_THREADS = 4;
+    private static final GameBackupEngine INSTANCE = new GameBackupEngine(Executors.newFixedThreadPool(COPY_THREADS,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("game-backup-%d").build()));
+
+    private final Executor executor;
+    private final boolean reflinkCommandAvailable;
+    // whether each file store supports reflinks, determined the first time a backup is made on it
+    private final Map<FileStore, Boolean> reflinkSupport = new ConcurrentHashMap<>();
+
+    GameBackupEngine(Executor executor) {
+        this.executor = executor;
+        this.reflinkCommandAvailable = System.getProperty("os.name", "").startsWith("Linux");
+    }
+
+    public static GameBackupEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts replicating the source directory into the target one, which must not exist.
+     * If the backup fails, the partially created target directory is deleted.
+     * @param filesToCopy the paths, relative to the source, of the files which are always copied, even in {@link BackupMode#HARD_LINK}
+     *                    mode; they should include those which will be modified in the backup (e.g. the game manifest).
+     * @return a future completed with the mode which has actually been used (never {@link BackupMode#AUTO}) when the backup is finished.
+     */
+    public CompletableFuture<BackupMode> backup(Path source, Path target, BackupMode mode, Set<Path> filesToCopy, ProgressListener listener) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                SourceTree tree = scan(source);
+                Files.createDirectory(target);
+                return tree;
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor).thenCompose((tree) -> {
+            listener.onStarted(tree.files.size(), tree.totalBytes);
+            return replicate(tree, source, target, mode, filesToCopy, listener).whenComplete((usedMode, failure) -> {
+                if (failure != null) {
+                    deleteQuietly(target);
+                }
+            });
+        });
+    }
+
+    private CompletableFuture<BackupMode> replicate(SourceTree tree, Path source, Path target, BackupMode mode,
+                                                    Set<Path> filesToCopy, ProgressListener listener) {
+        BackupMode usedMode = mode == BackupMode.HARD_LINK ? BackupMode.HARD_LINK : BackupMode.COPY;
+        try {
+            if (mode == BackupMode.REFLINK || mode == BackupMode.AUTO) {
+                if (tryReflinkCopy(tree, source, target)) {
+                    tree.files.forEach((file) -> listener.onFileCompleted(file.size));
+                    return CompletableFuture.completedFuture(BackupMode.REFLINK);
+                } else if (mode == BackupMode.REFLINK) {
+                    throw new IOException("The file system of the saved games doesn't support reflinks.");
+                }
+            }
+            for (Path directory: tree.directories) {
+                Files.createDirectory(target.resolve(directory));
+            }
+        } catch (IOException ex) {
+            return failedFuture(ex);
+        }
+        CompletableFuture<?>[] fileTasks = tree.files.stream().map((file) -> CompletableFuture.runAsync(() -> {
+            try {
+                Path sourceFile = source.resolve(file.relativePath);
+                Path targetFile = target.resolve(file.relativePath);
+                if (usedMode == BackupMode.HARD_LINK && !filesToCopy.contains(file.relativePath)) {
+                    Files.createLink(targetFile, sourceFile);
+                } else {
+                    copyFile(sourceFile, targetFile);
+                }
+            } catch (IOException | UnsupportedOperationException ex) {
+                throw new CompletionException(ex);
+            }
+            listener.onFileCompleted(file.size);
+        }, executor)).toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(fileTasks).thenApply((v) -> usedMode);
+    }
+
+    /**
+     * Copies a file using {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, which lets the
+     * operating system move the data between the files without copying it through buffers in the Java heap.
+     */
+    static void copyFile(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, size - position, out);
+                if (transferred <= 0) {
+                    // the source has been truncated while being copied
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private boolean tryReflinkCopy(SourceTree tree, Path source, Path target) throws IOException {
+        if (!reflinkCommandAvailable || tree.files.isEmpty()) {
+            return false;
+        }
+        // when reflinks aren't supported, cp still tries each file, so the support is checked with a single one first
+        FileStore fileStore = Files.getFileStore(source);
+        Boolean supported = reflinkSupport.get(fileStore);
+        if (supported == null) {
+            Path probeFile = target.resolve(".reflink-probe");
+            supported = runReflinkCopy(source.resolve(tree.files.get(0).relativePath).toAbsolutePath().toString(), probeFile);
+            Files.deleteIfExists(probeFile);
+            reflinkSupport.put(fileStore, supported);
+        }
+        if (!supported) {
+            return false;
+        }
+        // "source/." copies the content of the source into the existing target directory
+        if (runReflinkCopy(source.toAbsolutePath().toString() + "/.", target)) {
+            return true;
+        }
+        // remove what the command may have created before failing, since the files are then replicated in another way
+        FilesUtil.recursiveDelete(target);
+        Files.createDirectory(target);
+        return false;
+    }
+
+    private static boolean runReflinkCopy(String source, Path target) {
+        ProcessBuilder processBuilder = new ProcessBuilder("cp", "-R", "--reflink=always", source, target.toAbsolutePath().toString())
+                .redirectErrorStream(true);
+        try {
+            Process process = processBuilder.start();
+            String output = CharStreams.toString(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            if (process.waitFor() == 0) {
+                return true;
+            }
+            logger.debug("Reflinks are not available for {}: {}", source, output.trim());
+        } catch (IOException ex) {
+            logger.debug("Failed to run the reflink copy command", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static SourceTree scan(Path source) throws IOException {
+        SourceTree tree = new SourceTree();
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(source)) {
+                    tree.directories.add(source.relativize(dir));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                tree.files.add(new SourceFile(source.relativize(file), attrs.size()));
+                tree.totalBytes += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return tree;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            if (Files.exists(path)) {
+                FilesUtil.recursiveDelete(path);
+            }
+        } catch (IOException ex) {
+            logger.warn("Failed to delete the incomplete backup at " + path, ex);
+        }
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable failure) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(failure);
+        return result;
+    }
+
+    private static final class SourceTree {
+        // directories are listed before their content, so they can be created in order
+        private final List<Path> directories = new ArrayList<>();
+        private final List<SourceFile> files = new ArrayList<>();
+        private long totalBytes;
+    }
+
+    private static final class SourceFile {
+        private final Path relativePath;
+        private final long size;
+
+        private SourceFile(Path relativePath, long size) {
+            this.relativePath = relativePath;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of a backup started by {@link GameBackupJobs}, calling the specified callback when it changes;
+ * while the files are being replicated, the callback is called at most once every {@link #PROGRESS_INTERVAL_MILLIS},
+ * since a save can contain thousands of files.
+ */
+public class GameBackupJob implements GameBackupEngine.ProgressListener {
+
+    static final long PROGRESS_INTERVAL_MILLIS = 250;
+
+    private final String backupName;
+    private final Runnable onProgress;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final AtomicInteger completedFiles = new AtomicInteger();
+    private final AtomicLong completedBytes = new AtomicLong();
+    private final AtomicLong lastProgressMillis = new AtomicLong();
+    private volatile GameBackupStatus.State state = GameBackupStatus.State.RUNNING;
+    private volatile BackupMode mode;
+    private volatile int totalFiles;
+    private volatile long totalBytes;
+    private volatile String errorMessage;
+
+    GameBackupJob(String backupName, BackupMode requestedMode, Runnable onProgress) {
+        this.backupName = backupName;
+        this.mode = requestedMode;
+        this.onProgress = onProgress;
+    }
+
+    @Override
+    public void onStarted(int files, long bytes) {
+        totalFiles = files;
+        totalBytes = bytes;
+        lastProgressMillis.set(System.currentTimeMillis());
+        onProgress.run();
+    }
+
+    @Override
+    public void onFileCompleted(long fileBytes) {
+        completedFiles.incrementAndGet();
+        completedBytes.addAndGet(fileBytes);
+        long now = System.currentTimeMillis();
+        long last = lastProgressMillis.get();
+        // the completion is always notified, so the progress of the last files may be skipped
+        if (now - last >= PROGRESS_INTERVAL_MILLIS && lastProgressMillis.compareAndSet(last, now)) {
+            onProgress.run();
+        }
+    }
+
+    void complete(BackupMode usedMode) {
+        mode = usedMode;
+        state = GameBackupStatus.State.COMPLETED;
+        onProgress.run();
+        completion.complete(null);
+    }
+
+    void fail(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        errorMessage = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+        state = GameBackupStatus.State.FAILED;
+        onProgress.run();
+        completion.completeExceptionally(cause);
+    }
+
+    public boolean isRunning() {
+        return state == GameBackupStatus.State.RUNNING;
+    }
+
+    /**
+     * @return a future completed when the backup, including the update of its manifest, is finished.
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    public GameBackupStatus getStatus() {
+        return new GameBackupStatus(backupName, state, mode, totalFiles, completedFiles.get(), totalBytes, completedBytes.get(), errorMessage);
+    }
+}
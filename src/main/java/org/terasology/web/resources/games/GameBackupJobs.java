@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.game.GameManifest;
+import org.terasology.utilities.FilesUtil;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.base.ResourceAccessException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Starts the backups of the saved games and keeps track of the latest one of each game; at most one backup
+ * of the same game can run at a time. The backups are created as new saved games, titled after the backup name:
+ * each one is replicated in a hidden directory, which is moved to its final location only once its manifest has been
+ * retitled, so that an incomplete backup is never listed among the saved games.
+ */
+public class GameBackupJobs {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameBackupJobs.class);
+    private static final GameBackupJobs INSTANCE = new GameBackupJobs(GameBackupEngine.getInstance());
+    // created in the saves directory, so the backups can be hard linked and moved, but without a manifest, so it's not a saved game
+    private static final String IN_PROGRESS_DIRECTORY = ".backups-in-progress";
+
+    // the manifest is modified once the backup is created, so it must never be a link to the original one
+    private static final Set<Path> FILES_TO_COPY = Collections.singleton(Paths.get(GameManifest.DEFAULT_FILE_NAME));
+
+    private final GameBackupEngine engine;
+    private final Map<String, GameBackupJob> latestJobs = new ConcurrentHashMap<>();
+    private volatile Runnable onBackupCreatedCallback = () -> { };
+
+    GameBackupJobs(GameBackupEngine engine) {
+        this.engine = engine;
+    }
+
+    public static GameBackupJobs getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param callback called when a backup has been completed, and thus a new saved game is available.
+     */
+    public void setOnBackupCreatedCallback(Runnable callback) {
+        this.onBackupCreatedCallback = callback;
+    }
+
+    /**
+     * @return the running or latest finished backup of the specified game, or null if none has been started.
+     */
+    public GameBackupJob getLatestJob(String gameName) {
+        return latestJobs.get(gameName);
+    }
+
+    /**
+     * @return whether a backup of the specified game is in progress; while it is, the game must not be modified or loaded.
+     */
+    public boolean isRunning(String gameName) {
+        GameBackupJob latestJob = latestJobs.get(gameName);
+        return latestJob != null && latestJob.isRunning();
+    }
+
+    /**
+     * Starts a backup without waiting for it to complete.
+     * @param onProgress called whenever the status of the returned job changes.
+     */
+    public synchronized GameBackupJob start(String gameName, Path gamePath, String backupName, Path backupPath,
+                                            BackupMode mode, Runnable onProgress) throws ResourceAccessException {
+        if (isRunning(gameName)) {
+            throw new ResourceAccessException(new ActionResult(ActionResult.Status.CONFLICT, "A backup of this game is already running."));
+        }
+        Path inProgressPath = backupPath.resolveSibling(IN_PROGRESS_DIRECTORY).resolve(backupPath.getFileName());
+        try {
+            Files.createDirectories(inProgressPath.getParent());
+        } catch (IOException ex) {
+            throw new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR, "Failed to start the backup: " + ex.getMessage()));
+        }
+        GameBackupJob job = new GameBackupJob(backupName, mode, onProgress);
+        latestJobs.put(gameName, job);
+        engine.backup(gamePath, inProgressPath, mode, FILES_TO_COPY, job).thenAccept((usedMode) -> {
+            try {
+                Path backupManifestPath = inProgressPath.resolve(GameManifest.DEFAULT_FILE_NAME);
+                GameManifest backupManifest = GameManifest.load(backupManifestPath);
+                backupManifest.setTitle(backupName);
+                GameManifest.save(backupManifestPath, backupManifest);
+                Files.move(inProgressPath, backupPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                deleteQuietly(inProgressPath);
+                throw new CompletionException(ex);
+            }
+            job.complete(usedMode);
+        }).whenComplete((v, failure) -> {
+            if (failure != null) {
+                job.fail(failure);
+            } else {
+                onBackupCreatedCallback.run();
+            }
+        });
+        return job;
+    }
+
+    private static void deleteQuietly(Path backupPath) {
+        try {
+            FilesUtil.recursiveDelete(backupPath);
+        } catch (IOException ex) {
+            logger.warn("Failed to delete the incomplete backup at " + backupPath, ex);
+        }
+    }
+}
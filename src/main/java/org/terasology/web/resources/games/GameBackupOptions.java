@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+/**
+ * The optional data accepted when a backup is requested.
+ */
+public class GameBackupOptions {
+
+    private BackupMode mode;
+
+    public GameBackupOptions() {
+    }
+
+    public GameBackupOptions(BackupMode mode) {
+        this.mode = mode;
+    }
+
+    public BackupMode getMode() {
+        return mode != null ? mode : BackupMode.AUTO;
+    }
+}
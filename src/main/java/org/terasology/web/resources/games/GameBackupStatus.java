@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+/**
+ * The progress of the latest backup of a game, as returned to the clients.
+ */
+public class GameBackupStatus {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String backupName;
+    private final State state;
+    private final BackupMode mode;
+    private final int totalFiles;
+    private final int completedFiles;
+    private final long totalBytes;
+    private final long completedBytes;
+    private final String errorMessage;
+
+    GameBackupStatus(String backupName, State state, BackupMode mode, int totalFiles, int completedFiles,
+                     long totalBytes, long completedBytes, String errorMessage) {
+        this.backupName = backupName;
+        this.state = state;
+        this.mode = mode;
+        this.totalFiles = totalFiles;
+        this.completedFiles = completedFiles;
+        this.totalBytes = totalBytes;
+        this.completedBytes = completedBytes;
+        this.errorMessage = errorMessage;
+    }
+
+    public String getBackupName() {
+        return backupName;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the mode which has been requested while the backup is running, and the one actually used when it's completed.
+     */
+    public BackupMode getMode() {
+        return mode;
+    }
+
+    public int getTotalFiles() {
+        return totalFiles;
+    }
+
+    public int getCompletedFiles() {
+        return completedFiles;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getCompletedBytes() {
+        return completedBytes;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
@@ -16,62 +16,72 @@
 package org.terasology.web.resources.games;
 
 import org.terasology.engine.paths.PathManager;
-import org.terasology.game.GameManifest;
+import org.terasology.web.ThrowingRunnable;
 import org.terasology.web.io.ActionResult;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ExecutionThread;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.stream.Collectors;
 
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
 import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.performedOn;
 
+/**
+ * Starts the backups of a saved game, which are performed in background by {@link GameBackupJobs}, and returns the status of the latest one;
+ * the changes of the status are notified to the observer while the backup is in progress.
+ */
 public class GamesBackupsResource extends AbstractSimpleResource {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss");
 
     private PathManager pathManager;
     private String gameName;
+    private GameBackupJobs backupJobs;
+    private ThrowingRunnable<ResourceAccessException> backupPrecondition;
 
-    public GamesBackupsResource(PathManager pathManager, String gameName) {
+    /**
+     * @param backupPrecondition called before starting a backup, throws if the game can't be backed up now (e.g. because it's running).
+     */
+    public GamesBackupsResource(PathManager pathManager, String gameName, GameBackupJobs backupJobs,
+                                ThrowingRunnable<ResourceAccessException> backupPrecondition) {
         this.pathManager = pathManager;
         this.gameName = gameName;
+        this.backupJobs = backupJobs;
+        this.backupPrecondition = backupPrecondition;
     }
 
     @Override
-    protected ResourceMethod<Void, Void> getPostMethod(ResourcePath path) throws ResourceAccessException {
-        return createVoidParameterlessMethod(path, ClientSecurityRequirements.REQUIRE_ADMIN, Void.class,
-                (data, client) -> performBackup());
+    protected ResourceMethod<Void, GameBackupStatus> getGetMethod(ResourcePath path) throws ResourceAccessException {
+        return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> {
+            GameBackupJob latestJob = backupJobs.getLatestJob(gameName);
+            if (latestJob == null) {
+                throw ResourceAccessException.NOT_FOUND;
+            }
+            return latestJob.getStatus();
+        });
     }
 
-    private void performBackup() throws ResourceAccessException {
-        String backupName = gameName + "_backup_" + LocalDateTime.now().format(DATE_FORMATTER);
-        Path srcGamePath = pathManager.getSavePath(gameName);
-        Path dstGamePath = pathManager.getSavePath(backupName);
-        try {
-            copyRecursive(srcGamePath, dstGamePath);
-            Path backupManifestPath = dstGamePath.resolve(GameManifest.DEFAULT_FILE_NAME);
-            GameManifest backupManifest = GameManifest.load(backupManifestPath);
-            backupManifest.setTitle(backupName);
-            GameManifest.save(backupManifestPath, backupManifest);
-        } catch (IOException ex) {
-            throw new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR, ex.getMessage()));
-        }
+    @Override
+    protected ResourceMethod<GameBackupOptions, Void> getPostMethod(ResourcePath path) throws ResourceAccessException {
+        return performedOn(ExecutionThread.BACKGROUND, createVoidParameterlessMethod(path, ClientSecurityRequirements.REQUIRE_ADMIN, GameBackupOptions.class,
+                (data, client) -> startBackup(data != null ? data.getMode() : BackupMode.AUTO)));
     }
 
-    private void copyRecursive(Path src, Path dst) throws IOException {
-        List<Path> files = Files.walk(src).collect(Collectors.toList());
-        for (Path file: files) {
-            Path relative = src.relativize(file);
-            Files.copy(file, dst.resolve(relative));
+    private void startBackup(BackupMode mode) throws ResourceAccessException {
+        backupPrecondition.run();
+        String backupName = gameName + "_backup_" + LocalDateTime.now().format(DATE_FORMATTER);
+        Path srcGamePath = pathManager.getSavePath(gameName);
+        if (!Files.isDirectory(srcGamePath)) {
+            throw new ResourceAccessException(new ActionResult(ActionResult.Status.NOT_FOUND, "The specified path does not exist or isn't a valid savegame."));
         }
+        backupJobs.start(gameName, srcGamePath, backupName, pathManager.getSavePath(backupName), mode, this::notifyChangedForAllClients);
     }
 }
@@ -23,6 +23,8 @@ import org.terasology.rendering.nui.layers.mainMenu.savedGames.GameInfo;
 import org.terasology.rendering.nui.layers.mainMenu.savedGames.GameProvider;
 import org.terasology.web.EngineRunner;
 import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.base.ExecutionThread;
+import org.terasology.web.resources.base.ItemResourceMethod;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.StreamBasedItemCollectionResource;
@@ -31,15 +33,28 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.stream.Stream;
 
-import static org.terasology.web.resources.base.ResourceMethodFactory.decorateMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createItemMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.performedOn;
 
 public class GamesResource extends StreamBasedItemCollectionResource<GameInfo> {
 
     @In
     private ModuleManager moduleManager;
 
+    private final GameBackupJobs backupJobs;
+
     public GamesResource() {
-        super(Collections.singletonMap("backup", (gameName) -> new GamesBackupsResource(PathManager.getInstance(), gameName)));
+        this(GameBackupJobs.getInstance());
+    }
+
+    private GamesResource(GameBackupJobs backupJobs) {
+        // only starting a backup is forbidden while the game runs, its status can still be read
+        super(Collections.singletonMap("backup", (gameName) -> new GamesBackupsResource(PathManager.getInstance(), gameName, backupJobs,
+                () -> checkGameIsNotRunningOrLoading(gameName))));
+        this.backupJobs = backupJobs;
+        // the backups are created in background, so the list is updated when they complete rather than after the requests
+        backupJobs.setOnBackupCreatedCallback(this::notifyChangedForAllClients);
     }
 
     @Override
@@ -49,47 +64,63 @@ public class GamesResource extends StreamBasedItemCollectionResource<GameInfo> {
     }
 
     @Override
-    protected boolean itemMatchesId(String itemId, GameInfo item) {
-        return false;
+    protected ExecutionThread getGetMethodExecutionThread() {
+        // the manifests of the saved games are read from the disk
+        return ExecutionThread.BACKGROUND;
     }
 
     @Override
-    protected void beforeSubResourceAccess(String subResourceName, String itemId) throws ResourceAccessException {
-        checkGameIsNotRunningOrLoading(itemId);
-    }
-
-    @Override
-    protected void afterSubResourceAccess(String subResourceName, String itemId) {
-        notifyChangedForAllClients();
+    protected boolean itemMatchesId(String itemId, GameInfo item) {
+        return false;
     }
 
     @Override
     protected ResourceMethod<NewGameMetadata, Void> getPostCollectionMethod() throws ResourceAccessException {
-        return decorateMethodWithNotifier(new NewGameMethod(PathManager.getInstance(), moduleManager));
+        // the actual methods are created when performed, since they depend on the current module registry and save path,
+        // so the permissions and input type are checked here with the ones declared by the method classes
+        return performedOn(ExecutionThread.BACKGROUND, createParameterlessMethod(NewGameMethod.SECURITY_REQUIREMENTS, NewGameMethod.IN_TYPE,
+                (data, client) -> {
+            new NewGameMethod(PathManager.getInstance(), moduleManager).perform(data, client);
+            notifyChangedForAllClients();
+            return null;
+        }));
     }
 
     @Override
-    protected ResourceMethod<Void, Void> getDeleteItemMethod(String itemId) throws ResourceAccessException {
-        return decorateMethodForExistingGame(itemId, new DeleteGameMethod(PathManager.getInstance(), itemId));
+    protected ItemResourceMethod<Void, Void> getDeleteItemMethod() throws ResourceAccessException {
+        return performedOn(ExecutionThread.BACKGROUND, createItemMethod(DeleteGameMethod.SECURITY_REQUIREMENTS, DeleteGameMethod.IN_TYPE,
+                (data, gameName, client) -> {
+            checkGameIsNotRunningOrLoading(gameName);
+            checkGameIsNotBeingBackedUp(gameName);
+            new DeleteGameMethod(PathManager.getInstance(), gameName).perform(data, client);
+            notifyChangedForAllClients();
+            return null;
+        }));
     }
 
     @Override
-    protected ResourceMethod<NewGameMetadata, Void> getPatchItemMethod(String itemId) throws ResourceAccessException {
-        return decorateMethodForExistingGame(itemId, new PatchGameMethod(PathManager.getInstance(), itemId));
-    }
-
-    private <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> decorateMethodWithNotifier(ResourceMethod<INTYPE, OUTTYPE> base) {
-        return decorateMethod(base, () -> { }, this::notifyChangedForAllClients);
-    }
-
-    private <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> decorateMethodForExistingGame(String gameName, ResourceMethod<INTYPE, OUTTYPE> base) {
-        return decorateMethod(base, () -> checkGameIsNotRunningOrLoading(gameName), this::notifyChangedForAllClients);
+    protected ItemResourceMethod<NewGameMetadata, Void> getPatchItemMethod() throws ResourceAccessException {
+        return performedOn(ExecutionThread.BACKGROUND, createItemMethod(PatchGameMethod.SECURITY_REQUIREMENTS, PatchGameMethod.IN_TYPE,
+                (data, gameName, client) -> {
+            checkGameIsNotRunningOrLoading(gameName);
+            checkGameIsNotBeingBackedUp(gameName);
+            new PatchGameMethod(PathManager.getInstance(), gameName).perform(data, client);
+            notifyChangedForAllClients();
+            return null;
+        }));
     }
 
-    private void checkGameIsNotRunningOrLoading(String gameName) throws ResourceAccessException {
+    private static void checkGameIsNotRunningOrLoading(String gameName) throws ResourceAccessException {
         if (gameName.equals(EngineRunner.getInstance().getRunningOrLoadingGameName())) {
             throw new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR,
                     "This action cannot be performed on a game which is running or loading."));
         }
     }
+
+    private void checkGameIsNotBeingBackedUp(String gameName) throws ResourceAccessException {
+        if (backupJobs.isRunning(gameName)) {
+            throw new ResourceAccessException(new ActionResult(ActionResult.Status.CONFLICT,
+                    "This action cannot be performed on a game which is being backed up."));
+        }
+    }
 }
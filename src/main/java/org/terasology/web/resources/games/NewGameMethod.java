@@ -39,11 +39,14 @@ import static org.terasology.web.resources.InputCheckUtils.checkNotNullOrEmpty;
 
 public class NewGameMethod extends ResourceMethodImpl<NewGameMetadata, Void> {
 
+    static final Class<NewGameMetadata> IN_TYPE = NewGameMetadata.class;
+    static final ClientSecurityRequirements SECURITY_REQUIREMENTS = ClientSecurityRequirements.REQUIRE_ADMIN;
+
     private PathManager pathManager;
     private DependencyResolver dependencyResolver;
 
     public NewGameMethod(PathManager pathManager, DependencyResolver dependencyResolver) {
-        super(NewGameMetadata.class, ClientSecurityRequirements.REQUIRE_ADMIN, null);
+        super(IN_TYPE, SECURITY_REQUIREMENTS, null);
         this.pathManager = pathManager;
         this.dependencyResolver = dependencyResolver;
     }
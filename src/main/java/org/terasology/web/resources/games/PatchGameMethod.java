@@ -32,11 +32,14 @@ import static org.terasology.web.resources.InputCheckUtils.checkNull;
 
 public class PatchGameMethod extends ResourceMethodImpl<NewGameMetadata, Void> {
 
+    static final Class<NewGameMetadata> IN_TYPE = NewGameMetadata.class;
+    static final ClientSecurityRequirements SECURITY_REQUIREMENTS = ClientSecurityRequirements.REQUIRE_ADMIN;
+
     private PathManager pathManager;
     private String gameName;
 
     public PatchGameMethod(PathManager pathManager, String gameName) {
-        super(NewGameMetadata.class, ClientSecurityRequirements.REQUIRE_ADMIN, null);
+        super(IN_TYPE, SECURITY_REQUIREMENTS, null);
         this.pathManager = pathManager;
         this.gameName = gameName;
     }
@@ -25,6 +25,7 @@ import org.terasology.web.io.ActionResult;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ExecutionThread;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
 import org.terasology.world.generator.internal.WorldGeneratorManager;
@@ -40,6 +41,7 @@ import java.util.concurrent.Future;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
 import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.performedOn;
 
 public class ModuleInstallerResource extends AbstractSimpleResource {
 
@@ -59,8 +61,9 @@ public class ModuleInstallerResource extends AbstractSimpleResource {
 
     @Override
     protected ResourceMethod<Name[], Void> getPutMethod(ResourcePath path) throws ResourceAccessException {
-        return createVoidParameterlessMethod(path, ClientSecurityRequirements.REQUIRE_ADMIN, Name[].class,
-                (data, client) -> installModules(data));
+        // updating the remote registry and resolving the dependencies requires network access
+        return performedOn(ExecutionThread.BACKGROUND, createVoidParameterlessMethod(path, ClientSecurityRequirements.REQUIRE_ADMIN, Name[].class,
+                (data, client) -> installModules(data)));
     }
 
     private void installModules(Name[] moduleNames) throws ResourceAccessException {
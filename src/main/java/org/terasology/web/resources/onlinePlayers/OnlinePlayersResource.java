@@ -26,6 +26,7 @@ import org.terasology.web.resources.DefaultComponentSystem;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ExecutionThread;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
 
@@ -34,6 +35,7 @@ import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.performedOn;
 
 @RegisterSystem
 public class OnlinePlayersResource extends AbstractSimpleResource implements DefaultComponentSystem {
@@ -53,9 +55,9 @@ public class OnlinePlayersResource extends AbstractSimpleResource implements Def
 
     @Override
     protected ResourceMethod<Void, List<OnlinePlayerMetadata>> getGetMethod(ResourcePath path) throws ResourceAccessException {
-        return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (data, client) ->
+        return performedOn(ExecutionThread.ENGINE, createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (data, client) ->
                 StreamSupport.stream(networkSystem.getPlayers().spliterator(), true)
                     .map(OnlinePlayerMetadata::new)
-                    .collect(Collectors.toList()));
+                    .collect(Collectors.toList())));
     }
 }
@@ -18,13 +18,14 @@ package org.terasology.web.resources.serverAdmins;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.AbstractItemCollectionResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ItemResourceMethod;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.serverAdminManagement.ServerAdminsManager;
 
 import java.util.Set;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
-import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidItemMethod;
 
 public class ServerAdminsResource extends AbstractItemCollectionResource {
 
@@ -39,14 +40,14 @@ public class ServerAdminsResource extends AbstractItemCollectionResource {
     }
 
     @Override
-    protected ResourceMethod<Void, Void> getPostItemMethod(String itemId) throws ResourceAccessException {
-        return createVoidParameterlessMethod(ClientSecurityRequirements.REQUIRE_ADMIN, Void.class,
-                (data, client) -> ServerAdminsManager.getInstance().addAdmin(itemId));
+    protected ItemResourceMethod<Void, Void> getPostItemMethod() throws ResourceAccessException {
+        return createVoidItemMethod(ClientSecurityRequirements.REQUIRE_ADMIN, Void.class,
+                (data, itemId, client) -> ServerAdminsManager.getInstance().addAdmin(itemId));
     }
 
     @Override
-    protected ResourceMethod<Void, Void> getDeleteItemMethod(String itemId) throws ResourceAccessException {
-        return createVoidParameterlessMethod(ClientSecurityRequirements.REQUIRE_ADMIN, Void.class,
-                (data, client) -> ServerAdminsManager.getInstance().removeAdmin(itemId));
+    protected ItemResourceMethod<Void, Void> getDeleteItemMethod() throws ResourceAccessException {
+        return createVoidItemMethod(ClientSecurityRequirements.REQUIRE_ADMIN, Void.class,
+                (data, itemId, client) -> ServerAdminsManager.getInstance().removeAdmin(itemId));
     }
 }
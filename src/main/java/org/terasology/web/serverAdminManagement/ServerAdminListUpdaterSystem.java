@@ -26,9 +26,4 @@ public class ServerAdminListUpdaterSystem extends BaseComponentSystem {
     public void onConnected(ConnectedEvent event, EntityRef entityRef) {
         ServerAdminsManager.getInstance().addFirstAdminIfNecessary(event.getPlayerStore().getId());
     }
-
-    @Override
-    public void postSave() {
-        ServerAdminsManager.getInstance().saveAdminList();
-    }
 }
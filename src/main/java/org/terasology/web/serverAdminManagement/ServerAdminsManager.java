@@ -15,45 +15,70 @@
  */
 package org.terasology.web.serverAdminManagement;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.paths.PathManager;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.Collections;
+import java.nio.file.StandardCopyOption;
 import java.util.HashSet;
 import java.util.Set;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the list of the server admins in an immutable snapshot, which is read without locking by the permission checks
+ * and replaced as a whole when the list changes. With auto save enabled, the changes are written to the file in the background,
+ * merging those which happen in a short time in a single write.
+ */
 public final class ServerAdminsManager {
 
     private static final Logger logger = LoggerFactory.getLogger(ServerAdminsManager.class);
     private static final Gson GSON = new Gson();
     private static final ServerAdminsManager INSTANCE = new ServerAdminsManager(PathManager.getInstance().getHomePath().resolve("serverAdmins.json"), true);
+    // the time waited after a change before writing the file, so that the following changes are saved with the same write
+    private static final long SAVE_DELAY_MILLIS = 500;
 
     private final Path adminListFilePath;
     private final boolean autoSave;
-    private Set<String> serverAdminIds;
+    private volatile Set<String> serverAdminIds = ImmutableSet.of();
+    // incremented after every change of the list, so that the permissions derived from it can be cached until the next one
+    private final AtomicLong adminListVersion = new AtomicLong();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    // serializes the writes of the file, without blocking the changes of the list meanwhile
+    private final Object saveLock = new Object();
+    // the version of the list in the file; guarded by saveLock
+    private long savedVersion;
+    private ScheduledExecutorService saveExecutor;
     private Runnable onListChanged = () -> { };
 
     ServerAdminsManager(Path adminListFilePath, boolean autoSave) {
         this.adminListFilePath = adminListFilePath;
         this.autoSave = autoSave;
-        setServerAdminIds(new HashSet<>());
+        if (autoSave) {
+            saveExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("server-admins-writer-%d").setDaemon(true).build());
+            // the writer thread doesn't keep the server running, so the last changes are written on exit
+            Runtime.getRuntime().addShutdownHook(new Thread(this::saveIfChanged, "server-admins-flush"));
+        }
     }
 
     public static ServerAdminsManager getInstance() {
         return INSTANCE;
     }
 
-    private void setServerAdminIds(Set<String> value) {
-        serverAdminIds = Collections.synchronizedSet(value);
-    }
-
     public void setOnListChangedCallback(Runnable callback) {
         onListChanged = callback;
     }
@@ -61,61 +86,117 @@ public final class ServerAdminsManager {
     @SuppressWarnings("unchecked")
     public void loadAdminList() {
         Set<String> newValue;
-        try {
-            newValue = GSON.fromJson(Files.newBufferedReader(adminListFilePath), Set.class);
+        try (Reader reader = Files.newBufferedReader(adminListFilePath)) {
+            newValue = GSON.fromJson(reader, Set.class);
         } catch (IOException ex) {
             logger.warn("Failed to load serverAdmins.json. " +
                     "WARNING: anonymous admin access is now allowed until an user (which will be registered as admin) connects using the regular Terasology client!");
             newValue = new HashSet<>();
         }
-        setServerAdminIds(newValue);
+        Set<String> loadedValue = ImmutableSet.copyOf(newValue);
+        synchronized (saveLock) {
+            synchronized (this) {
+                serverAdminIds = loadedValue;
+                savedVersion = adminListVersion.incrementAndGet();
+            }
+        }
     }
 
+    /**
+     * Writes the current list to the file, replacing it atomically, and waits for the write to complete.
+     */
     public void saveAdminList() {
-        try {
-            try (Writer writer = Files.newBufferedWriter(adminListFilePath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                GSON.toJson(serverAdminIds, writer);
+        synchronized (saveLock) {
+            long version;
+            Set<String> snapshot;
+            synchronized (this) {
+                version = adminListVersion.get();
+                snapshot = serverAdminIds;
+            }
+            Path tempFilePath = adminListFilePath.resolveSibling(adminListFilePath.getFileName() + ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(tempFilePath)) {
+                    GSON.toJson(snapshot, writer);
+                }
+                try {
+                    Files.move(tempFilePath, adminListFilePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tempFilePath, adminListFilePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                savedVersion = version;
+            } catch (IOException ex) {
+                logger.warn("Failed to save serverAdmins.json", ex);
             }
-        } catch (IOException ex) {
-            logger.warn("Failed to save serverAdmins.json", ex);
+        }
+    }
+
+    private void saveIfChanged() {
+        synchronized (saveLock) {
+            if (savedVersion != adminListVersion.get()) {
+                saveAdminList();
+            }
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            saveExecutor.schedule(() -> {
+                // reset before writing, so that a change made during the write schedules another one
+                saveScheduled.set(false);
+                saveIfChanged();
+            }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
         }
     }
 
     public boolean clientHasAdminPermissions(String clientId) {
-        return isAnonymousAdminAccessEnabled() || clientIsInAdminList(clientId);
+        Set<String> snapshot = serverAdminIds;
+        return snapshot.isEmpty() || snapshot.contains(clientId);
     }
 
     public boolean isAnonymousAdminAccessEnabled() {
         return serverAdminIds.isEmpty();
     }
 
-    private boolean clientIsInAdminList(String clientId) {
-        return serverAdminIds.contains(clientId);
+    /**
+     * @return the current version of the list, which changes every time the list changes.
+     */
+    public long getAdminListVersion() {
+        return adminListVersion.get();
     }
 
     public void addAdmin(String id) {
-        serverAdminIds.add(id);
-        if (autoSave) {
-            saveAdminList();
-        }
-        onListChanged.run();
+        updateAdminList((newValue) -> newValue.add(id));
     }
 
     public void removeAdmin(String id) {
-        serverAdminIds.remove(id);
+        updateAdminList((newValue) -> newValue.remove(id));
+    }
+
+    /**
+     * @param change modifies a copy of the current list, returning whether it has actually changed it.
+     */
+    private void updateAdminList(Predicate<Set<String>> change) {
+        // the changes copy the current snapshot one at a time, so that none is lost
+        synchronized (this) {
+            Set<String> newValue = new HashSet<>(serverAdminIds);
+            if (!change.test(newValue)) {
+                return;
+            }
+            serverAdminIds = ImmutableSet.copyOf(newValue);
+            adminListVersion.incrementAndGet();
+        }
         if (autoSave) {
-            saveAdminList();
+            scheduleSave();
         }
         onListChanged.run();
     }
 
     public Set<String> getAdminIds() {
-        return Collections.unmodifiableSet(serverAdminIds);
+        return serverAdminIds;
     }
 
     public void addFirstAdminIfNecessary(String id) {
-        if (isAnonymousAdminAccessEnabled()) {
-            addAdmin(id);
-        }
+        // checked again on the copy, so that two clients connecting at the same time can't both become admins
+        updateAdminList((newValue) -> newValue.isEmpty() && newValue.add(id));
     }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.servlet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fixed-capacity buffer of events, each identified by an increasing sequence number.
+ * Readers keep their own cursor (the sequence number of the next event they want to read), so reading doesn't remove
+ * the events from the buffer; when the buffer is full, appending an event overwrites the oldest one,
+ * and readers which hadn't read it yet are told how many events they missed.
+ */
+public class EventRingBuffer<T> {
+
+    private final Object[] items;
+    private long nextSequence;
+
+    public EventRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        items = new Object[capacity];
+    }
+
+    /**
+     * @return the sequence number assigned to the appended item.
+     */
+    public synchronized long append(T item) {
+        items[(int) (nextSequence % items.length)] = item;
+        return nextSequence++;
+    }
+
+    /**
+     * @return the sequence number which will be assigned to the next appended item.
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * @param cursor the sequence number of the first item to read.
+     * @return the items from the cursor (or from the oldest available one, if older items have been overwritten) to the newest one.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized ReadResult<T> readFrom(long cursor) {
+        long oldestAvailable = Math.max(0, nextSequence - items.length);
+        long start = Math.max(cursor, oldestAvailable);
+        if (start >= nextSequence) {
+            return new ReadResult<>(Collections.emptyList(), Math.max(0, oldestAvailable - cursor), nextSequence);
+        }
+        List<T> result = new ArrayList<>((int) (nextSequence - start));
+        for (long sequence = start; sequence < nextSequence; sequence++) {
+            result.add((T) items[(int) (sequence % items.length)]);
+        }
+        return new ReadResult<>(result, Math.max(0, oldestAvailable - cursor), nextSequence);
+    }
+
+    public static final class ReadResult<T> {
+        private final List<T> items;
+        private final long missedItems;
+        private final long nextCursor;
+
+        private ReadResult(List<T> items, long missedItems, long nextCursor) {
+            this.items = items;
+            this.missedItems = missedItems;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+
+        /**
+         * @return the number of items which had already been overwritten when the read was performed.
+         */
+        public long getMissedItems() {
+            return missedItems;
+        }
+
+        /**
+         * @return the cursor to use for the next read.
+         */
+        public long getNextCursor() {
+            return nextCursor;
+        }
+    }
+}
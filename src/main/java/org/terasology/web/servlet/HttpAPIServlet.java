@@ -15,7 +15,11 @@
  */
 package org.terasology.web.servlet;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonElement;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.SseFeature;
+import org.terasology.web.metrics.MetricsRegistry;
 import org.terasology.web.io.ActionResult;
 import org.terasology.web.io.JsonSession;
 import org.terasology.web.resources.base.ResourceMethodName;
@@ -24,33 +28,73 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Path("api")
 public class HttpAPIServlet {
 
+    public static final long DEFAULT_SESSION_TIME_TO_LIVE_SECONDS = 30 * 60;
+
     private static final String SESSION_TOKEN_HEADER = "Session-Token";
     private static final String RESOURCE_PATH_MATCHER = "resources/{resourcePath: .+?}";
     private static final String RESOURCE_PATH_PARAM = "resourcePath";
+    // must stay below the idle timeout of the Jetty connectors (30 seconds by default)
+    private static final int MAX_EVENTS_WAIT_SECONDS = 25;
+    private static final int EVENT_RESPONSE_THREADS = 2;
+
+    private final HttpSessionManager sessions;
+    private final Map<String, SseEventStream> eventStreams = new ConcurrentHashMap<>(); //maps session tokens with their open event stream
+    private final int eventBufferCapacity;
+    // completes the long-polling event requests, so that the thread which emitted the event doesn't write the response;
+    // an event can wake many waiting requests at once, so they are queued to a few threads rather than each getting one
+    private final ExecutorService eventResponseExecutor = Executors.newFixedThreadPool(EVENT_RESPONSE_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("http-events-%d").setDaemon(true).build());
+    private volatile JsonSession anonymousSession;
 
-    private final Map<String, JsonSessionWithEventQueue> sessions = new HashMap<>(); //maps session tokens with the active sessions
-    private JsonSession anonymousSession;
+    /**
+     * @param eventBufferCapacity the maximum number of events kept for each session until they are read from the events endpoint.
+     * @param sessionTimeToLiveSeconds the time after which a session which hasn't been used is closed.
+     */
+    public HttpAPIServlet(int eventBufferCapacity, long sessionTimeToLiveSeconds) {
+        this.eventBufferCapacity = eventBufferCapacity;
+        this.sessions = new HttpSessionManager(sessionTimeToLiveSeconds, TimeUnit.SECONDS, this::closeSession);
+        MetricsRegistry.getInstance().register("http.sessions", sessions::getActiveSessions);
+        MetricsRegistry.getInstance().register("http.evictedSessions", sessions::getEvictedSessions);
+        MetricsRegistry.getInstance().register("http.eventStreams", eventStreams::size);
+    }
+
+    public HttpAPIServlet() {
+        this(JsonSessionWithEventQueue.DEFAULT_EVENT_BUFFER_CAPACITY, DEFAULT_SESSION_TIME_TO_LIVE_SECONDS);
+    }
 
     private JsonSessionWithEventQueue getSessionWithEventQueue(String token) {
-        JsonSessionWithEventQueue session = sessions.get(token);
+        JsonSessionWithEventQueue session = token == null ? null : sessions.get(token);
         if (session == null) {
             //non-existing token -> forbidden
             throw new JsonWebApplicationException("Invalid session token", Response.Status.FORBIDDEN);
@@ -65,22 +109,33 @@ public class HttpAPIServlet {
     private JsonSession getSession(HttpServletRequest request) {
         String token = request.getHeader(SESSION_TOKEN_HEADER);
         if (token == null) {
-            if (anonymousSession == null) {
-                anonymousSession = new JsonSession();
-            }
-            return anonymousSession;
+            return getAnonymousSession();
         }
         return getSessionWithEventQueue(token).getSession();
     }
 
+    private JsonSession getAnonymousSession() {
+        JsonSession result = anonymousSession;
+        if (result == null) {
+            synchronized (this) {
+                result = anonymousSession;
+                if (result == null) {
+                    result = new JsonSession();
+                    anonymousSession = result;
+                }
+            }
+        }
+        return result;
+    }
+
     @GET
     @Path("auth")
     @Produces(MediaType.APPLICATION_JSON)
     public ActionResult initAuthentication(@Context HttpServletResponse response) {
         //initialize new session
         String sessionId = UUID.randomUUID().toString();
-        JsonSessionWithEventQueue session = new JsonSessionWithEventQueue();
-        sessions.put(sessionId, session);
+        JsonSessionWithEventQueue session = new JsonSessionWithEventQueue(eventBufferCapacity);
+        sessions.add(sessionId, session);
         response.setHeader(SESSION_TOKEN_HEADER, sessionId);
         return session.getSession().initAuthentication();
     }
@@ -103,65 +158,195 @@ public class HttpAPIServlet {
     @Produces(MediaType.APPLICATION_JSON)
     public ActionResult logout(@Context HttpServletRequest request) {
         String token = request.getHeader(SESSION_TOKEN_HEADER);
-        if (!sessions.containsKey(token)) {
+        JsonSessionWithEventQueue session = token == null ? null : sessions.remove(token);
+        if (session == null) {
             throw new JsonWebApplicationException("Invalid session token", Response.Status.NOT_FOUND);
         }
-        sessions.get(token).getSession().disconnect();
-        sessions.remove(token);
+        closeSession(token, session);
         return ActionResult.OK;
     }
 
+    private void closeSession(String token, JsonSessionWithEventQueue session) {
+        SseEventStream eventStream = eventStreams.get(token);
+        if (eventStream != null) {
+            eventStream.close();
+        }
+        session.getSession().disconnect(); //also unregisters the client from the ResourceManager
+    }
+
+    /**
+     * Returns the events received by the session since the previous request.
+     * If waitSeconds is positive and there are no events, the request is suspended (without holding a server thread)
+     * until an event arrives or the specified time (at most {@link #MAX_EVENTS_WAIT_SECONDS}) elapses.
+     */
     @GET
     @Path("events")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<JsonSessionWithEventQueue.ResourceEvent> getEvents(@Context HttpServletRequest request) {
-        return getSessionWithEventQueue(request).drainEventQueue();
+    public void getEvents(@QueryParam("wait") @DefaultValue("0") int waitSeconds, @Context HttpServletRequest request,
+                          @Suspended AsyncResponse asyncResponse) {
+        JsonSessionWithEventQueue session;
+        try {
+            session = getSessionWithEventQueue(request);
+        } catch (JsonWebApplicationException ex) {
+            asyncResponse.resume(ex);
+            return;
+        }
+        if (waitSeconds <= 0) {
+            asyncResponse.resume(session.drainEventQueue());
+            return;
+        }
+        // either the listener or the timeout handler drains the queue, but not both, so that no events are lost
+        AtomicBoolean completed = new AtomicBoolean();
+        Runnable eventListener = () -> {
+            if (completed.compareAndSet(false, true)) {
+                eventResponseExecutor.execute(() -> asyncResponse.resume(session.drainEventQueue()));
+            }
+        };
+        asyncResponse.setTimeout(Math.min(waitSeconds, MAX_EVENTS_WAIT_SECONDS), TimeUnit.SECONDS);
+        asyncResponse.setTimeoutHandler((response) -> {
+            session.removeEventWaiter(eventListener);
+            if (completed.compareAndSet(false, true)) {
+                response.resume(session.drainEventQueue());
+            }
+        });
+        session.whenEventsAvailable(eventListener);
+    }
+
+    /**
+     * Opens a Server-Sent Events stream which carries both the resource events (as with the events endpoint) and the resource changes
+     * (as with WebSocket) for the session; a session has at most one open stream, so opening a new one closes the previous.
+     */
+    @GET
+    @Path("stream")
+    @Produces(SseFeature.SERVER_SENT_EVENTS)
+    public EventOutput openEventStream(@HeaderParam(SseFeature.LAST_EVENT_ID_HEADER) String lastEventId, @Context HttpServletRequest request) {
+        String token = request.getHeader(SESSION_TOKEN_HEADER);
+        JsonSessionWithEventQueue session = getSessionWithEventQueue(token);
+        EventOutput output = new EventOutput();
+        SseEventStream stream = new SseEventStream(session, output, getFirstStreamedEvent(session, lastEventId),
+                () -> sessions.touch(token), (closedStream) -> eventStreams.remove(token, closedStream));
+        SseEventStream previous = eventStreams.put(token, stream);
+        if (previous != null) {
+            previous.close();
+        }
+        stream.open();
+        return output;
+    }
+
+    private long getFirstStreamedEvent(JsonSessionWithEventQueue session, String lastEventId) {
+        if (lastEventId != null) {
+            try {
+                return Long.parseLong(lastEventId) + 1; //resume after the last event received by the client
+            } catch (NumberFormatException ex) {
+                throw new JsonWebApplicationException("Invalid Last-Event-ID header", Response.Status.BAD_REQUEST);
+            }
+        }
+        return session.getReadCursor(); //start from the events which haven't been read from the events endpoint
     }
 
+    /**
+     * Supports conditional requests: the response has an ETag header derived from the resource state, and if the If-None-Match
+     * header contains the same tag the response is 304 Not Modified without a body. The state of most resources is cached,
+     * so in this case it's not even recomputed.
+     */
     @GET
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourceGet(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourceGet(JsonElement data, @Context HttpServletRequest request, @Context Request conditions,
+                                  @PathParam(RESOURCE_PATH_PARAM) String resourcePath, @Suspended AsyncResponse asyncResponse) {
+        resume(asyncResponse, accessResource(data, request, resourcePath).thenApply((result) -> {
+            if (result.getEntityTag() != null) {
+                Response.ResponseBuilder notModifiedResponse = conditions.evaluatePreconditions(new EntityTag(result.getEntityTag()));
+                if (notModifiedResponse != null) {
+                    return notModifiedResponse.build();
+                }
+            }
+            return Response.ok(result).build();
+        }));
     }
 
     @POST
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourcePost(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourcePost(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                   @Suspended AsyncResponse asyncResponse) {
+        resume(asyncResponse, accessResource(data, request, resourcePath));
     }
 
     @PUT
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourcePut(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourcePut(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                  @Suspended AsyncResponse asyncResponse) {
+        resume(asyncResponse, accessResource(data, request, resourcePath));
     }
 
     @DELETE
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourceDelete(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourceDelete(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                     @Suspended AsyncResponse asyncResponse) {
+        resume(asyncResponse, accessResource(data, request, resourcePath));
     }
 
     @PATCH
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourcePatch(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourcePatch(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                    @Suspended AsyncResponse asyncResponse) {
+        resume(asyncResponse, accessResource(data, request, resourcePath));
     }
 
-    private ActionResult accessResource(JsonElement data, HttpServletRequest request, String resourcePath) {
+    /**
+     * Performs several resource requests at once; the response data is the array of their results, each with the same keys
+     * as a WebSocket ACTION_RESULT message, and the status of the response is 200 even if some of the requests have failed.
+     */
+    @POST
+    @Path("batch")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void accessResourceBatch(JsonElement data, @Context HttpServletRequest request, @Suspended AsyncResponse asyncResponse) {
+        JsonSession session;
+        try {
+            session = getSession(request);
+        } catch (JsonWebApplicationException ex) {
+            asyncResponse.resume(ex);
+            return;
+        }
+        resume(asyncResponse, session.accessResourceBatchAsync(data));
+    }
+
+    /**
+     * The resource methods may be performed on the engine thread or on a background pool, so the requests are suspended
+     * (without holding a server thread) until they're complete.
+     */
+    private CompletableFuture<ActionResult> accessResource(JsonElement data, HttpServletRequest request, String resourcePath) {
         List<String> splitPath = Arrays.asList(resourcePath.split("/"));
         ResourceMethodName resourceMethodName = ResourceMethodName.valueOf(request.getMethod());
-        return getSession(request).accessResource(splitPath, resourceMethodName, data);
+        JsonSession session;
+        try {
+            session = getSession(request);
+        } catch (JsonWebApplicationException ex) {
+            CompletableFuture<ActionResult> result = new CompletableFuture<>();
+            result.completeExceptionally(ex);
+            return result;
+        }
+        return session.accessResourceAsync(splitPath, resourceMethodName, data);
+    }
+
+    private static void resume(AsyncResponse asyncResponse, CompletableFuture<?> result) {
+        result.whenComplete((response, failure) -> {
+            if (failure != null) {
+                asyncResponse.resume(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+            } else {
+                asyncResponse.resume(response);
+            }
+        });
     }
 
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.servlet;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the HTTP API sessions by token, and closes the ones which haven't been used for longer than a configurable time to live.
+ * Expiration is tracked with a hashed timing wheel: using a session only updates its last access time, and at every tick only
+ * the sessions in the current slot of the wheel are checked; the ones which have been used in the meantime are moved to the slot
+ * of their new deadline instead of being closed.
+ */
+public class HttpSessionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpSessionManager.class);
+    private static final int WHEEL_SIZE = 128;
+
+    private static final class Entry {
+        private final String token;
+        private final JsonSessionWithEventQueue session;
+        private volatile long lastAccessTime;
+
+        private Entry(String token, JsonSessionWithEventQueue session, long lastAccessTime) {
+            this.token = token;
+            this.session = session;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> sessions = new ConcurrentHashMap<>();
+    private final List<Set<Entry>> wheel;
+    private final long timeToLiveNanos;
+    private final long tickNanos;
+    private final LongSupplier clock;
+    private final BiConsumer<String, JsonSessionWithEventQueue> evictionHandler;
+    private final AtomicLong evictedSessions = new AtomicLong();
+    private long nextTick;
+
+    /**
+     * @param clock returns the current time in nanoseconds, like {@link System#nanoTime()}.
+     * @param evictionHandler called, after the session has been removed, to close a session which has expired.
+     */
+    HttpSessionManager(long timeToLive, TimeUnit unit, LongSupplier clock, BiConsumer<String, JsonSessionWithEventQueue> evictionHandler) {
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        // the wheel spans the time to live, so a touched session is moved at most once per revolution
+        this.tickNanos = Math.max(timeToLiveNanos / WHEEL_SIZE, TimeUnit.MILLISECONDS.toNanos(1));
+        this.clock = clock;
+        this.evictionHandler = evictionHandler;
+        wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(ConcurrentHashMap.newKeySet());
+        }
+        nextTick = getTick(clock.getAsLong());
+    }
+
+    public HttpSessionManager(long timeToLive, TimeUnit unit, BiConsumer<String, JsonSessionWithEventQueue> evictionHandler) {
+        this(timeToLive, unit, System::nanoTime, evictionHandler);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("http-session-expiry").setDaemon(true).build());
+        scheduler.scheduleAtFixedRate(this::expireIdleSessions, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void add(String token, JsonSessionWithEventQueue session) {
+        Entry entry = new Entry(token, session, clock.getAsLong());
+        sessions.put(token, entry);
+        wheel.get(getSlot(entry.lastAccessTime + timeToLiveNanos)).add(entry);
+    }
+
+    /**
+     * @return the session with the specified token, or null if it doesn't exist; the session's time to live is renewed.
+     */
+    public JsonSessionWithEventQueue get(String token) {
+        Entry entry = sessions.get(token);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccessTime = clock.getAsLong();
+        return entry.session;
+    }
+
+    /**
+     * Renews the time to live of a session, if it exists.
+     */
+    public void touch(String token) {
+        get(token);
+    }
+
+    /**
+     * @return the removed session, or null if no session with the specified token exists.
+     */
+    public JsonSessionWithEventQueue remove(String token) {
+        Entry entry = sessions.remove(token);
+        if (entry == null) {
+            return null;
+        }
+        wheel.get(getSlot(entry.lastAccessTime + timeToLiveNanos)).remove(entry); // if it's been touched meanwhile, it's removed when its slot is processed
+        return entry.session;
+    }
+
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    public long getEvictedSessions() {
+        return evictedSessions.get();
+    }
+
+    /**
+     * Processes the slots of the wheel up to the current time; called at every tick.
+     */
+    void expireIdleSessions() {
+        long currentTick = getTick(clock.getAsLong());
+        // normally one slot per call, but more if the previous ticks were delayed (at most a whole revolution)
+        long firstTick = Math.max(nextTick, currentTick - WHEEL_SIZE + 1);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            processSlot((int) Math.floorMod(tick, (long) WHEEL_SIZE), currentTick);
+        }
+        nextTick = currentTick + 1;
+    }
+
+    private void processSlot(int slot, long currentTick) {
+        Iterator<Entry> iterator = wheel.get(slot).iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            long deadline = entry.lastAccessTime + timeToLiveNanos;
+            if (getTick(deadline) <= currentTick) {
+                // the expiration time is rounded to the tick, so a session may be closed up to a tick early
+                iterator.remove();
+                if (sessions.remove(entry.token, entry)) {
+                    evict(entry);
+                }
+            } else if (sessions.get(entry.token) != entry) {
+                iterator.remove(); // removed after being touched
+            } else {
+                int newSlot = getSlot(deadline);
+                if (newSlot != slot) {
+                    iterator.remove();
+                    wheel.get(newSlot).add(entry);
+                }
+            }
+        }
+    }
+
+    private void evict(Entry entry) {
+        evictedSessions.incrementAndGet();
+        try {
+            evictionHandler.accept(entry.token, entry.session);
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to close expired HTTP session", ex);
+        }
+    }
+
+    private long getTick(long time) {
+        return Math.floorDiv(time, tickNanos);
+    }
+
+    private int getSlot(long deadline) {
+        return (int) Math.floorMod(getTick(deadline), (long) WHEEL_SIZE);
+    }
+}
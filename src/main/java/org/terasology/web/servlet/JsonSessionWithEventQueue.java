@@ -20,39 +20,110 @@ import org.terasology.web.io.JsonSession;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Queue;
+import java.util.Set;
 
 public class JsonSessionWithEventQueue {
 
+    public static final int DEFAULT_EVENT_BUFFER_CAPACITY = 256;
+
     private final JsonSession session;
-    private final Queue<ResourceEvent> eventQueue = new LinkedList<>();
+    private final EventRingBuffer<ResourceEvent> eventBuffer;
+    private final Set<Runnable> eventWaiters = new LinkedHashSet<>();
+    private long readCursor;
 
-    public JsonSessionWithEventQueue(JsonSession session) {
+    public JsonSessionWithEventQueue(JsonSession session, int eventBufferCapacity) {
         this.session = session;
+        this.eventBuffer = new EventRingBuffer<>(eventBufferCapacity);
         session.setResourceEventListener((resourcePath, eventData) -> {
-                synchronized (eventQueue) {
-                    eventQueue.offer(new ResourceEvent(resourcePath, eventData));
-                }
+            eventBuffer.append(new ResourceEvent(resourcePath, eventData));
+            notifyEventWaiters();
         });
     }
 
-    public JsonSessionWithEventQueue() {
-        this(new JsonSession());
+    public JsonSessionWithEventQueue(JsonSession session) {
+        this(session, DEFAULT_EVENT_BUFFER_CAPACITY);
     }
 
-    public List<ResourceEvent> drainEventQueue() {
-        List<ResourceEvent> result = new ArrayList<>();
-        synchronized (eventQueue) {
-            ResourceEvent item;
-            while ((item = eventQueue.poll()) != null) {
-                result.add(item);
-            }
+    public JsonSessionWithEventQueue(int eventBufferCapacity) {
+        this(new JsonSession(), eventBufferCapacity);
+    }
+
+    /**
+     * @return the events received since the previous call; if some of them have been overwritten because the buffer was full,
+     * the list starts with a marker which reports how many have been missed.
+     */
+    public synchronized List<ResourceEvent> drainEventQueue() {
+        EventRingBuffer.ReadResult<ResourceEvent> readResult = eventBuffer.readFrom(readCursor);
+        readCursor = readResult.getNextCursor();
+        if (readResult.getMissedItems() == 0) {
+            return readResult.getItems();
         }
+        List<ResourceEvent> result = new ArrayList<>(readResult.getItems().size() + 1);
+        result.add(ResourceEvent.missedEventsMarker(readResult.getMissedItems()));
+        result.addAll(readResult.getItems());
         return result;
     }
 
+    /**
+     * Registers a listener which is called once, as soon as there are events to read; if there already are, it's called immediately.
+     * The listener is called on the thread which emitted the event, so it should return quickly.
+     * @return true if the listener has been called immediately, false if it has been registered.
+     */
+    public boolean whenEventsAvailable(Runnable listener) {
+        return whenEventsAvailableAfter(getReadCursor(), listener);
+    }
+
+    /**
+     * Like {@link #whenEventsAvailable(Runnable)}, but for a reader which keeps its own cursor instead of using {@link #drainEventQueue()}.
+     */
+    boolean whenEventsAvailableAfter(long cursor, Runnable listener) {
+        synchronized (eventWaiters) {
+            if (eventBuffer.getNextSequence() <= cursor) {
+                eventWaiters.add(listener);
+                return false;
+            }
+        }
+        listener.run();
+        return true;
+    }
+
+    /**
+     * Reads the events starting from the specified cursor, without affecting the events returned by {@link #drainEventQueue()}.
+     */
+    EventRingBuffer.ReadResult<ResourceEvent> readEventsFrom(long cursor) {
+        return eventBuffer.readFrom(cursor);
+    }
+
+    /**
+     * @return the sequence number of the first event which will be returned by the next call to {@link #drainEventQueue()}.
+     */
+    synchronized long getReadCursor() {
+        return readCursor;
+    }
+
+    /**
+     * Unregisters a listener registered with {@link #whenEventsAvailable(Runnable)} which hasn't been called yet.
+     */
+    public void removeEventWaiter(Runnable listener) {
+        synchronized (eventWaiters) {
+            eventWaiters.remove(listener);
+        }
+    }
+
+    private void notifyEventWaiters() {
+        List<Runnable> toNotify;
+        synchronized (eventWaiters) {
+            if (eventWaiters.isEmpty()) {
+                return;
+            }
+            toNotify = new ArrayList<>(eventWaiters);
+            eventWaiters.clear();
+        }
+        toNotify.forEach(Runnable::run);
+    }
+
     public JsonSession getSession() {
         return session;
     }
@@ -60,12 +131,19 @@ public class JsonSessionWithEventQueue {
     public static final class ResourceEvent {
         private Collection<String> resourcePath;
         private JsonElement eventData;
+        private Long missedEvents;
 
         ResourceEvent(Collection<String> resourcePath, JsonElement eventData) {
             this.resourcePath = resourcePath;
             this.eventData = eventData;
         }
 
+        static ResourceEvent missedEventsMarker(long missedEvents) {
+            ResourceEvent result = new ResourceEvent(null, null);
+            result.missedEvents = missedEvents;
+            return result;
+        }
+
         public Collection<String> getResourcePath() {
             return resourcePath;
         }
@@ -73,5 +151,12 @@ public class JsonSessionWithEventQueue {
         public JsonElement getEventData() {
             return eventData;
         }
+
+        /**
+         * @return the number of events which have been discarded before this one, or null if this is a regular event.
+         */
+        public Long getMissedEvents() {
+            return missedEvents;
+        }
     }
 }
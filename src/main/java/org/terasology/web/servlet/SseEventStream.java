@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.servlet;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.web.SerialExecutor;
+import org.terasology.web.io.JsonSession;
+import org.terasology.web.io.JsonStringEncoder;
+import org.terasology.web.resources.ResourceUpdate;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams the resource events and changes received by a {@link JsonSessionWithEventQueue} as Server-Sent Events.
+ * Resource events carry their sequence number as event ID, so that a client which reconnects with the Last-Event-ID header
+ * receives the events it missed, as long as they are still in the session's buffer.
+ * All the writes of a stream are performed in order on a small shared pool, never on the thread which produced the data.
+ * Since the writes block until the client receives the data, a stream which accumulates too many pending writes
+ * or whose current write doesn't complete within a deadline is closed, so that slow clients can't hold the pool.
+ */
+public class SseEventStream {
+
+    static final String RESOURCE_CHANGED = "RESOURCE_CHANGED";
+    static final String RESOURCE_EVENT = "RESOURCE_EVENT";
+
+    private static final Logger logger = LoggerFactory.getLogger(SseEventStream.class);
+    private static final long HEARTBEAT_INTERVAL_SECONDS = 15;
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final int WRITER_THREADS = 8;
+    private static final int MAX_PENDING_WRITES = 64;
+    private static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 10000;
+    private static final ExecutorService WRITER_POOL = Executors.newFixedThreadPool(WRITER_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("sse-writer-%d").setDaemon(true).build());
+    private static final ScheduledExecutorService HEARTBEAT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("sse-heartbeat").setDaemon(true).build());
+    // like for WebSocket, the data of a RESOURCE_CHANGED message is the same for all the streams, so it's serialized once
+    private static final Function<ResourceUpdate, String> RESOURCE_CHANGED_ENCODER = (update) -> JsonStringEncoder.encode((writer) -> {
+        writer.beginObject();
+        writer.name("resourcePath");
+        JsonStringEncoder.writeStringArray(writer, update.getPath().getItemList());
+        writer.name("data");
+        JsonSession.writeUpdateData(update, writer);
+        writer.endObject();
+    });
+
+    private final JsonSessionWithEventQueue session;
+    private final EventOutput output;
+    private final Runnable onHeartbeat;
+    private final Consumer<SseEventStream> onClose;
+    private final long writeTimeoutMillis;
+    private final SerialExecutor writer = new SerialExecutor(WRITER_POOL);
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final Runnable eventWaiter = () -> scheduleWrite(this::sendEvents);
+    private final Map<ResourcePath, ResourceUpdate> pendingChanges = new LinkedHashMap<>();
+    private boolean changesScheduled;
+    private long eventCursor;
+    private ScheduledFuture<?> heartbeat;
+    private ScheduledFuture<?> writeDeadlineCheck;
+    // the time at which the write in progress started, or 0 if no write is in progress
+    private volatile long writeStartMillis;
+    private volatile boolean closed;
+
+    /**
+     * @param eventCursor the sequence number of the first event to send.
+     * @param onHeartbeat called after each heartbeat successfully sent, i.e. periodically while the client is connected.
+     * @param onClose called once when the stream is closed, either explicitly or because the client went away.
+     */
+    SseEventStream(JsonSessionWithEventQueue session, EventOutput output, long eventCursor, Runnable onHeartbeat, Consumer<SseEventStream> onClose) {
+        this(session, output, eventCursor, onHeartbeat, onClose, DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param writeTimeoutMillis the maximum time a single write can take before the stream is closed.
+     */
+    SseEventStream(JsonSessionWithEventQueue session, EventOutput output, long eventCursor, Runnable onHeartbeat, Consumer<SseEventStream> onClose,
+                   long writeTimeoutMillis) {
+        this.session = session;
+        this.output = output;
+        this.eventCursor = eventCursor;
+        this.onHeartbeat = onHeartbeat;
+        this.onClose = onClose;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    void open() {
+        session.getSession().setResourceChangeSubscriber(this::onResourceChanged);
+        scheduleWrite(this::sendEvents);
+        heartbeat = HEARTBEAT_SCHEDULER.scheduleAtFixedRate(() -> scheduleWrite(this::sendHeartbeat),
+                HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        long checkIntervalMillis = Math.max(1, writeTimeoutMillis / 4);
+        writeDeadlineCheck = HEARTBEAT_SCHEDULER.scheduleAtFixedRate(this::checkWriteDeadline,
+                checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            writeDeadlineCheck.cancel(false);
+        }
+        session.getSession().setResourceChangeSubscriber((update) -> { });
+        session.removeEventWaiter(eventWaiter);
+        try {
+            output.close();
+        } catch (IOException ex) {
+            logger.debug("Failed to close event stream", ex);
+        }
+        onClose.accept(this);
+    }
+
+    private void onResourceChanged(ResourceUpdate update) {
+        boolean schedule;
+        synchronized (pendingChanges) {
+            // if the previous state of this resource hasn't been written yet, only the latest one is sent
+            pendingChanges.put(update.getPath(), update);
+            schedule = !changesScheduled;
+            changesScheduled = true;
+        }
+        if (schedule) {
+            scheduleWrite(this::sendResourceChanges);
+        }
+    }
+
+    private void scheduleWrite(Runnable task) {
+        if (closed) {
+            return;
+        }
+        if (pendingWrites.incrementAndGet() > MAX_PENDING_WRITES) {
+            logger.debug("Closing event stream, too many pending writes");
+            close();
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                pendingWrites.decrementAndGet();
+            }
+        });
+    }
+
+    private void checkWriteDeadline() {
+        long startMillis = writeStartMillis;
+        if (startMillis != 0 && System.currentTimeMillis() - startMillis > writeTimeoutMillis) {
+            logger.debug("Closing event stream, write timed out");
+            // closing the output may block as well, so it isn't done on the shared scheduler thread
+            WRITER_POOL.execute(this::close);
+        }
+    }
+
+    private void sendResourceChanges() {
+        List<ResourceUpdate> updates;
+        synchronized (pendingChanges) {
+            updates = new ArrayList<>(pendingChanges.values());
+            pendingChanges.clear();
+            changesScheduled = false;
+        }
+        for (ResourceUpdate update: updates) {
+            write(new OutboundEvent.Builder().name(RESOURCE_CHANGED).data(String.class, update.getEncoded(RESOURCE_CHANGED_ENCODER)).build());
+        }
+    }
+
+    private void sendEvents() {
+        if (closed) {
+            return;
+        }
+        EventRingBuffer.ReadResult<JsonSessionWithEventQueue.ResourceEvent> readResult = session.readEventsFrom(eventCursor);
+        if (readResult.getMissedItems() > 0) {
+            write(new OutboundEvent.Builder().name(RESOURCE_EVENT)
+                    .data(String.class, GSON.toJson(JsonSessionWithEventQueue.ResourceEvent.missedEventsMarker(readResult.getMissedItems()))).build());
+        }
+        long sequence = readResult.getNextCursor() - readResult.getItems().size();
+        for (JsonSessionWithEventQueue.ResourceEvent event: readResult.getItems()) {
+            write(new OutboundEvent.Builder().id(Long.toString(sequence++)).name(RESOURCE_EVENT).data(String.class, GSON.toJson(event)).build());
+        }
+        eventCursor = readResult.getNextCursor();
+        if (!closed) {
+            session.whenEventsAvailableAfter(eventCursor, eventWaiter);
+        }
+    }
+
+    private void sendHeartbeat() {
+        // also detects the clients which went away, since writing to them fails
+        if (write(new OutboundEvent.Builder().comment("heartbeat").build())) {
+            onHeartbeat.run();
+        }
+    }
+
+    private boolean write(OutboundEvent event) {
+        if (closed) {
+            return false;
+        }
+        writeStartMillis = System.currentTimeMillis();
+        try {
+            output.write(event);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            logger.debug("Closing event stream", ex);
+            close();
+            return false;
+        } finally {
+            writeStartMillis = 0;
+        }
+    }
+}
@@ -18,18 +18,49 @@ package org.terasology.web.servlet;
 
 import org.eclipse.jetty.websocket.servlet.WebSocketServlet;
 import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.terasology.web.metrics.MetricsRegistry;
+import org.terasology.web.webSocket.CompressionPolicy;
+import org.terasology.web.webSocket.OutboundQueueMetrics;
+import org.terasology.web.webSocket.OutboundQueuePolicy;
+import org.terasology.web.webSocket.ThresholdDeflateExtension;
 import org.terasology.web.webSocket.WebSocketHandler;
+import org.terasology.web.webSocket.WireFormat;
 
 /**
- * Registers the {@link WebSocketHandler} class for all incoming connections.
+ * Creates a {@link WebSocketHandler} for each incoming connection, using the {@link WireFormat}
+ * selected by the subprotocols offered by the client.
  */
 public class WsConnectionServlet extends WebSocketServlet {
 
     private static final long serialVersionUID = -981505298711059433L;
 
+    private final transient OutboundQueuePolicy outboundQueuePolicy;
+    private final transient CompressionPolicy compressionPolicy;
+
+    public WsConnectionServlet(OutboundQueuePolicy outboundQueuePolicy, CompressionPolicy compressionPolicy) {
+        this.outboundQueuePolicy = outboundQueuePolicy;
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    public WsConnectionServlet(OutboundQueuePolicy outboundQueuePolicy) {
+        this(outboundQueuePolicy, CompressionPolicy.DEFAULT);
+    }
+
+    public WsConnectionServlet() {
+        this(OutboundQueuePolicy.DEFAULT);
+    }
+
     @Override
     public void configure(WebSocketServletFactory factory) {
         factory.getPolicy().setIdleTimeout(60000);        // set a 60 second timeout
-        factory.register(WebSocketHandler.class);
+        ThresholdDeflateExtension.register(factory.getExtensionFactory(), compressionPolicy);
+        factory.setCreator((request, response) -> {
+            WireFormat<?> wireFormat = WireFormat.negotiate(request.getSubProtocols());
+            if (wireFormat.getSubProtocol() != null) {
+                response.setAcceptedSubProtocol(wireFormat.getSubProtocol());
+            }
+            return new WebSocketHandler<>(outboundQueuePolicy, wireFormat);
+        });
+        OutboundQueueMetrics.getInstance().register(MetricsRegistry.getInstance());
     }
 }
@@ -24,16 +24,27 @@ public class ClientToServerMessage implements Validable {
     public enum MessageType {
         AUTHENTICATION_REQUEST,
         AUTHENTICATION_DATA,
-        RESOURCE_REQUEST
+        RESOURCE_REQUEST,
+        PROTOCOL_OPTIONS,
+        RESOURCE_RESYNC,
+        RESOURCE_BATCH
     }
 
     private MessageType messageType;
+    private JsonElement requestId;
     private JsonElement data;
 
     public MessageType getMessageType() {
         return messageType;
     }
 
+    /**
+     * @return the optional string or number chosen by the client to identify the ACTION_RESULT answering this message.
+     */
+    public JsonElement getRequestId() {
+        return requestId;
+    }
+
     public JsonElement getData() {
         return data;
     }
@@ -46,6 +57,8 @@ public class ClientToServerMessage implements Validable {
             throw new InvalidClientMessageException("no data must be sent");
         } else if (messageType != MessageType.AUTHENTICATION_REQUEST && data == null) {
             throw new InvalidClientMessageException("data is required");
+        } else if (requestId != null && !requestId.isJsonPrimitive()) {
+            throw new InvalidClientMessageException("requestId must be a string or a number");
         }
     }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+/**
+ * Settings of the permessage-deflate compression of the messages sent on WebSocket connections,
+ * which is used only when the client offers it.
+ */
+public final class CompressionPolicy {
+
+    public static final CompressionPolicy DEFAULT = new CompressionPolicy(1024, true);
+    public static final CompressionPolicy DISABLED = new CompressionPolicy(-1, true);
+
+    private final int minMessageSize;
+    private final boolean contextTakeover;
+
+    /**
+     * @param minMessageSize the size in bytes below which messages are sent uncompressed, since compressing them costs more CPU
+     * than the bandwidth it saves; a negative value disables the compression.
+     * @param contextTakeover whether the compression context is kept across messages, which improves the compression ratio
+     * of similar messages; if false, server_no_context_takeover is always negotiated.
+     */
+    public CompressionPolicy(int minMessageSize, boolean contextTakeover) {
+        this.minMessageSize = minMessageSize;
+        this.contextTakeover = contextTakeover;
+    }
+
+    public boolean isEnabled() {
+        return minMessageSize >= 0;
+    }
+
+    public int getMinMessageSize() {
+        return minMessageSize;
+    }
+
+    public boolean isContextTakeover() {
+        return contextTakeover;
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the messages waiting to be sent on a WebSocket connection, and writes them one at a time,
+ * so that the amount of data buffered for a slow client is bounded according to an {@link OutboundQueuePolicy}:
+ * <ul>
+ *     <li>a pending RESOURCE_CHANGED message is replaced by a newer one for the same resource
+ *     (which may be encoded only when it's about to be sent, e.g. as a delta from the state sent previously);</li>
+ *     <li>when there are too many pending events, the oldest ones are dropped or summarized;</li>
+ *     <li>when the total size of the pending messages exceeds the limit, the connection is closed.</li>
+ * </ul>
+ * Action results are never dropped.
+ * @param <M> the type of the messages, i.e. strings for text frames or byte arrays for binary frames.
+ */
+public class OutboundMessageQueue<M> {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundMessageQueue.class);
+
+    /**
+     * The underlying connection, i.e. the Jetty WebSocket session.
+     */
+    interface Connection<M> {
+        void write(M message, WriteCallback callback);
+        void close(int statusCode, String reason);
+    }
+
+    private enum EntryType {
+        ACTION_RESULT,
+        RESOURCE_CHANGED,
+        RESOURCE_EVENT,
+        EVENTS_SUMMARY,
+        DROPPED
+    }
+
+    private static final class Entry<M> {
+        private EntryType type;
+        private final Collection<String> resourcePath;
+        private final String key;
+        private M message;
+        private UnaryOperator<M> deferredEncoder;
+        private int missedEvents;
+
+        private Entry(EntryType type, Collection<String> resourcePath, M message) {
+            this.type = type;
+            this.resourcePath = resourcePath;
+            this.key = resourcePath == null ? null : String.join("/", resourcePath);
+            this.message = message;
+        }
+    }
+
+    private final String connectionName;
+    private final OutboundQueuePolicy policy;
+    private final Connection<M> connection;
+    private final ToIntFunction<M> messageSize;
+    private final BiFunction<Collection<String>, Integer, M> eventsSummaryEncoder;
+    private final OutboundQueueMetrics metrics;
+    private final WriteCallback writeCallback = new ErrorReportingWriteCallback(logger) {
+        @Override
+        public void writeFailed(Throwable x) {
+            super.writeFailed(x);
+            onWriteCompleted();
+        }
+
+        @Override
+        public void writeSuccess() {
+            onWriteCompleted();
+        }
+    };
+
+    private final Deque<Entry<M>> pending = new ArrayDeque<>();
+    private final Deque<Entry<M>> pendingEvents = new ArrayDeque<>();
+    private final Map<String, Entry<M>> pendingResourceChanges = new HashMap<>();
+    private final Map<String, Entry<M>> pendingSummaries = new HashMap<>();
+    private int depth;
+    private long pendingSize;
+    private boolean closed;
+    private boolean writeInFlight;
+    private boolean writing;
+    private boolean completedWhileWriting;
+
+    /**
+     * @param connectionName identifies the connection in the metrics; it should be unique among the open connections.
+     * @param messageSize the function which determines the size of a message, used to enforce {@link OutboundQueuePolicy#getMaxPendingSize()}.
+     * @param eventsSummaryEncoder builds the message which replaces the dropped events of a resource,
+     * given the resource path and the number of dropped events.
+     */
+    OutboundMessageQueue(String connectionName, OutboundQueuePolicy policy, Connection<M> connection, ToIntFunction<M> messageSize,
+                         BiFunction<Collection<String>, Integer, M> eventsSummaryEncoder, OutboundQueueMetrics metrics) {
+        this.connectionName = connectionName;
+        this.policy = policy;
+        this.connection = connection;
+        this.messageSize = messageSize;
+        this.eventsSummaryEncoder = eventsSummaryEncoder;
+        this.metrics = metrics;
+        metrics.onQueueOpened(this);
+    }
+
+    public void offerActionResult(M message) {
+        offer(EntryType.ACTION_RESULT, null, message, null);
+    }
+
+    public void offerResourceChanged(Collection<String> resourcePath, M message) {
+        offerResourceChanged(resourcePath, message, null);
+    }
+
+    /**
+     * @param message the full message, which also determines the size accounted for the pending entry.
+     * @param deferredEncoder if not null, called with the full message when it's about to be sent, to obtain the message actually sent.
+     */
+    public void offerResourceChanged(Collection<String> resourcePath, M message, UnaryOperator<M> deferredEncoder) {
+        offer(EntryType.RESOURCE_CHANGED, resourcePath, message, deferredEncoder);
+    }
+
+    public void offerResourceEvent(Collection<String> resourcePath, M message) {
+        offer(EntryType.RESOURCE_EVENT, resourcePath, message, null);
+    }
+
+    /**
+     * Discards all the pending messages; the messages offered afterwards are ignored.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+            pendingEvents.clear();
+            pendingResourceChanges.clear();
+            pendingSummaries.clear();
+            depth = 0;
+            pendingSize = 0;
+        }
+        metrics.onQueueClosed(this);
+    }
+
+    public String getConnectionName() {
+        return connectionName;
+    }
+
+    /**
+     * @return the number of messages waiting to be sent, not including the one being written.
+     */
+    public synchronized int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the total size of the messages waiting to be sent, not including the one being written.
+     */
+    public synchronized long getPendingSize() {
+        return pendingSize;
+    }
+
+    private void offer(EntryType type, Collection<String> resourcePath, M message, UnaryOperator<M> deferredEncoder) {
+        boolean overflow;
+        boolean startWriting = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            add(type, resourcePath, message, deferredEncoder);
+            overflow = pendingSize > policy.getMaxPendingSize();
+            if (!overflow && !writeInFlight) {
+                writeInFlight = true;
+                startWriting = true;
+            }
+        }
+        if (overflow) {
+            logger.warn("Closing WebSocket connection because the client is not reading the messages fast enough");
+            metrics.onOverflowDisconnection();
+            close();
+            connection.close(StatusCode.POLICY_VIOLATION, "Too many pending messages");
+        } else if (startWriting) {
+            writeLoop();
+        }
+    }
+
+    private void add(EntryType type, Collection<String> resourcePath, M message, UnaryOperator<M> deferredEncoder) {
+        Entry<M> entry = new Entry<>(type, resourcePath, message);
+        entry.deferredEncoder = deferredEncoder;
+        if (type == EntryType.RESOURCE_CHANGED) {
+            Entry<M> previous = pendingResourceChanges.get(entry.key);
+            if (previous != null) {
+                // the client is only interested in the latest state of the resource
+                pendingSize += messageSize.applyAsInt(message) - messageSize.applyAsInt(previous.message);
+                previous.message = message;
+                previous.deferredEncoder = deferredEncoder;
+                metrics.onResourceChangeMerged();
+                return;
+            }
+            pendingResourceChanges.put(entry.key, entry);
+        } else if (type == EntryType.RESOURCE_EVENT) {
+            pendingEvents.add(entry);
+        }
+        pending.add(entry);
+        depth++;
+        pendingSize += messageSize.applyAsInt(message);
+        if (pendingEvents.size() > policy.getMaxPendingEvents()) {
+            dropOldestEvent();
+        }
+    }
+
+    private void dropOldestEvent() {
+        Entry<M> oldest = pendingEvents.poll();
+        pendingSize -= messageSize.applyAsInt(oldest.message);
+        oldest.message = null;
+        metrics.onEventDropped();
+        Entry<M> summary = pendingSummaries.get(oldest.key);
+        if (policy.getEventOverflowPolicy() == OutboundQueuePolicy.EventOverflowPolicy.SUMMARIZE_OLDEST && summary == null) {
+            // the summary takes the place of the oldest dropped event
+            oldest.type = EntryType.EVENTS_SUMMARY;
+            oldest.missedEvents = 1;
+            pendingSummaries.put(oldest.key, oldest);
+        } else {
+            if (summary != null) {
+                summary.missedEvents++;
+            }
+            oldest.type = EntryType.DROPPED;
+            depth--;
+        }
+    }
+
+    /**
+     * Removes the next entry to send from the queue; the messages which must be encoded are encoded later by
+     * {@link #encode(Entry)} outside the lock, so that the threads offering messages don't wait for the encoding.
+     * The removed entry is no longer accounted in the pending size, like the message being written.
+     */
+    private Entry<M> pollNextEntry() {
+        Entry<M> entry;
+        while ((entry = pending.poll()) != null) {
+            switch (entry.type) {
+                case DROPPED:
+                    continue;
+                case RESOURCE_CHANGED:
+                    pendingResourceChanges.remove(entry.key);
+                    break;
+                case RESOURCE_EVENT:
+                    pendingEvents.poll(); // events are sent in order, so this is the head of pendingEvents
+                    break;
+                case EVENTS_SUMMARY:
+                    // the size of the dropped event it replaces has already been subtracted
+                    pendingSummaries.remove(entry.key);
+                    depth--;
+                    return entry;
+                default:
+                    break;
+            }
+            depth--;
+            pendingSize -= messageSize.applyAsInt(entry.message);
+            return entry;
+        }
+        return null;
+    }
+
+    private M encode(Entry<M> entry) {
+        if (entry.type == EntryType.EVENTS_SUMMARY) {
+            return eventsSummaryEncoder.apply(entry.resourcePath, entry.missedEvents);
+        } else if (entry.deferredEncoder != null) {
+            return entry.deferredEncoder.apply(entry.message);
+        }
+        return entry.message;
+    }
+
+    private void writeLoop() {
+        // if the connection completes the write synchronously, the next message is sent by this loop instead of
+        // the callback, to avoid a recursion as deep as the queue
+        while (true) {
+            Entry<M> entry;
+            synchronized (this) {
+                entry = pollNextEntry();
+                if (entry == null) {
+                    writeInFlight = false;
+                    return;
+                }
+                writing = true;
+                completedWhileWriting = false;
+            }
+            try {
+                connection.write(encode(entry), writeCallback);
+            } catch (RuntimeException ex) {
+                logger.warn("Unable to send WebSocket message to client", ex);
+                close();
+                synchronized (this) {
+                    writing = false;
+                    writeInFlight = false;
+                }
+                return;
+            }
+            synchronized (this) {
+                writing = false;
+                if (!completedWhileWriting) {
+                    return; // the callback will continue from here
+                }
+            }
+        }
+    }
+
+    private void onWriteCompleted() {
+        synchronized (this) {
+            if (writing) {
+                completedWhileWriting = true;
+                return;
+            }
+        }
+        writeLoop();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.terasology.web.metrics.MetricsRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates the statistics of the outbound queues of all the open WebSocket connections, and exposes the depth and size
+ * of each queue as "webSocket.connection.&lt;connection name&gt;.queueDepth" and "...queueSize", so that the backlogged clients can be found.
+ */
+public final class OutboundQueueMetrics {
+
+    private static final OutboundQueueMetrics INSTANCE = new OutboundQueueMetrics();
+
+    private final Set<OutboundMessageQueue<?>> openQueues = ConcurrentHashMap.newKeySet();
+    private final AtomicLong mergedResourceChanges = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong overflowDisconnections = new AtomicLong();
+
+    private OutboundQueueMetrics() {
+    }
+
+    public static OutboundQueueMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public void register(MetricsRegistry registry) {
+        registry.register("webSocket.connections", openQueues::size);
+        registry.register("webSocket.queuedMessages", () -> openQueues.stream().mapToLong(OutboundMessageQueue::getDepth).sum());
+        registry.register("webSocket.maxQueueDepth", () -> openQueues.stream().mapToLong(OutboundMessageQueue::getDepth).max().orElse(0));
+        registry.register("webSocket.maxQueueSize", () -> openQueues.stream().mapToLong(OutboundMessageQueue::getPendingSize).max().orElse(0));
+        registry.registerGroup("webSocket.connection", this::getPerConnectionMetrics);
+        registry.register("webSocket.mergedResourceChanges", mergedResourceChanges::get);
+        registry.register("webSocket.droppedEvents", droppedEvents::get);
+        registry.register("webSocket.overflowDisconnections", overflowDisconnections::get);
+    }
+
+    private Map<String, Number> getPerConnectionMetrics() {
+        Map<String, Number> result = new HashMap<>();
+        for (OutboundMessageQueue<?> queue: openQueues) {
+            result.put(queue.getConnectionName() + ".queueDepth", queue.getDepth());
+            result.put(queue.getConnectionName() + ".queueSize", queue.getPendingSize());
+        }
+        return result;
+    }
+
+    void onQueueOpened(OutboundMessageQueue<?> queue) {
+        openQueues.add(queue);
+    }
+
+    void onQueueClosed(OutboundMessageQueue<?> queue) {
+        openQueues.remove(queue);
+    }
+
+    void onResourceChangeMerged() {
+        mergedResourceChanges.incrementAndGet();
+    }
+
+    void onEventDropped() {
+        droppedEvents.incrementAndGet();
+    }
+
+    void onOverflowDisconnection() {
+        overflowDisconnections.incrementAndGet();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+/**
+ * Limits applied to the messages waiting to be sent on a single WebSocket connection.
+ */
+public final class OutboundQueuePolicy {
+
+    public enum EventOverflowPolicy {
+        /**
+         * The oldest pending events are discarded.
+         */
+        DROP_OLDEST,
+        /**
+         * The oldest pending events of each resource are replaced by a single event which reports how many of them were discarded.
+         */
+        SUMMARIZE_OLDEST
+    }
+
+    public static final OutboundQueuePolicy DEFAULT = new OutboundQueuePolicy(256, EventOverflowPolicy.SUMMARIZE_OLDEST, 4 * 1024 * 1024);
+
+    private final int maxPendingEvents;
+    private final EventOverflowPolicy eventOverflowPolicy;
+    private final long maxPendingSize;
+
+    /**
+     * @param maxPendingEvents the maximum number of resource events waiting to be sent; older ones are handled according to eventOverflowPolicy.
+     * @param eventOverflowPolicy what to do with the oldest events when there are more than maxPendingEvents.
+     * @param maxPendingSize the total length, in characters, of the messages waiting to be sent above which the client is disconnected.
+     */
+    public OutboundQueuePolicy(int maxPendingEvents, EventOverflowPolicy eventOverflowPolicy, long maxPendingSize) {
+        this.maxPendingEvents = maxPendingEvents;
+        this.eventOverflowPolicy = eventOverflowPolicy;
+        this.maxPendingSize = maxPendingSize;
+    }
+
+    public int getMaxPendingEvents() {
+        return maxPendingEvents;
+    }
+
+    public EventOverflowPolicy getEventOverflowPolicy() {
+        return eventOverflowPolicy;
+    }
+
+    public long getMaxPendingSize() {
+        return maxPendingSize;
+    }
+}
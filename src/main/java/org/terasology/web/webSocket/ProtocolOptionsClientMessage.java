@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.terasology.web.io.gsonUtils.InvalidClientMessageException;
+import org.terasology.web.io.gsonUtils.Validable;
+
+/**
+ * The data of a PROTOCOL_OPTIONS message, which enables or disables optional features of the WebSocket protocol for the connection.
+ */
+public class ProtocolOptionsClientMessage implements Validable {
+
+    private Boolean resourcePatches;
+
+    public Boolean getResourcePatches() {
+        return resourcePatches;
+    }
+
+    @Override
+    public void validate() throws InvalidClientMessageException {
+        if (resourcePatches == null) {
+            throw new InvalidClientMessageException("at least one option must be specified");
+        }
+    }
+}
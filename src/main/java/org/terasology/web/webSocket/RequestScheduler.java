@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Runs the requests received on a WebSocket connection with the threads of a shared executor, so that a slow request
+ * doesn't block the following ones: the requests with the same key run one at a time in the order they have been received,
+ * those with different keys run concurrently, and an exclusive request runs alone, after the previous ones and before the next ones.
+ * An asynchronous request is considered running until the stage it returns is complete, without holding a thread in the meantime.
+ */
+final class RequestScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestScheduler.class);
+    private static final CompletionStage<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    private static final class Task {
+        // null for exclusive tasks
+        private final String key;
+        private final Supplier<? extends CompletionStage<?>> request;
+
+        private Task(String key, Supplier<? extends CompletionStage<?>> request) {
+            this.key = key;
+            this.request = request;
+        }
+    }
+
+    private final Executor sharedExecutor;
+    private final int maxPendingTasks;
+    private final Deque<Task> waiting = new ArrayDeque<>();
+    private final Set<String> runningKeys = new HashSet<>();
+    private int running;
+    private boolean exclusiveRunning;
+    private boolean closed;
+
+    /**
+     * @param maxPendingTasks the maximum number of tasks which can wait to be started; the tasks submitted above it are rejected.
+     */
+    RequestScheduler(Executor sharedExecutor, int maxPendingTasks) {
+        this.sharedExecutor = sharedExecutor;
+        this.maxPendingTasks = maxPendingTasks;
+    }
+
+    /**
+     * @param task starts the request, and returns a stage which is completed when the request is complete.
+     * @return false if the task has been rejected, because there are too many pending tasks.
+     */
+    boolean executeAsync(String key, Supplier<? extends CompletionStage<?>> task) {
+        return submit(new Task(key, task));
+    }
+
+    boolean executeExclusiveAsync(Supplier<? extends CompletionStage<?>> task) {
+        return submit(new Task(null, task));
+    }
+
+    /**
+     * Discards the tasks which haven't been started yet; the ones submitted afterwards are ignored.
+     */
+    synchronized void close() {
+        closed = true;
+        waiting.clear();
+    }
+
+    private boolean submit(Task task) {
+        synchronized (this) {
+            if (closed) {
+                return true;
+            }
+            if (waiting.size() >= maxPendingTasks) {
+                return false;
+            }
+            waiting.add(task);
+        }
+        dispatch();
+        return true;
+    }
+
+    private void dispatch() {
+        List<Task> toStart = new ArrayList<>();
+        synchronized (this) {
+            // the keys of the waiting tasks which can't start yet; the following tasks with the same keys must wait for them
+            Set<String> blockedKeys = new HashSet<>();
+            Iterator<Task> iterator = waiting.iterator();
+            while (iterator.hasNext() && !exclusiveRunning) {
+                Task task = iterator.next();
+                if (task.key == null) {
+                    // if any task is still running or waiting before this one, no later task can start either
+                    if (running == 0) {
+                        iterator.remove();
+                        exclusiveRunning = true;
+                        running++;
+                        toStart.add(task);
+                    }
+                    break;
+                }
+                if (runningKeys.contains(task.key) || blockedKeys.contains(task.key)) {
+                    blockedKeys.add(task.key);
+                } else {
+                    iterator.remove();
+                    runningKeys.add(task.key);
+                    running++;
+                    toStart.add(task);
+                }
+            }
+        }
+        for (Task task: toStart) {
+            sharedExecutor.execute(() -> run(task));
+        }
+    }
+
+    private void run(Task task) {
+        CompletionStage<?> completion;
+        try {
+            completion = task.request.get();
+        } catch (RuntimeException ex) {
+            logger.error("Unhandled exception while processing a WebSocket request", ex);
+            completion = COMPLETED;
+        }
+        completion.whenComplete((result, ex) -> {
+            if (ex != null) {
+                logger.error("Unhandled exception while processing a WebSocket request", ex);
+            }
+            complete(task);
+        });
+    }
+
+    private void complete(Task task) {
+        synchronized (this) {
+            running--;
+            if (task.key == null) {
+                exclusiveRunning = false;
+            } else {
+                runningKeys.remove(task.key);
+            }
+        }
+        dispatch();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import org.terasology.web.io.JsonSession;
+import org.terasology.web.io.gsonUtils.JsonPatch;
+import org.terasology.web.resources.ResourceUpdate;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the last state of each resource sent on a connection which has enabled the resource patches,
+ * and encodes the following changes as RESOURCE_PATCH messages with the differences from that state.
+ * It's used as the deferred encoder of the {@link OutboundMessageQueue}, so the differences are computed from the state
+ * the client has actually received even if some intermediate changes have been merged.
+ * @param <M> the type of the messages of the connection's {@link WireFormat}.
+ */
+final class ResourcePatchEncoder<M> {
+
+    private static final class SentState {
+        private JsonElement data;
+        private int version;
+
+        private SentState(JsonElement data) {
+            this.data = data;
+        }
+    }
+
+    private final WireFormat<M> format;
+    private final Map<ResourcePath, SentState> sentStates = new HashMap<>();
+
+    ResourcePatchEncoder(WireFormat<M> format) {
+        this.format = format;
+    }
+
+    /**
+     * @param fullMessage the RESOURCE_CHANGED message with the whole state, which resets the version of the resource to 0.
+     * @return either a RESOURCE_PATCH message with the next version, or the full message if it's not longer than the patch
+     * or the state previously sent to the client is unknown.
+     */
+    synchronized M encode(ResourceUpdate update, M fullMessage) {
+        // the tree is built once per update and shared with the other connections
+        JsonElement data = JsonSession.serializeUpdateData(update);
+        SentState sentState = sentStates.get(update.getPath());
+        if (sentState != null) {
+            JsonArray patch = JsonPatch.diff(sentState.data, data);
+            M patchMessage = format.encode(WebSocketHandler.resourcePatchContent(update.getPath().getItemList(), sentState.version + 1, patch));
+            if (format.size(patchMessage) < format.size(fullMessage)) {
+                sentState.data = data;
+                sentState.version++;
+                return patchMessage;
+            }
+        }
+        sentStates.put(update.getPath(), new SentState(data));
+        return fullMessage;
+    }
+
+    /**
+     * Forgets the state sent for the specified resource, so that the next change is sent in full.
+     */
+    synchronized void reset(ResourcePath path) {
+        sentStates.remove(path);
+    }
+}
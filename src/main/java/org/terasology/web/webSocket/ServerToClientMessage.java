@@ -24,11 +24,13 @@ public class ServerToClientMessage {
     public enum MessageType {
         ACTION_RESULT,
         RESOURCE_CHANGED,
+        RESOURCE_PATCH,
         RESOURCE_EVENT
     }
 
     private MessageType messageType;
     private Collection<String> resourcePath;
+    private JsonElement requestId;
     private JsonElement data;
 
     public ServerToClientMessage(MessageType messageType, Collection<String> resourcePath, JsonElement data) {
@@ -37,6 +39,11 @@ public class ServerToClientMessage {
         this.data = data;
     }
 
+    public ServerToClientMessage(MessageType messageType, Collection<String> resourcePath, JsonElement requestId, JsonElement data) {
+        this(messageType, resourcePath, data);
+        this.requestId = requestId;
+    }
+
     public ServerToClientMessage(MessageType messageType, JsonElement data) {
         this.messageType = messageType;
         this.data = data;
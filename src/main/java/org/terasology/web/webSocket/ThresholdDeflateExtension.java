@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
+import org.eclipse.jetty.websocket.api.extensions.ExtensionFactory;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import org.eclipse.jetty.websocket.common.extensions.compress.PerMessageDeflateExtension;
+
+/**
+ * The permessage-deflate extension, configured by a {@link CompressionPolicy}: the messages smaller than the threshold are sent
+ * uncompressed (i.e. without the RSV1 bit, which RFC 7692 allows for any message), and the server context takeover can be disabled.
+ * Sending a message uncompressed while a compressed one is still queued in the extension would reorder them, but it can't happen
+ * since the {@link OutboundMessageQueue} writes a message only after the previous one has been completed.
+ */
+public class ThresholdDeflateExtension extends PerMessageDeflateExtension {
+
+    public static final String NAME = "permessage-deflate";
+
+    // Jetty creates the extensions by class, so the policy can't be passed to the instances
+    private static volatile CompressionPolicy currentPolicy = CompressionPolicy.DEFAULT;
+
+    private final CompressionPolicy policy = currentPolicy;
+
+    /**
+     * Replaces the default permessage-deflate extension of the factory according to the policy,
+     * and removes the frame based compression extensions, which compress every frame.
+     */
+    public static void register(ExtensionFactory factory, CompressionPolicy policy) {
+        factory.unregister("deflate-frame");
+        factory.unregister("x-webkit-deflate-frame");
+        if (policy.isEnabled()) {
+            currentPolicy = policy;
+            factory.register(NAME, ThresholdDeflateExtension.class);
+        } else {
+            factory.unregister(NAME);
+        }
+    }
+
+    @Override
+    public void setConfig(ExtensionConfig config) {
+        if (policy.isContextTakeover()) {
+            super.setConfig(config);
+        } else {
+            // the server may disable its context takeover even if the client hasn't requested it
+            ExtensionConfig requested = new ExtensionConfig(config);
+            requested.setParameter("server_no_context_takeover");
+            super.setConfig(requested);
+        }
+    }
+
+    @Override
+    public void outgoingFrame(Frame frame, WriteCallback callback, BatchMode batchMode) {
+        if (isSmallMessage(frame)) {
+            nextOutgoingFrame(frame, callback, batchMode);
+        } else {
+            super.outgoingFrame(frame, callback, batchMode);
+        }
+    }
+
+    private boolean isSmallMessage(Frame frame) {
+        Frame.Type type = frame.getType();
+        return frame.isFin() && (type == Frame.Type.TEXT || type == Frame.Type.BINARY) && frame.getPayloadLength() < policy.getMinMessageSize();
+    }
+}
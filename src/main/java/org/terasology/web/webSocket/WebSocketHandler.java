@@ -16,51 +16,121 @@
 
 package org.terasology.web.webSocket;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonSyntaxException;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.web.io.ActionResult;
 import org.terasology.web.io.JsonSession;
+import org.terasology.web.io.JsonStringEncoder;
+import org.terasology.web.io.cbor.CborDecoder;
 import org.terasology.web.io.gsonUtils.ValidatorTypeAdapterFactory;
+import org.terasology.web.resources.ResourceUpdate;
+import org.terasology.web.resources.base.ResourceAccessException;
+import org.terasology.web.resources.base.ResourcePath;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Manages one websocket session
+ * @param <M> the type of the messages sent to the client, which depends on the negotiated {@link WireFormat}.
  */
-public class WebSocketHandler extends WebSocketAdapter {
+public class WebSocketHandler<M> extends WebSocketAdapter {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketHandler.class);
-    private static final ErrorReportingWriteCallback ERROR_REPORTING_WRITE_CALLBACK = new ErrorReportingWriteCallback(logger);
     private static final Gson GSON = new GsonBuilder()
             .registerTypeAdapterFactory(ValidatorTypeAdapterFactory.getInstance())
             .disableHtmlEscaping()
             .create();
+    private static final int MAX_PENDING_REQUESTS = 256;
+    // distinguishes the connections from the same address in the metrics
+    private static final AtomicLong CONNECTION_COUNTER = new AtomicLong();
+    // shared by all the connections; each one uses at most a thread per top level resource it's accessing
+    private static final ExecutorService REQUEST_POOL = Executors.newFixedThreadPool(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()),
+            new ThreadFactoryBuilder().setNameFormat("ws-requests-%d").setDaemon(true).build());
+    private final OutboundQueuePolicy outboundQueuePolicy;
+    private final WireFormat<M> wireFormat;
     private JsonSession jsonSession;
+    private OutboundMessageQueue<M> outboundQueue;
+    private RequestScheduler requestScheduler;
+    // not null if the client has enabled the resource patches
+    private volatile ResourcePatchEncoder<M> patchEncoder;
+
+    public WebSocketHandler(OutboundQueuePolicy outboundQueuePolicy, WireFormat<M> wireFormat) {
+        this.outboundQueuePolicy = outboundQueuePolicy;
+        this.wireFormat = wireFormat;
+    }
 
     @Override
     public void onWebSocketConnect(Session session) {
         super.onWebSocketConnect(session);
         logger.info("Connected: " + session.getRemoteAddress());
+        String connectionName = session.getRemoteAddress().getHostString() + ":" + session.getRemoteAddress().getPort()
+                + "#" + CONNECTION_COUNTER.incrementAndGet();
+        outboundQueue = new OutboundMessageQueue<>(connectionName, outboundQueuePolicy, new OutboundMessageQueue.Connection<M>() {
+            @Override
+            public void write(M message, WriteCallback callback) {
+                wireFormat.send(session.getRemote(), message, callback);
+            }
+
+            @Override
+            public void close(int statusCode, String reason) {
+                session.close(statusCode, reason);
+            }
+        }, wireFormat::size, (resourcePath, missedEvents) -> wireFormat.encode(eventsSummaryContent(resourcePath, missedEvents)),
+                OutboundQueueMetrics.getInstance());
+        requestScheduler = new RequestScheduler(REQUEST_POOL, MAX_PENDING_REQUESTS);
         jsonSession = new JsonSession();
-        jsonSession.setResourceEventListener((resourceName, eventData) ->
-                send(new ServerToClientMessage(ServerToClientMessage.MessageType.RESOURCE_EVENT, resourceName, eventData)));
-        jsonSession.setResourceChangeSubscriber((resourceName, newData) ->
-                send(new ServerToClientMessage(ServerToClientMessage.MessageType.RESOURCE_CHANGED, resourceName, newData)));
+        jsonSession.setResourceEventListener((resourceName, eventData) -> outboundQueue.offerResourceEvent(resourceName,
+                wireFormat.encode(messageContent(ServerToClientMessage.MessageType.RESOURCE_EVENT, resourceName,
+                        (writer) -> JsonStringEncoder.writeElement(writer, eventData)))));
+        jsonSession.setResourceChangeSubscriber(this::offerResourceChanged);
+    }
+
+    private void offerResourceChanged(ResourceUpdate update) {
+        ResourcePatchEncoder<M> currentPatchEncoder = patchEncoder;
+        if (currentPatchEncoder == null) {
+            outboundQueue.offerResourceChanged(update.getPath().getItemList(), wireFormat.encodeResourceChanged(update));
+        } else {
+            outboundQueue.offerResourceChanged(update.getPath().getItemList(), wireFormat.encodeResourceChanged(update),
+                    (fullMessage) -> currentPatchEncoder.encode(update, fullMessage));
+        }
     }
 
     @Override
     public void onWebSocketText(String message) {
         super.onWebSocketText(message);
         try {
-            ClientToServerMessage deserializedMessage = GSON.fromJson(message, ClientToServerMessage.class);
-            handleClientMessage(deserializedMessage);
+            handleClientMessage(decodeMessage(message));
+        } catch (JsonSyntaxException ex) {
+            sendResult(new ActionResult(ex));
+        }
+    }
+
+    /**
+     * Binary messages are decoded as CBOR, with the same structure as the JSON text messages.
+     */
+    @Override
+    public void onWebSocketBinary(byte[] payload, int offset, int length) {
+        super.onWebSocketBinary(payload, offset, length);
+        try {
+            handleClientMessage(decodeBinaryMessage(payload, offset, length));
         } catch (JsonSyntaxException ex) {
             sendResult(new ActionResult(ex));
         }
@@ -69,8 +139,10 @@ public class WebSocketHandler extends WebSocketAdapter {
     @Override
     public void onWebSocketClose(int statusCode, String reason) {
         super.onWebSocketClose(statusCode, reason);
+        requestScheduler.close();
         jsonSession.disconnect();
         jsonSession = null;
+        outboundQueue.close();
         logger.info("Socket Closed: [" + statusCode + "] " + reason);
     }
 
@@ -80,42 +152,246 @@ public class WebSocketHandler extends WebSocketAdapter {
         logger.error("Error", cause);
     }
 
+    /**
+     * The message is parsed on the calling thread, but the request is performed by the scheduler: requests for different
+     * top level resources run concurrently, while the requests for the same one, and those which affect the whole session
+     * (like the authentication), keep the order in which they have been received.
+     */
     private void handleClientMessage(ClientToServerMessage clientMessage) {
+        JsonSession session = jsonSession;
+        JsonElement requestId = clientMessage.getRequestId();
         switch(clientMessage.getMessageType()) {
             case AUTHENTICATION_REQUEST:
-                sendResult(jsonSession.initAuthentication()); //send server handshake hello
+                //send server handshake hello
+                schedule(null, () -> sendResult(session.initAuthentication(), null, requestId), requestId);
                 break;
             case AUTHENTICATION_DATA:
-                sendResult(jsonSession.finishAuthentication(clientMessage.getData())); //process client handshake hello
+                //process client handshake hello
+                schedule(null, () -> sendResult(session.finishAuthentication(clientMessage.getData()), null, requestId), requestId);
                 break;
             case RESOURCE_REQUEST:
-                parseAndHandleResourceRequest(clientMessage.getData());
+                parseAndHandleResourceRequest(session, clientMessage.getData(), requestId);
+                break;
+            case PROTOCOL_OPTIONS:
+                schedule(null, () -> parseAndHandleProtocolOptions(clientMessage.getData(), requestId), requestId);
+                break;
+            case RESOURCE_RESYNC:
+                parseAndHandleResourceResync(session, clientMessage.getData(), requestId);
+                break;
+            case RESOURCE_BATCH:
+                scheduleAsync(null, () -> session.accessResourceBatchAsync(clientMessage.getData())
+                        .thenAccept((result) -> sendResult(result, null, requestId)), requestId);
         }
     }
 
-    private void send(ServerToClientMessage message) {
-        getSession().getRemote().sendString(GSON.toJson(message), ERROR_REPORTING_WRITE_CALLBACK);
+    /**
+     * @param resourcePath the path used to order the request with the other ones for the same top level resource,
+     * or null if the request must be performed alone.
+     */
+    private void schedule(Collection<String> resourcePath, Runnable request, JsonElement requestId) {
+        scheduleAsync(resourcePath, () -> {
+            request.run();
+            return CompletableFuture.completedFuture(null);
+        }, requestId);
+    }
+
+    /**
+     * Like {@link #schedule(Collection, Runnable, JsonElement)}, but the request is complete (and the following ones for the same
+     * resource can start) when the returned stage is, e.g. after the resource method has been performed on the engine thread.
+     */
+    private void scheduleAsync(Collection<String> resourcePath, Supplier<CompletionStage<?>> request, JsonElement requestId) {
+        Supplier<CompletionStage<?>> guardedRequest = () -> guardRequest(resourcePath, request, requestId);
+        boolean accepted;
+        if (resourcePath == null || resourcePath.isEmpty()) {
+            accepted = requestScheduler.executeExclusiveAsync(guardedRequest);
+        } else {
+            accepted = requestScheduler.executeAsync(resourcePath.iterator().next(), guardedRequest);
+        }
+        if (!accepted) {
+            sendResult(new ActionResult(ActionResult.Status.BAD_REQUEST, "Too many pending requests"), resourcePath, requestId);
+        }
+    }
+
+    /**
+     * Performs a request, making sure that the client receives an action result with its ID even if the request fails unexpectedly,
+     * since a client which pipelines requests waits for the result of each one.
+     */
+    private CompletionStage<?> guardRequest(Collection<String> resourcePath, Supplier<CompletionStage<?>> request, JsonElement requestId) {
+        CompletionStage<?> stage;
+        try {
+            stage = request.get();
+        } catch (RuntimeException ex) {
+            CompletableFuture<?> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            stage = failed;
+        }
+        return stage.handle((result, failure) -> {
+            if (failure != null) {
+                logger.error("Unexpected failure while performing a request", failure);
+                sendResult(new ActionResult(ActionResult.Status.GENERIC_ERROR, "Internal server error"), resourcePath, requestId);
+            }
+            return null;
+        });
+    }
+
+    static ClientToServerMessage decodeMessage(String message) throws JsonSyntaxException {
+        return GSON.fromJson(message, ClientToServerMessage.class);
+    }
+
+    static ClientToServerMessage decodeBinaryMessage(byte[] payload, int offset, int length) throws JsonSyntaxException {
+        return GSON.fromJson(CborDecoder.decode(payload, offset, length), ClientToServerMessage.class);
+    }
+
+    static ResourceRequestClientMessage decodeResourceRequest(JsonElement requestMessage) throws JsonSyntaxException {
+        return GSON.fromJson(requestMessage, ResourceRequestClientMessage.class);
+    }
+
+    static ProtocolOptionsClientMessage decodeProtocolOptions(JsonElement optionsMessage) throws JsonSyntaxException {
+        return GSON.fromJson(optionsMessage, ProtocolOptionsClientMessage.class);
+    }
+
+    private static JsonStringEncoder.Content eventsSummaryContent(Collection<String> resourcePath, int missedEvents) {
+        return messageContent(ServerToClientMessage.MessageType.RESOURCE_EVENT, resourcePath, (writer) -> {
+            writer.beginObject();
+            writer.name("missedEvents").value(missedEvents);
+            writer.endObject();
+        });
+    }
+
+    /**
+     * Builds a message with the same structure as a {@link ServerToClientMessage}, writing the data directly
+     * to the output rather than converting it to a JSON tree first.
+     */
+    static JsonStringEncoder.Content messageContent(ServerToClientMessage.MessageType messageType, Collection<String> resourcePath,
+                                                    JsonStringEncoder.Content data) {
+        return messageContent(messageType, resourcePath, null, data);
+    }
+
+    static JsonStringEncoder.Content messageContent(ServerToClientMessage.MessageType messageType, Collection<String> resourcePath,
+                                                    JsonElement requestId, JsonStringEncoder.Content data) {
+        return (writer) -> {
+            writer.beginObject();
+            writer.name("messageType").value(messageType.name());
+            if (resourcePath != null) {
+                writer.name("resourcePath");
+                JsonStringEncoder.writeStringArray(writer, resourcePath);
+            }
+            if (requestId != null) {
+                writer.name("requestId");
+                JsonStringEncoder.writeElement(writer, requestId);
+            }
+            writer.name("data");
+            data.writeTo(writer);
+            writer.endObject();
+        };
+    }
+
+    static JsonStringEncoder.Content resourceChangedContent(ResourceUpdate update) {
+        return messageContent(ServerToClientMessage.MessageType.RESOURCE_CHANGED, update.getPath().getItemList(),
+                (writer) -> JsonSession.writeUpdateData(update, writer));
+    }
+
+    static String encodeResourceChanged(ResourceUpdate update) {
+        return WireFormat.JSON.encodeResourceChanged(update);
+    }
+
+    /**
+     * Builds a RESOURCE_PATCH message, whose data is an object with the version of the resource state obtained by applying the patch
+     * and the patch itself, as a JSON Patch array.
+     */
+    static JsonStringEncoder.Content resourcePatchContent(Collection<String> resourcePath, int version, JsonArray patch) {
+        return messageContent(ServerToClientMessage.MessageType.RESOURCE_PATCH, resourcePath, (writer) -> {
+            writer.beginObject();
+            writer.name("version").value(version);
+            writer.name("patch");
+            // JSON Patch operations must keep their "value" keys even if they're null
+            writer.setSerializeNulls(true);
+            JsonStringEncoder.writeElement(writer, patch);
+            writer.setSerializeNulls(false);
+            writer.endObject();
+        });
+    }
+
+    static JsonStringEncoder.Content actionResultContent(ActionResult result, Collection<String> resourcePath) {
+        return actionResultContent(result, resourcePath, null);
+    }
+
+    /**
+     * @param requestId the ID of the request which is being answered, if the client has specified it.
+     */
+    static JsonStringEncoder.Content actionResultContent(ActionResult result, Collection<String> resourcePath, JsonElement requestId) {
+        return messageContent(ServerToClientMessage.MessageType.ACTION_RESULT, resourcePath, requestId, result::writeTo);
+    }
+
+    static String encodeActionResult(ActionResult result, Collection<String> resourcePath) {
+        return JsonStringEncoder.encode(actionResultContent(result, resourcePath));
     }
 
     private void sendResult(ActionResult result) {
-        send(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT, result.toJsonTree(GSON)));
+        sendResult(result, null, null);
     }
 
-    private void sendResult(ActionResult result, Collection<String> resourcePath) {
-        send(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT, resourcePath, result.toJsonTree(GSON)));
+    private void sendResult(ActionResult result, Collection<String> resourcePath, JsonElement requestId) {
+        outboundQueue.offerActionResult(wireFormat.encode(actionResultContent(result, resourcePath, requestId)));
     }
 
-    private void parseAndHandleResourceRequest(JsonElement requestMessage) {
+    private void parseAndHandleResourceRequest(JsonSession session, JsonElement requestMessage, JsonElement requestId) {
+        ResourceRequestClientMessage request;
         try {
-            ResourceRequestClientMessage deserializedMessage = GSON.fromJson(requestMessage, ResourceRequestClientMessage.class);
-            handleResourceRequest(deserializedMessage);
+            request = decodeResourceRequest(requestMessage);
         } catch (JsonSyntaxException ex) {
-            sendResult(new ActionResult(ex));
+            sendResult(new ActionResult(ex), null, requestId);
+            return;
         }
+        Collection<String> resourcePath = request.getResourcePath();
+        scheduleAsync(resourcePath, () -> session.accessResourceAsync(new ArrayList<>(resourcePath), request.getMethod(), request.getData())
+                .thenAccept((result) -> sendResult(result, resourcePath, requestId)), requestId);
     }
 
-    private void handleResourceRequest(ResourceRequestClientMessage deserializedMessage) {
-        Collection<String> resourcePath = deserializedMessage.getResourcePath();
-        sendResult(jsonSession.accessResource(new ArrayList<>(resourcePath), deserializedMessage.getMethod(), deserializedMessage.getData()), resourcePath);
+    private void parseAndHandleProtocolOptions(JsonElement optionsMessage, JsonElement requestId) {
+        try {
+            ProtocolOptionsClientMessage options = decodeProtocolOptions(optionsMessage);
+            if (options.getResourcePatches() && patchEncoder == null) {
+                patchEncoder = new ResourcePatchEncoder<>(wireFormat);
+            } else if (!options.getResourcePatches()) {
+                patchEncoder = null;
+            }
+            sendResult(ActionResult.OK, null, requestId);
+        } catch (JsonSyntaxException ex) {
+            sendResult(new ActionResult(ex), null, requestId);
+        }
+    }
+
+    /**
+     * Sends the whole state of a resource in a RESOURCE_CHANGED message, after which the following changes are
+     * sent as patches again; the client should request it if it receives a patch for a version it doesn't expect.
+     */
+    private void parseAndHandleResourceResync(JsonSession session, JsonElement resourcePathMessage, JsonElement requestId) {
+        List<String> resourcePath;
+        try {
+            resourcePath = Arrays.asList(GSON.fromJson(resourcePathMessage, String[].class));
+        } catch (JsonSyntaxException ex) {
+            sendResult(new ActionResult(ex), null, requestId);
+            return;
+        }
+        scheduleAsync(resourcePath, () -> handleResourceResync(session, resourcePath, requestId), requestId);
+    }
+
+    private CompletionStage<?> handleResourceResync(JsonSession session, List<String> resourcePath, JsonElement requestId) {
+        ResourcePatchEncoder<M> currentPatchEncoder = patchEncoder;
+        if (currentPatchEncoder == null) {
+            sendResult(new ActionResult(ActionResult.Status.BAD_REQUEST, "Resource patches are not enabled"), resourcePath, requestId);
+            return CompletableFuture.completedFuture(null);
+        }
+        return session.getResourceStateAsync(resourcePath).handle((state, failure) -> {
+            if (failure != null) {
+                sendResult(ResourceAccessException.getResultToSend(failure), resourcePath, requestId);
+            } else {
+                currentPatchEncoder.reset(state.getPath());
+                sendResult(ActionResult.OK, resourcePath, requestId);
+                offerResourceChanged(state);
+            }
+            return null;
+        });
     }
 }
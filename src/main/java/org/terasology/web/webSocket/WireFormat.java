@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.terasology.web.io.JsonStringEncoder;
+import org.terasology.web.io.cbor.CborWriter;
+import org.terasology.web.resources.ResourceUpdate;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The encoding of the messages sent on a WebSocket connection: either JSON text frames, which is the default,
+ * or CBOR binary frames, used when the client offers the "cbor" subprotocol during the handshake.
+ * Both have the same message structure, since they are written by the same {@link JsonStringEncoder.Content}.
+ * @param <M> the type of the encoded messages.
+ */
+public final class WireFormat<M> {
+
+    @FunctionalInterface
+    private interface Sender<M> {
+        void send(RemoteEndpoint remote, M message, WriteCallback callback);
+    }
+
+    public static final WireFormat<String> JSON = new WireFormat<>(null, JsonStringEncoder::encode, String::length,
+            RemoteEndpoint::sendString);
+    public static final WireFormat<byte[]> CBOR = new WireFormat<>("cbor", CborWriter::encode, (message) -> message.length,
+            (remote, message, callback) -> remote.sendBytes(ByteBuffer.wrap(message), callback));
+
+    private final String subProtocol;
+    private final Function<JsonStringEncoder.Content, M> encoder;
+    private final ToIntFunction<M> sizeFunction;
+    private final Sender<M> sender;
+    // RESOURCE_CHANGED messages don't depend on the receiving connection, so they are encoded once per update and format
+    private final Function<ResourceUpdate, M> resourceChangedEncoder;
+
+    private WireFormat(String subProtocol, Function<JsonStringEncoder.Content, M> encoder, ToIntFunction<M> sizeFunction, Sender<M> sender) {
+        this.subProtocol = subProtocol;
+        this.encoder = encoder;
+        this.sizeFunction = sizeFunction;
+        this.sender = sender;
+        this.resourceChangedEncoder = (update) -> encode(WebSocketHandler.resourceChangedContent(update));
+    }
+
+    /**
+     * @param offeredSubProtocols the subprotocols requested by the client, in order of preference.
+     * @return the first format whose subprotocol has been offered, or {@link #JSON} if there isn't any.
+     */
+    public static WireFormat<?> negotiate(List<String> offeredSubProtocols) {
+        for (String offered: offeredSubProtocols) {
+            if (CBOR.subProtocol.equalsIgnoreCase(offered)) {
+                return CBOR;
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * @return the name of the WebSocket subprotocol to accept for this format, or null if it's the default one.
+     */
+    public String getSubProtocol() {
+        return subProtocol;
+    }
+
+    public M encode(JsonStringEncoder.Content content) {
+        return encoder.apply(content);
+    }
+
+    /**
+     * @return the size of the message, in characters for text messages and in bytes for binary ones.
+     */
+    public int size(M message) {
+        return sizeFunction.applyAsInt(message);
+    }
+
+    M encodeResourceChanged(ResourceUpdate update) {
+        return update.getEncoded(resourceChangedEncoder);
+    }
+
+    void send(RemoteEndpoint remote, M message, WriteCallback callback) {
+        sender.send(remote, message, callback);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EngineThreadExecutorTest {
+
+    private final EngineThreadExecutor executor = new EngineThreadExecutor();
+    private final List<String> completed = Collections.synchronizedList(new ArrayList<>());
+
+    private void executeFromOtherThread(String name) throws InterruptedException {
+        Thread submitter = new Thread(() -> executor.execute(() -> completed.add(name + " on " + Thread.currentThread().getName())));
+        submitter.setName("web");
+        submitter.start();
+        submitter.join();
+    }
+
+    @Test
+    public void testRunsDirectlyWithoutEngineTicks() throws InterruptedException {
+        executeFromOtherThread("request");
+        assertEquals(Collections.singletonList("request on web"), completed);
+    }
+
+    @Test
+    public void testQueuedUntilTick() throws InterruptedException {
+        String engineThreadName = Thread.currentThread().getName();
+        executor.runPendingTasks(); // the current thread becomes the engine thread
+        executeFromOtherThread("request");
+        assertTrue(completed.isEmpty());
+
+        executor.runPendingTasks();
+        assertEquals(Collections.singletonList("request on " + engineThreadName), completed);
+
+        // tasks submitted by the engine thread itself are not delayed
+        executor.execute(() -> completed.add("inline"));
+        assertEquals(2, completed.size());
+    }
+
+    @Test(timeout = 5000)
+    public void testAwaitTasks() throws InterruptedException {
+        executor.runPendingTasks();
+        executor.awaitTasks(50); // no task: returns after the timeout
+
+        Thread submitter = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            executor.execute(() -> completed.add("request"));
+        });
+        submitter.start();
+        executor.awaitTasks(60000); // woken up by the submitted task, well before the timeout
+        submitter.join();
+        executor.runPendingTasks();
+        assertEquals(Collections.singletonList("request"), completed);
+    }
+
+    @Test
+    public void testStopRunsPendingTasks() throws InterruptedException {
+        executor.runPendingTasks();
+        executeFromOtherThread("first");
+        executor.stopRunningTasks();
+        assertEquals(1, completed.size());
+
+        executeFromOtherThread("second");
+        assertEquals("second on web", completed.get(1));
+    }
+}
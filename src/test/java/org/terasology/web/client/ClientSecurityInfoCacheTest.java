@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.client;
+
+import org.junit.Test;
+import org.terasology.web.serverAdminManagement.ServerAdminsManager;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClientSecurityInfoCacheTest {
+
+    @Test
+    public void testRecomputedOnlyWhenAdminListChanges() {
+        ServerAdminsManager adminsManagerMock = mock(ServerAdminsManager.class);
+        when(adminsManagerMock.getAdminListVersion()).thenReturn(1L);
+        when(adminsManagerMock.clientHasAdminPermissions("client")).thenReturn(false);
+        ClientSecurityInfoCache cache = new ClientSecurityInfoCache(adminsManagerMock, true, "client");
+
+        ClientSecurityInfo first = cache.get();
+        assertTrue(first.isAuthenticated());
+        assertFalse(first.hasAdminPermission());
+        assertSame(first, cache.get());
+        verify(adminsManagerMock, times(1)).clientHasAdminPermissions("client");
+
+        when(adminsManagerMock.getAdminListVersion()).thenReturn(2L);
+        when(adminsManagerMock.clientHasAdminPermissions("client")).thenReturn(true);
+        assertTrue(cache.get().hasAdminPermission());
+        verify(adminsManagerMock, times(2)).clientHasAdminPermissions("client");
+    }
+}
@@ -19,6 +19,8 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import org.junit.Test;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
@@ -34,21 +36,28 @@ import org.terasology.web.authentication.HandshakeHello;
 import org.terasology.web.client.AnonymousHeadlessClient;
 import org.terasology.web.client.AuthenticatedHeadlessClient;
 import org.terasology.web.client.HeadlessClientFactory;
-import org.terasology.web.io.gsonUtils.ByteArrayBase64Serializer;
+import org.terasology.web.io.gsonUtils.ByteArrayTypeAdapter;
 import org.terasology.web.resources.ResourceManager;
+import org.terasology.web.resources.ResourceUpdate;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ResourceMethodName;
+import org.terasology.web.resources.base.ResourcePath;
 
 
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -60,7 +69,7 @@ public class JsonSessionTest {
     private static final byte[] EMPTY = new byte[]{};
     private static final Gson GSON = new GsonBuilder()
             .registerTypeHierarchyAdapter(BigInteger.class, BigIntegerBase64Serializer.getInstance())
-            .registerTypeAdapter(byte[].class, ByteArrayBase64Serializer.getInstance())
+            .registerTypeAdapter(byte[].class, ByteArrayTypeAdapter.getInstance())
             .create();
 
     @Test
@@ -132,7 +141,8 @@ public class JsonSessionTest {
     @Test
     public void testResourceRequest() throws ResourceAccessException {
         ResourceManager resourceManagerMock = mock(ResourceManager.class);
-        when(resourceManagerMock.performAction(any(), any(), any(), any(), any())).thenReturn("someStringResult");
+        when(resourceManagerMock.getResourceStateAsync(any(), any(), any(), any()))
+                .thenReturn(completedFuture(new ResourceUpdate(new ResourcePath("testResources", "someTestResource"), "someStringResult")));
 
         JsonSession session = new JsonSession(null, mock(HeadlessClientFactory.class), resourceManagerMock);
         ActionResult result = session.accessResource(Arrays.asList("testResources", "someTestResource"), ResourceMethodName.GET, null);
@@ -141,6 +151,45 @@ public class JsonSessionTest {
         assertNull(result.getMessage());
     }
 
+    @Test
+    public void testResourceEntityTag() throws ResourceAccessException {
+        ResourceManager resourceManagerMock = mock(ResourceManager.class);
+        ResourcePath path = new ResourcePath("config", "MOTD");
+        when(resourceManagerMock.getResourceStateAsync(any(), any(), any(), any())).thenReturn(completedFuture(new ResourceUpdate(path, "message")),
+                completedFuture(new ResourceUpdate(path, "message")), completedFuture(new ResourceUpdate(path, "new message")));
+
+        JsonSession session = new JsonSession(null, mock(HeadlessClientFactory.class), resourceManagerMock);
+        String firstTag = session.accessResource(path.getItemList(), ResourceMethodName.GET, null).getEntityTag();
+        assertNotNull(firstTag);
+        assertEquals(firstTag, session.accessResource(path.getItemList(), ResourceMethodName.GET, null).getEntityTag());
+        assertNotEquals(firstTag, session.accessResource(path.getItemList(), ResourceMethodName.GET, null).getEntityTag());
+    }
+
+    @Test
+    public void testResourceBatch() throws ResourceAccessException {
+        ResourceManager resourceManagerMock = mock(ResourceManager.class);
+        ResourcePath motdPath = new ResourcePath("config", "MOTD");
+        CompletableFuture<Object> forbidden = new CompletableFuture<>();
+        forbidden.completeExceptionally(new ResourceAccessException(new ActionResult(ActionResult.Status.FORBIDDEN, "Not allowed")));
+        when(resourceManagerMock.getResourceStateAsync(eq(motdPath), any(), any(), any())).thenReturn(completedFuture(new ResourceUpdate(motdPath, "message")));
+        when(resourceManagerMock.performActionAsync(eq(motdPath), eq(ResourceMethodName.PUT), any(), any(), any())).thenReturn(completedFuture(null));
+        when(resourceManagerMock.performActionAsync(eq(new ResourcePath("games")), eq(ResourceMethodName.POST), any(), any(), any()))
+                .thenReturn(forbidden);
+
+        JsonSession session = new JsonSession(null, mock(HeadlessClientFactory.class), resourceManagerMock);
+        JsonElement batch = new JsonParser().parse("[{\"method\":\"GET\",\"resourcePath\":[\"config\",\"MOTD\"]},"
+                + "{\"method\":\"POST\",\"resourcePath\":[\"games\"],\"data\":{}},"
+                + "{\"method\":\"PUT\",\"resourcePath\":[\"config\",\"MOTD\"],\"data\":\"new message\"}]");
+        ActionResult result = session.accessResourceBatch(batch);
+        assertEquals(ActionResult.Status.OK, result.getStatus());
+        assertEquals(new JsonParser().parse("[{\"status\":\"OK\",\"data\":\"message\"},{\"status\":\"FORBIDDEN\",\"message\":\"Not allowed\"},"
+                + "{\"status\":\"OK\"}]"), result.getData());
+        verify(resourceManagerMock).performActionAsync(eq(motdPath), eq(ResourceMethodName.PUT), eq(new JsonPrimitive("new message")), any(), any());
+
+        assertEquals(ActionResult.Status.BAD_REQUEST, session.accessResourceBatch(new JsonParser().parse("[{\"method\":\"GET\"}]")).getStatus());
+        assertEquals(ActionResult.Status.BAD_REQUEST, session.accessResourceBatch(new JsonParser().parse("{}")).getStatus());
+    }
+
     private static class AuthenticationHandshakeHandlerMock implements AuthenticationHandshakeHandler {
         private boolean nextResult;
 
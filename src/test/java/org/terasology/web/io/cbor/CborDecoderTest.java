@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.cbor;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CborDecoderTest {
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testDefiniteLengthItems() {
+        // {"a": [1, -2, 1.5 (half precision)], "b": "x"}, wrapped in a tag
+        byte[] data = bytes(0xc0, 0xa2, 0x61, 'a', 0x83, 0x01, 0x21, 0xf9, 0x3e, 0x00, 0x61, 'b', 0x61, 'x');
+        assertEquals(new JsonParser().parse("{\"a\":[1,-2,1.5],\"b\":\"x\"}"), CborDecoder.decode(data));
+    }
+
+    @Test
+    public void testRegion() {
+        byte[] data = bytes(0xff, 0x82, 0xf4, 0xf5, 0xff);
+        assertEquals(new JsonParser().parse("[false,true]"), CborDecoder.decode(data, 1, 3));
+    }
+
+    @Test
+    public void testByteStrings() {
+        // [h'00ff', (_ h'01', h'02')]
+        JsonArray decoded = CborDecoder.decode(bytes(0x82, 0x42, 0x00, 0xff, 0x5f, 0x41, 0x01, 0x41, 0x02, 0xff)).getAsJsonArray();
+        String definite = decoded.get(0).getAsString();
+        assertTrue(CborDecoder.isByteString(definite));
+        assertArrayEquals(bytes(0x00, 0xff), CborDecoder.getByteStringBytes(definite));
+        assertArrayEquals(bytes(0x01, 0x02), CborDecoder.getByteStringBytes(decoded.get(1).getAsString()));
+        assertFalse(CborDecoder.isByteString("AAE="));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testInvalidByteString() {
+        CborDecoder.getByteStringBytes(CborDecoder.BYTE_STRING_MARKER + "\u0100");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testTruncated() {
+        CborDecoder.decode(bytes(0x9f, 0x01));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testLengthExceedingData() {
+        CborDecoder.decode(bytes(0x7a, 0x7f, 0xff, 0xff, 0xff, 'a'));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testTooDeep() {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 0x81);
+        CborDecoder.decode(data);
+    }
+}
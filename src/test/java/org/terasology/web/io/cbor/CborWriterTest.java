@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.cbor;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.io.gsonUtils.ByteArrayTypeAdapter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CborWriterTest {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(byte[].class, ByteArrayTypeAdapter.getInstance())
+            .create();
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testEncodeValues() {
+        assertArrayEquals(bytes(0x17), CborWriter.encode((writer) -> writer.value(23)));
+        assertArrayEquals(bytes(0x18, 0x18), CborWriter.encode((writer) -> writer.value(24)));
+        assertArrayEquals(bytes(0x19, 0x03, 0xe8), CborWriter.encode((writer) -> writer.value(1000)));
+        assertArrayEquals(bytes(0x38, 0x63), CborWriter.encode((writer) -> writer.value(-100)));
+        assertArrayEquals(bytes(0xfb, 0x3f, 0xf8, 0, 0, 0, 0, 0, 0), CborWriter.encode((writer) -> writer.value(1.5)));
+        assertArrayEquals(bytes(0x62, 'h', 'i'), CborWriter.encode((writer) -> writer.value("hi")));
+        assertArrayEquals(bytes(0x42, 1, 2), CborWriter.encode((writer) -> ((CborWriter) writer).byteStringValue(new byte[] {1, 2})));
+        assertArrayEquals(bytes(0xbf, 0x61, 'a', 0x9f, 0x01, 0xf5, 0xf6, 0xff, 0xff), CborWriter.encode((writer) -> {
+            writer.beginObject();
+            writer.name("a").beginArray().value(1).value(true).nullValue().endArray();
+            writer.name("b").nullValue(); // omitted like in JSON
+            writer.endObject();
+        }));
+    }
+
+    @Test
+    public void testRoundTripMatchesJson() {
+        String json = "{\"text\":\"<\\u00e8 & \\\"b\\\">\",\"int\":-123456789012,\"double\":0.25,\"list\":[1,[],{}],\"flag\":false}";
+        JsonElement tree = new JsonParser().parse(json);
+        assertEquals(tree, CborDecoder.decode(CborWriter.encode((writer) -> writer.jsonValue(json))));
+    }
+
+    @Test
+    public void testByteArraysAreNative() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("key", new byte[] {(byte) 0xca, (byte) 0xfe});
+        byte[] encoded = CborWriter.encode((writer) -> GSON.toJson(data, Map.class, writer));
+        assertArrayEquals(bytes(0xbf, 0x63, 'k', 'e', 'y', 0x42, 0xca, 0xfe, 0xff), encoded);
+        // the decoded byte string is read by the same adapter which reads the Base64 strings of the JSON representation
+        assertArrayEquals(new byte[] {(byte) 0xca, (byte) 0xfe},
+                GSON.fromJson(CborDecoder.decode(encoded).getAsJsonObject().get("key"), byte[].class));
+        assertArrayEquals(new byte[] {(byte) 0xca, (byte) 0xfe},
+                GSON.fromJson(new JsonParser().parse(GSON.toJson(data)).getAsJsonObject().get("key"), byte[].class));
+    }
+
+    @Test
+    public void testSerializedResultWritesCborEncoding() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("key", new byte[] {(byte) 0xca, (byte) 0xfe});
+        byte[] json = GSON.toJson(data).getBytes(StandardCharsets.UTF_8);
+        byte[] cbor = CborWriter.encode((writer) -> GSON.toJson(data, Map.class, writer));
+        ActionResult result = ActionResult.ofSerializedData(json, "tag", () -> cbor);
+
+        // the byte array stays a native byte string instead of the Base64 string of the JSON representation
+        assertArrayEquals(cbor, CborWriter.encode(result::writeDataTo));
+        assertArrayEquals(bytes(0xbf, 0x61, 'd', 0xbf, 0x63, 'k', 'e', 'y', 0x42, 0xca, 0xfe, 0xff, 0xff), CborWriter.encode((writer) -> {
+            writer.beginObject();
+            writer.name("d");
+            result.writeDataTo(writer);
+            writer.endObject();
+        }));
+    }
+}
@@ -15,25 +15,35 @@
  */
 package org.terasology.web.io.gsonUtils;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonPrimitive;
 import org.junit.Test;
 
 import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
-public class ByteArrayBase64SerializerTest {
+public class ByteArrayTypeAdapterTest {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(byte[].class, ByteArrayTypeAdapter.getInstance())
+            .create();
 
     @Test
-    public void testSerializer() {
-        ByteArrayBase64Serializer serializer = new ByteArrayBase64Serializer();
+    public void testBase64RoundTrip() {
         byte[] data = new byte[10];
         new Random(1).nextBytes(data);
-        JsonElement serialized = serializer.serialize(data, null, null);
+        JsonElement serialized = GSON.toJsonTree(data);
         assertTrue(serialized.isJsonPrimitive());
-        assertTrue(((JsonPrimitive) serialized).isString());
-        assertArrayEquals(data, serializer.deserialize(serialized, null, null));
+        assertTrue(serialized.getAsJsonPrimitive().isString());
+        assertArrayEquals(data, GSON.fromJson(serialized, byte[].class));
+    }
+
+    @Test
+    public void testNull() {
+        assertNull(GSON.fromJson("null", byte[].class));
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.gsonUtils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonPatchTest {
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    private static JsonArray diff(String source, String target) {
+        JsonArray patch = JsonPatch.diff(PARSER.parse(source), PARSER.parse(target));
+        assertEquals(PARSER.parse(target), apply(PARSER.parse(source), patch));
+        return patch;
+    }
+
+    /**
+     * A minimal implementation of the add, remove and replace operations, to check that the patches produce the target value.
+     */
+    private static JsonElement apply(JsonElement document, JsonArray patch) {
+        for (JsonElement operationElement: patch) {
+            JsonObject operation = operationElement.getAsJsonObject();
+            String[] tokens = operation.get("path").getAsString().split("/", -1);
+            if (tokens.length == 1) {
+                document = operation.get("value"); // replace of the root
+                continue;
+            }
+            JsonElement parent = document;
+            for (int i = 1; i < tokens.length - 1; i++) {
+                parent = child(parent, unescape(tokens[i]));
+            }
+            String key = unescape(tokens[tokens.length - 1]);
+            String op = operation.get("op").getAsString();
+            if (parent.isJsonArray()) {
+                JsonArray array = parent.getAsJsonArray();
+                int index = Integer.parseInt(key);
+                if (op.equals("add")) {
+                    JsonArray result = new JsonArray();
+                    for (int i = 0; i <= array.size(); i++) {
+                        if (i == index) {
+                            result.add(operation.get("value"));
+                        }
+                        if (i < array.size()) {
+                            result.add(array.get(i));
+                        }
+                    }
+                    while (array.size() > 0) {
+                        array.remove(0);
+                    }
+                    array.addAll(result);
+                } else if (op.equals("remove")) {
+                    array.remove(index);
+                } else {
+                    array.set(index, operation.get("value"));
+                }
+            } else if (op.equals("remove")) {
+                parent.getAsJsonObject().remove(key);
+            } else {
+                parent.getAsJsonObject().add(key, operation.get("value"));
+            }
+        }
+        return document;
+    }
+
+    private static JsonElement child(JsonElement parent, String key) {
+        return parent.isJsonArray() ? parent.getAsJsonArray().get(Integer.parseInt(key)) : parent.getAsJsonObject().get(key);
+    }
+
+    private static String unescape(String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+
+    @Test
+    public void testEqualValues() {
+        assertEquals(0, diff("{\"a\": [1, 2, {\"b\": null}]}", "{\"a\": [1, 2, {\"b\": null}]}").size());
+    }
+
+    @Test
+    public void testObjects() {
+        JsonArray patch = diff("{\"a\": 1, \"b\": {\"c\": \"x\", \"d/e~\": 2}}", "{\"b\": {\"c\": \"y\", \"d/e~\": 2}, \"f\": true}");
+        assertEquals(PARSER.parse("[{\"op\": \"remove\", \"path\": \"/a\"}, {\"op\": \"replace\", \"path\": \"/b/c\", \"value\": \"y\"},"
+                + "{\"op\": \"add\", \"path\": \"/f\", \"value\": true}]"), patch);
+        diff("{\"d/e~\": 1}", "{\"d/e~\": 2}");
+    }
+
+    @Test
+    public void testItemAddedToLongArray() {
+        StringBuilder source = new StringBuilder("[0");
+        for (int i = 1; i < 200; i++) {
+            source.append(", ").append(i);
+        }
+        String target = source + ", {\"name\": \"new\"}]";
+        JsonArray patch = diff(source + "]", target);
+        assertEquals(1, patch.size());
+        assertEquals("/200", patch.get(0).getAsJsonObject().get("path").getAsString());
+    }
+
+    @Test
+    public void testArrays() {
+        assertEquals(1, diff("[1, 2, 3, 4]", "[1, 3, 4]").size());
+        assertEquals(1, diff("[1, 2, 3]", "[0, 1, 2, 3]").size());
+        diff("[1, 2, 3, 4, 5]", "[1, 6, 7, 5]");
+        diff("[{\"a\": 1}, {\"a\": 2}]", "[{\"a\": 1}, {\"a\": 3}, 4]");
+        diff("[]", "[1, 2]");
+        diff("[1, 2]", "[]");
+    }
+
+    @Test
+    public void testDifferentTypes() {
+        diff("[1]", "{\"a\": 1}");
+        diff("\"text\"", "null");
+    }
+}
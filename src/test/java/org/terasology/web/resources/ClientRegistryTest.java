@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.web.client.AnonymousHeadlessClient;
+import org.terasology.web.client.HeadlessClient;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClientRegistryTest {
+
+    private static final int THREADS = 8;
+    private static final int SESSIONS_PER_THREAD = 2000;
+
+    @Test
+    public void testConnectDisconnectDuringBroadcast() throws InterruptedException {
+        ClientRegistry registry = new ClientRegistry();
+        AtomicInteger permanentClientUpdates = new AtomicInteger();
+        registry.add(new AnonymousHeadlessClient(), (update) -> permanentClientUpdates.incrementAndGet(), (path, data) -> { });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch sessionsDone = new CountDownLatch(THREADS);
+        AtomicBoolean broadcasting = new AtomicBoolean(true);
+        AtomicInteger broadcasts = new AtomicInteger();
+
+        executor.execute(() -> {
+            try {
+                start.await();
+                ResourceUpdate update = new ResourceUpdate(new ResourcePath("onlinePlayers"), "data");
+                while (broadcasting.get()) {
+                    for (ClientRegistry.Registration registration: registry.getAll()) {
+                        registration.sendUpdate(update);
+                    }
+                    broadcasts.incrementAndGet();
+                }
+            } catch (Throwable ex) {
+                errors.add(ex);
+            }
+        });
+        for (int i = 0; i < THREADS; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < SESSIONS_PER_THREAD; j++) {
+                        HeadlessClient client = new AnonymousHeadlessClient();
+                        registry.add(client, (update) -> { }, (path, data) -> { });
+                        registry.remove(client);
+                    }
+                } catch (Throwable ex) {
+                    errors.add(ex);
+                } finally {
+                    sessionsDone.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(sessionsDone.await(60, TimeUnit.SECONDS));
+        broadcasting.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(1, registry.size());
+        // the client registered for the whole test must not have missed any broadcast
+        assertEquals(broadcasts.get(), permanentClientUpdates.get());
+    }
+
+    @Test
+    public void testRemovingClientKeepsOtherRegistrationForSameEntity() {
+        ClientRegistry registry = new ClientRegistry();
+        EntityRef sharedEntity = mock(EntityRef.class);
+        HeadlessClient oldClient = mock(HeadlessClient.class);
+        HeadlessClient newClient = mock(HeadlessClient.class);
+        when(oldClient.getEntity()).thenReturn(sharedEntity);
+        when(newClient.getEntity()).thenReturn(sharedEntity);
+
+        registry.add(oldClient, (update) -> { }, (path, data) -> { });
+        registry.add(newClient, (update) -> { }, (path, data) -> { });
+        registry.remove(oldClient);
+        assertSame(newClient, registry.getByEntity(sharedEntity).getClient());
+        registry.remove(newClient);
+        assertNull(registry.getByEntity(sharedEntity));
+        assertEquals(0, registry.size());
+    }
+}
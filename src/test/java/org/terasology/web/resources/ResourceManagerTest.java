@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.web.client.AnonymousHeadlessClient;
+import org.terasology.web.client.ClientSecurityInfo;
+import org.terasology.web.client.HeadlessClient;
+import org.terasology.web.resources.base.AbstractSimpleResource;
+import org.terasology.web.resources.base.ExecutionThread;
+import org.terasology.web.resources.base.ResourceMethod;
+import org.terasology.web.resources.base.ResourcePath;
+import org.terasology.web.resources.base.RouterResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResourceManagerTest {
+
+    private static final ResourcePath PATH = new ResourcePath("test");
+    private static final ClientSecurityInfo ALLOWED = new ClientSecurityInfo(true, false);
+    private static final ClientSecurityInfo DENIED = new ClientSecurityInfo(false, false);
+
+    private final ResourceManager resourceManager = ResourceManager.getInstance();
+    private final List<HeadlessClient> clients = new ArrayList<>();
+    private ResourceMethod getMethod;
+    private TestResource resource;
+
+    private static final class TestClient extends AnonymousHeadlessClient {
+        private final ClientSecurityInfo securityInfo;
+
+        private TestClient(ClientSecurityInfo securityInfo) {
+            this.securityInfo = securityInfo;
+        }
+
+        @Override
+        public ClientSecurityInfo getSecurityInfo() {
+            return securityInfo;
+        }
+    }
+
+    private final class TestResource extends AbstractSimpleResource {
+        @Override
+        protected ResourceMethod getGetMethod(ResourcePath path) {
+            return getMethod;
+        }
+    }
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        getMethod = mock(ResourceMethod.class);
+        when(getMethod.getInType()).thenReturn(Void.class);
+        when(getMethod.getExecutionThread()).thenReturn(ExecutionThread.CALLER);
+        when(getMethod.clientIsAllowed(ALLOWED)).thenReturn(true);
+        when(getMethod.perform(isNull(), any())).thenAnswer((invocation) -> new Object());
+        resource = new TestResource();
+        // the updates are sent on the notifying thread, and no client is registered yet when the resources are installed
+        resourceManager.setUpdateInterval(0);
+        resourceManager.setResources(new RouterResource.Builder().addSubResource("test", resource).build(),
+                Collections.emptyMap(), Collections.emptySet());
+    }
+
+    @After
+    public void tearDown() {
+        clients.forEach(resourceManager::removeClient);
+    }
+
+    private List<ResourceUpdate> addClient(ClientSecurityInfo securityInfo) {
+        HeadlessClient client = new TestClient(securityInfo);
+        List<ResourceUpdate> received = new ArrayList<>();
+        resourceManager.addClient(client, received::add, (path, data) -> { });
+        clients.add(client);
+        return received;
+    }
+
+    @Test
+    public void testSharedUpdatePerformedOnce() throws Exception {
+        List<ResourceUpdate> first = addClient(ALLOWED);
+        List<ResourceUpdate> second = addClient(ALLOWED);
+        List<ResourceUpdate> third = addClient(ALLOWED);
+
+        resourceManager.onChangedForAllClients(PATH, resource);
+
+        verify(getMethod, times(1)).perform(isNull(), any());
+        assertEquals(1, first.size());
+        assertEquals(PATH, first.get(0).getPath());
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(0), third.get(0));
+    }
+
+    @Test
+    public void testClientsWithoutPermissionSkipped() throws Exception {
+        List<ResourceUpdate> allowed = addClient(ALLOWED);
+        List<ResourceUpdate> denied = addClient(DENIED);
+
+        resourceManager.onChangedForAllClients(PATH, resource);
+
+        assertEquals(1, allowed.size());
+        assertTrue(denied.isEmpty());
+        verify(getMethod, times(1)).perform(isNull(), any());
+    }
+
+    @Test
+    public void testNoClientAllowed() throws Exception {
+        List<ResourceUpdate> denied = addClient(DENIED);
+
+        resourceManager.onChangedForAllClients(PATH, resource);
+
+        assertTrue(denied.isEmpty());
+        verify(getMethod, times(0)).perform(isNull(), any());
+    }
+
+    @Test
+    public void testClientSpecificOutputPerformedPerClient() throws Exception {
+        when(getMethod.hasClientSpecificOutput()).thenReturn(true);
+        List<ResourceUpdate> first = addClient(ALLOWED);
+        List<ResourceUpdate> second = addClient(ALLOWED);
+        List<ResourceUpdate> denied = addClient(DENIED);
+
+        resourceManager.onChangedForAllClients(PATH, resource);
+
+        verify(getMethod, times(1)).perform(isNull(), eq(clients.get(0)));
+        verify(getMethod, times(1)).perform(isNull(), eq(clients.get(1)));
+        verify(getMethod, times(2)).perform(isNull(), any());
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertNotSame(first.get(0), second.get(0));
+        assertTrue(denied.isEmpty());
+    }
+}
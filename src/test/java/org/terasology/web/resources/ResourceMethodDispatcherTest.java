@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.Test;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.base.ExecutionThread;
+import org.terasology.web.resources.base.ResourceAccessException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceMethodDispatcherTest {
+
+    private final Deque<Runnable> engineTasks = new ArrayDeque<>();
+    private final Executor rejectingExecutor = (task) -> {
+        throw new RejectedExecutionException();
+    };
+    private final ResourceMethodDispatcher dispatcher = new ResourceMethodDispatcher(engineTasks::add, rejectingExecutor);
+
+    @Test
+    public void testCallerThread() throws ResourceAccessException {
+        CompletableFuture<String> result = dispatcher.dispatch(ExecutionThread.CALLER, () -> "done");
+        assertEquals("done", ResourceMethodDispatcher.await(result));
+        assertTrue(engineTasks.isEmpty());
+    }
+
+    @Test
+    public void testEngineThread() {
+        CompletableFuture<String> result = dispatcher.dispatch(ExecutionThread.ENGINE, () -> "done");
+        assertFalse(result.isDone());
+        engineTasks.poll().run();
+        assertEquals("done", result.getNow(null));
+    }
+
+    @Test
+    public void testFailures() {
+        ActionResult forbidden = new ActionResult(ActionResult.Status.FORBIDDEN);
+        CompletableFuture<String> failed = dispatcher.dispatch(ExecutionThread.CALLER, () -> {
+            throw new ResourceAccessException(forbidden);
+        });
+        assertEquals(forbidden, failed.handle((result, ex) -> ResourceAccessException.getResultToSend(ex)).join());
+
+        CompletableFuture<String> rejected = dispatcher.dispatch(ExecutionThread.BACKGROUND, () -> "never performed");
+        assertEquals(ActionResult.Status.GENERIC_ERROR, rejected.handle((result, ex) -> ResourceAccessException.getResultToSend(ex)).join().getStatus());
+    }
+}
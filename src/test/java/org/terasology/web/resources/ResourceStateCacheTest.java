@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.Test;
+import org.terasology.web.resources.base.ResourcePath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceStateCacheTest {
+
+    private final ResourceStateCache cache = new ResourceStateCache(10);
+
+    private ResourceUpdate store(ResourcePath path) {
+        ResourceUpdate state = new ResourceUpdate(path, "data");
+        cache.put(state, cache.getVersion());
+        return state;
+    }
+
+    @Test
+    public void testHit() {
+        ResourceUpdate state = store(new ResourcePath("engineState"));
+        assertSame(state, cache.get(new ResourcePath("engineState")));
+        assertNull(cache.get(new ResourcePath("worldGenerators")));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidationIncludesSubPaths() {
+        store(new ResourcePath("modules", "available"));
+        store(new ResourcePath("modules", "available", "core"));
+        ResourceUpdate installerState = store(new ResourcePath("modules", "installer"));
+        cache.invalidate(new ResourcePath("modules", "available"));
+        assertNull(cache.get(new ResourcePath("modules", "available")));
+        assertNull(cache.get(new ResourcePath("modules", "available", "core")));
+        assertSame(installerState, cache.get(new ResourcePath("modules", "installer")));
+    }
+
+    @Test
+    public void testStateComputedBeforeInvalidationIsDiscarded() {
+        long version = cache.getVersion();
+        cache.invalidate(new ResourcePath("config", "MOTD"));
+        cache.put(new ResourceUpdate(new ResourcePath("config", "MOTD"), "old message"), version);
+        assertNull(cache.get(new ResourcePath("config", "MOTD")));
+    }
+
+    @Test
+    public void testInvalidationOfOtherResourceKeepsComputedState() {
+        long version = cache.getVersion();
+        cache.invalidate(new ResourcePath("onlinePlayers"));
+        ResourceUpdate state = new ResourceUpdate(new ResourcePath("config", "MOTD"), "message");
+        cache.put(state, version);
+        assertSame(state, cache.get(new ResourcePath("config", "MOTD")));
+    }
+
+    @Test
+    public void testClearDiscardsComputedStates() {
+        long version = cache.getVersion();
+        cache.clear();
+        cache.put(new ResourceUpdate(new ResourcePath("config", "MOTD"), "old message"), version);
+        assertNull(cache.get(new ResourcePath("config", "MOTD")));
+    }
+
+    @Test
+    public void testMaxEntries() {
+        for (int i = 0; i < 20; i++) {
+            store(new ResourcePath("items", Integer.toString(i)));
+        }
+        assertTrue(cache.size() <= 10);
+    }
+
+    @Test
+    public void testRecentlyUsedEntryNotEvicted() {
+        ResourceUpdate engineState = store(new ResourcePath("engineState"));
+        for (int i = 0; i < 100; i++) {
+            store(new ResourcePath("modules", "available", Integer.toString(i)));
+            assertSame(engineState, cache.get(new ResourcePath("engineState")));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.Test;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ResourceUpdateCoalescerTest {
+
+    @Test
+    public void testBurstIsMerged() {
+        ScheduledExecutorService schedulerMock = mock(ScheduledExecutorService.class);
+        List<ResourcePath> sentUpdates = new ArrayList<>();
+        ResourceUpdateCoalescer coalescer = new ResourceUpdateCoalescer(schedulerMock, 100, sentUpdates::add);
+
+        for (int i = 0; i < 10; i++) {
+            coalescer.markDirty(new ResourcePath("modules", "installer"));
+            coalescer.markDirty(new ResourcePath("onlinePlayers"));
+        }
+        assertTrue(sentUpdates.isEmpty());
+        // only the first notification schedules a flush
+        verify(schedulerMock, times(1)).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+
+        coalescer.flush();
+        assertEquals(new HashSet<>(Arrays.asList(new ResourcePath("modules", "installer"), new ResourcePath("onlinePlayers"))),
+                new HashSet<>(sentUpdates));
+        assertEquals(2, sentUpdates.size());
+        assertEquals(20, coalescer.getReceivedNotifications());
+        assertEquals(18, coalescer.getMergedNotifications());
+        assertEquals(2, coalescer.getSentUpdates());
+
+        // after a flush, a new notification is delivered by the next one
+        coalescer.markDirty(new ResourcePath("onlinePlayers"));
+        verify(schedulerMock, times(2)).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+        coalescer.flush();
+        assertEquals(3, sentUpdates.size());
+    }
+
+    @Test
+    public void testZeroIntervalSendsImmediately() {
+        ScheduledExecutorService schedulerMock = mock(ScheduledExecutorService.class);
+        List<ResourcePath> sentUpdates = new ArrayList<>();
+        ResourceUpdateCoalescer coalescer = new ResourceUpdateCoalescer(schedulerMock, 0, sentUpdates::add);
+
+        coalescer.markDirty(new ResourcePath("onlinePlayers"));
+        coalescer.markDirty(new ResourcePath("onlinePlayers"));
+        assertEquals(2, sentUpdates.size());
+        assertEquals(0, coalescer.getMergedNotifications());
+        verify(schedulerMock, never()).schedule(any(Runnable.class), any(Long.class), any());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createItemMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+
+public class AbstractItemCollectionResourceTest {
+
+    private static class CountingResource extends AbstractItemCollectionResource {
+        private final List<String> items = new ArrayList<>();
+        private int createdMethods;
+
+        @Override
+        protected ResourceMethod<Void, List<String>> getGetCollectionMethod() throws ResourceAccessException {
+            createdMethods++;
+            return createParameterlessMethod(ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> items);
+        }
+
+        @Override
+        protected ItemResourceMethod<Void, String> getGetItemMethod() throws ResourceAccessException {
+            createdMethods++;
+            return createItemMethod(ClientSecurityRequirements.PUBLIC, Void.class, (data, itemId, client) -> itemId + items.size());
+        }
+    }
+
+    private final CountingResource resource = new CountingResource();
+
+    @SuppressWarnings("unchecked")
+    private Object get(String... path) throws ResourceAccessException {
+        return resource.getMethod(ResourceMethodName.GET, new ResourcePath(path)).perform(null, null);
+    }
+
+    @Test
+    public void testCollectionMethodIsReused() throws ResourceAccessException {
+        ResourceMethod method = resource.getMethod(ResourceMethodName.GET, new ResourcePath());
+        assertSame(method, resource.getMethod(ResourceMethodName.GET, new ResourcePath()));
+        resource.items.add("a");
+        assertEquals(resource.items, get());
+        assertEquals(1, resource.createdMethods);
+    }
+
+    @Test
+    public void testItemMethodIsBoundToRequestedItem() throws ResourceAccessException {
+        assertEquals("a0", get("a"));
+        resource.items.add("x");
+        assertEquals("b1", get("b"));
+        assertEquals(1, resource.createdMethods);
+    }
+
+    @Test
+    public void testUnsupportedMethod() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                resource.getMethod(ResourceMethodName.DELETE, new ResourcePath("a"));
+                fail();
+            } catch (ResourceAccessException ex) {
+                assertSame(ResourceAccessException.METHOD_NOT_ALLOWED, ex);
+            }
+        }
+    }
+}
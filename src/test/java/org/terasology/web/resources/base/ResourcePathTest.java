@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResourcePathTest {
+
+    @Test
+    public void testEquality() {
+        ResourcePath path = new ResourcePath("modules", "", "available");
+        assertEquals(Arrays.asList("modules", "available"), path.getItemList());
+        assertEquals(new ResourcePath(Arrays.asList("modules", "available")), path);
+        assertEquals(new ResourcePath(Arrays.asList("modules", "available")).hashCode(), path.hashCode());
+        assertEquals(new ResourcePath("available").pushItem("modules"), path);
+        assertNotEquals(new ResourcePath("available", "modules"), path);
+        assertNotEquals(new ResourcePath("modules"), path);
+        assertEquals(ResourcePath.createEmpty(), new ResourcePath(""));
+        assertEquals("modules/available", path.toString());
+    }
+
+    @Test
+    public void testNavigation() throws ResourceAccessException {
+        ResourcePath path = new ResourcePath("games", "test", "backups");
+        assertEquals("games", path.getFirstItem());
+        ResourcePath remaining = path.getRemainingPath();
+        assertEquals(new ResourcePath("test", "backups"), remaining);
+        assertSame(remaining, remaining.pushItem("games").getRemainingPath());
+        assertEquals("backups", remaining.getRemainingPath().getSingleItem());
+        assertTrue(remaining.getRemainingPath().getRemainingPath().isEmpty());
+        // the original path is not modified
+        assertEquals(Arrays.asList("games", "test", "backups"), path.getItemList());
+    }
+
+    @Test
+    public void testStartsWith() {
+        ResourcePath path = new ResourcePath("modules", "available", "core");
+        assertTrue(path.startsWith(new ResourcePath("modules", "available")));
+        assertTrue(path.startsWith(path));
+        assertTrue(path.startsWith(ResourcePath.createEmpty()));
+        assertFalse(path.startsWith(new ResourcePath("modules", "installer")));
+        assertFalse(new ResourcePath("modules").startsWith(path));
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testFirstItemOfEmptyPath() throws ResourceAccessException {
+        new ResourcePath(Collections.emptyList()).getFirstItem();
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testSingleItemOfLongerPath() throws ResourceAccessException {
+        new ResourcePath("games", "test").getSingleItem();
+    }
+}
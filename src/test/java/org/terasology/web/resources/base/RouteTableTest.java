@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createItemMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+
+public class RouteTableTest {
+
+    private RouteTable routeTable;
+
+    private static class ValueResource extends AbstractSimpleResource {
+        private String value = "initial";
+
+        @Override
+        protected ResourceMethod<Void, String> getGetMethod(ResourcePath path) throws ResourceAccessException {
+            return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> value);
+        }
+    }
+
+    private static class ListResource extends AbstractItemCollectionResource {
+        private final List<String> items = Arrays.asList("a", "b");
+
+        @Override
+        protected ResourceMethod<Void, List<String>> getGetCollectionMethod() throws ResourceAccessException {
+            return createParameterlessMethod(ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> items);
+        }
+
+        @Override
+        protected ItemResourceMethod<Void, String> getGetItemMethod() throws ResourceAccessException {
+            return createItemMethod(ClientSecurityRequirements.PUBLIC, Void.class,
+                    (data, id, client) -> items.get(Integer.parseInt(id)));
+        }
+    }
+
+    private ValueResource valueResource;
+
+    @Before
+    public void setUp() {
+        valueResource = new ValueResource();
+        routeTable = RouteTable.compile(new RouterResource.Builder()
+                .addSubResource("value", valueResource)
+                .addSubResource("nested", new RouterResource.Builder(new ValueResource())
+                        .addSubResource("list", new ListResource())
+                        .build())
+                .build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object get(String... path) throws ResourceAccessException {
+        return routeTable.getMethod(ResourceMethodName.GET, new ResourcePath(path)).perform(null, null);
+    }
+
+    @Test
+    public void testStaticRoutes() throws ResourceAccessException {
+        ResourceMethod method = routeTable.getMethod(ResourceMethodName.GET, new ResourcePath("value"));
+        assertSame(method, routeTable.getMethod(ResourceMethodName.GET, new ResourcePath("value")));
+        assertEquals("initial", get("value"));
+        valueResource.value = "changed";
+        assertEquals("changed", method.perform(null, null));
+        assertEquals("initial", get("nested"));
+        assertEquals(Arrays.asList("a", "b"), get("nested", "list"));
+    }
+
+    @Test
+    public void testDynamicRoutes() throws ResourceAccessException {
+        assertEquals("b", get("nested", "list", "1"));
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testMissingRoute() throws ResourceAccessException {
+        get("nested", "missing");
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testPathBelowSimpleResource() throws ResourceAccessException {
+        get("value", "child");
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testMethodNotAllowed() throws ResourceAccessException {
+        routeTable.getMethod(ResourceMethodName.DELETE, new ResourcePath("value"));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GameBackupEngineTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private GameBackupEngine engine = new GameBackupEngine(Executors.newFixedThreadPool(4));
+    private Path source;
+    private Path target;
+    private long sourceBytes;
+
+    @Before
+    public void setUp() throws IOException {
+        source = tempFolder.getRoot().toPath().resolve("source");
+        target = tempFolder.getRoot().toPath().resolve("target");
+        Random random = new Random(0);
+        Files.createDirectories(source.resolve("world").resolve("chunks"));
+        for (int i = 0; i < 20; i++) {
+            byte[] data = new byte[random.nextInt(100000)];
+            random.nextBytes(data);
+            Files.write(source.resolve("world").resolve("chunks").resolve("chunk" + i), data);
+            sourceBytes += data.length;
+        }
+        Files.write(source.resolve("manifest.json"), "{}".getBytes());
+        sourceBytes += 2;
+        Files.createDirectory(source.resolve("empty"));
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        AtomicInteger completedFiles = new AtomicInteger();
+        AtomicLong completedBytes = new AtomicLong();
+        BackupMode usedMode = engine.backup(source, target, BackupMode.COPY, Collections.emptySet(), new GameBackupEngine.ProgressListener() {
+            @Override
+            public void onStarted(int totalFiles, long totalBytes) {
+                assertEquals(21, totalFiles);
+                assertEquals(sourceBytes, totalBytes);
+            }
+
+            @Override
+            public void onFileCompleted(long fileBytes) {
+                completedFiles.incrementAndGet();
+                completedBytes.addAndGet(fileBytes);
+            }
+        }).get(10, TimeUnit.SECONDS);
+
+        assertEquals(BackupMode.COPY, usedMode);
+        assertEquals(21, completedFiles.get());
+        assertEquals(sourceBytes, completedBytes.get());
+        assertTreesEqual();
+        assertFalse(Files.isSameFile(source.resolve("manifest.json"), target.resolve("manifest.json")));
+    }
+
+    @Test
+    public void testHardLink() throws Exception {
+        BackupMode usedMode = engine.backup(source, target, BackupMode.HARD_LINK,
+                Collections.singleton(source.getFileSystem().getPath("manifest.json")), new NullProgressListener()).get(10, TimeUnit.SECONDS);
+
+        assertEquals(BackupMode.HARD_LINK, usedMode);
+        assertTreesEqual();
+        assertTrue(Files.isSameFile(source.resolve("world/chunks/chunk0"), target.resolve("world/chunks/chunk0")));
+        assertFalse(Files.isSameFile(source.resolve("manifest.json"), target.resolve("manifest.json")));
+    }
+
+    @Test
+    public void testAutoFallsBackToCopy() throws Exception {
+        BackupMode usedMode = engine.backup(source, target, BackupMode.AUTO, Collections.emptySet(), new NullProgressListener()).get(10, TimeUnit.SECONDS);
+
+        // depending on the file system of the temporary folder, the files may be cloned or copied
+        assertTrue(usedMode == BackupMode.REFLINK || usedMode == BackupMode.COPY);
+        assertTreesEqual();
+    }
+
+    @Test
+    public void testExistingTargetNotOverwritten() throws Exception {
+        Files.createDirectory(target);
+        Files.write(target.resolve("someFile"), new byte[] {1});
+        try {
+            engine.backup(source, target, BackupMode.COPY, Collections.emptySet(), new NullProgressListener()).get(10, TimeUnit.SECONDS);
+            fail("The backup should have failed");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof FileAlreadyExistsException);
+        }
+        assertTrue(Files.exists(target.resolve("someFile")));
+    }
+
+    @Test
+    public void testFailedBackupDeleted() throws Exception {
+        try {
+            engine.backup(source, target, BackupMode.COPY, Collections.emptySet(), new NullProgressListener() {
+                @Override
+                public void onFileCompleted(long fileBytes) {
+                    throw new IllegalStateException("failure");
+                }
+            }).get(10, TimeUnit.SECONDS);
+            fail("The backup should have failed");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        assertFalse(Files.exists(target));
+    }
+
+    private void assertTreesEqual() throws IOException {
+        assertTrue(Files.isDirectory(target.resolve("empty")));
+        for (int i = 0; i < 20; i++) {
+            Path relative = source.getFileSystem().getPath("world", "chunks", "chunk" + i);
+            assertArrayEquals(Files.readAllBytes(source.resolve(relative)), Files.readAllBytes(target.resolve(relative)));
+        }
+        assertArrayEquals(Files.readAllBytes(source.resolve("manifest.json")), Files.readAllBytes(target.resolve("manifest.json")));
+    }
+
+    private static class NullProgressListener implements GameBackupEngine.ProgressListener {
+        @Override
+        public void onStarted(int totalFiles, long totalBytes) {
+        }
+
+        @Override
+        public void onFileCompleted(long fileBytes) {
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.games;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameBackupJobTest {
+
+    @Test
+    public void testProgressNotificationsThrottled() {
+        AtomicInteger notifications = new AtomicInteger();
+        GameBackupJob job = new GameBackupJob("backup", BackupMode.COPY, notifications::incrementAndGet);
+        job.onStarted(10000, 10000);
+        for (int i = 0; i < 10000; i++) {
+            job.onFileCompleted(1);
+        }
+        job.complete(BackupMode.COPY);
+
+        // the start and the completion are always notified, the progress of the files only periodically
+        assertTrue(notifications.get() >= 2);
+        assertTrue(notifications.get() < 100);
+        assertEquals(10000, job.getStatus().getCompletedFiles());
+        assertEquals(GameBackupStatus.State.COMPLETED, job.getStatus().getState());
+    }
+}
@@ -21,17 +21,30 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.terasology.engine.paths.PathManager;
 import org.terasology.game.GameManifest;
+import org.terasology.web.ThrowingRunnable;
 import org.terasology.web.resources.base.ResourceAccessException;
+import org.terasology.web.resources.base.ResourceObserver;
 import org.terasology.web.resources.base.ResourcePath;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class GamesBackupResourceTest {
@@ -40,9 +53,14 @@ public class GamesBackupResourceTest {
     public TemporaryFolder tempFolder = new TemporaryFolder();
 
     private PathManager pathManagerMock;
+    private GameBackupJobs backupJobs = new GameBackupJobs(new GameBackupEngine(Executors.newFixedThreadPool(2)));
+    private ResourceObserver observerMock = mock(ResourceObserver.class);
+    private Runnable onBackupCreatedMock = mock(Runnable.class);
+    private ThrowingRunnable<ResourceAccessException> backupPrecondition = () -> { };
 
     @Before
     public void setUp() throws IOException {
+        backupJobs.setOnBackupCreatedCallback(onBackupCreatedMock);
         pathManagerMock = mock(PathManager.class);
         Path game1Path = tempFolder.getRoot().toPath().resolve("game1");
         Path game2Path = tempFolder.getRoot().toPath().resolve("game2");
@@ -56,7 +74,7 @@ public class GamesBackupResourceTest {
     }
 
     @Test
-    public void testBackupOk() throws ResourceAccessException, IOException {
+    public void testBackupOk() throws Exception {
         Path gamePath = tempFolder.getRoot().toPath().resolve("game1");
         Path tempFolderPath = tempFolder.getRoot().toPath();
         Path backupPath = tempFolderPath.resolve("game1_backup");
@@ -64,20 +82,132 @@ public class GamesBackupResourceTest {
         assertTrue(Files.exists(gamePath));
         assertFalse(Files.exists(backupPath));
 
-        performBackup("game1");
+        performBackup("game1", null);
+        backupJobs.getLatestJob("game1").getCompletion().get(10, TimeUnit.SECONDS);
 
         assertTrue(Files.exists(gamePath));
         assertTrue(Files.exists(backupPath));
         assertTrue(Files.exists(backupPath.resolve("someFile")));
         assertTrue(Files.exists(backupPath.resolve(GameManifest.DEFAULT_FILE_NAME)));
+        assertTrue(GameManifest.load(backupPath.resolve(GameManifest.DEFAULT_FILE_NAME)).getTitle().startsWith("game1_backup"));
+        assertEquals("game1", GameManifest.load(gamePath.resolve(GameManifest.DEFAULT_FILE_NAME)).getTitle());
+        verify(onBackupCreatedMock).run();
+    }
+
+    @Test
+    public void testBackupStatus() throws Exception {
+        performBackup("game1", new GameBackupOptions(BackupMode.COPY));
+        backupJobs.getLatestJob("game1").getCompletion().get(10, TimeUnit.SECONDS);
+
+        GameBackupStatus status = getBackupStatus("game1");
+        assertEquals(GameBackupStatus.State.COMPLETED, status.getState());
+        assertEquals(BackupMode.COPY, status.getMode());
+        assertEquals(2, status.getTotalFiles());
+        assertEquals(2, status.getCompletedFiles());
+        assertEquals(status.getTotalBytes(), status.getCompletedBytes());
+        verify(observerMock, atLeastOnce()).onChangedForAllClients(eq(ResourcePath.createEmpty()), any());
+    }
+
+    @Test
+    public void testBackupHardLinkManifestCopied() throws Exception {
+        Path gamePath = tempFolder.getRoot().toPath().resolve("game1");
+        Path backupPath = tempFolder.getRoot().toPath().resolve("game1_backup");
+
+        performBackup("game1", new GameBackupOptions(BackupMode.HARD_LINK));
+        backupJobs.getLatestJob("game1").getCompletion().get(10, TimeUnit.SECONDS);
+
+        assertTrue(Files.isSameFile(gamePath.resolve("someFile"), backupPath.resolve("someFile")));
+        assertEquals("game1", GameManifest.load(gamePath.resolve(GameManifest.DEFAULT_FILE_NAME)).getTitle());
+    }
+
+    @Test
+    public void testBackupDeletedIfManifestInvalid() throws Exception {
+        Path gamePath = tempFolder.getRoot().toPath().resolve("game3");
+        Path backupPath = tempFolder.getRoot().toPath().resolve("game3_backup");
+        when(pathManagerMock.getSavePath("game3")).thenReturn(gamePath);
+        when(pathManagerMock.getSavePath(startsWith("game3_backup"))).thenReturn(backupPath);
+        Files.createDirectory(gamePath);
+        Files.createFile(gamePath.resolve("someFile"));
+
+        performBackup("game3", new GameBackupOptions(BackupMode.COPY));
+        try {
+            backupJobs.getLatestJob("game3").getCompletion().get(10, TimeUnit.SECONDS);
+            fail("The backup should have failed");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+        assertEquals(GameBackupStatus.State.FAILED, getBackupStatus("game3").getState());
+        assertFalse(Files.exists(backupPath));
+        assertFalse(Files.exists(inProgressPath(backupPath)));
+    }
+
+    @Test
+    public void testBackupHiddenUntilCompleted() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        backupJobs = new GameBackupJobs(new GameBackupEngine(tasks::add));
+        Path backupPath = tempFolder.getRoot().toPath().resolve("game1_backup");
+
+        performBackup("game1", new GameBackupOptions(BackupMode.COPY));
+        assertTrue(backupJobs.isRunning("game1"));
+        assertFalse(backupJobs.isRunning("game2"));
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            assertFalse(Files.exists(backupPath));
+            task.run();
+        }
+
+        assertFalse(backupJobs.isRunning("game1"));
+        assertEquals(GameBackupStatus.State.COMPLETED, getBackupStatus("game1").getState());
+        assertTrue(GameManifest.load(backupPath.resolve(GameManifest.DEFAULT_FILE_NAME)).getTitle().startsWith("game1_backup"));
+        assertFalse(Files.exists(inProgressPath(backupPath)));
+    }
+
+    @Test
+    public void testBackupRejectedByPrecondition() throws Exception {
+        backupPrecondition = () -> {
+            throw ResourceAccessException.NOT_FOUND;
+        };
+        try {
+            performBackup("game1", null);
+            fail("The backup should have been rejected");
+        } catch (ResourceAccessException ex) {
+            assertEquals(ResourceAccessException.NOT_FOUND, ex);
+        }
+        assertFalse(backupJobs.isRunning("game1"));
+    }
+
+    @Test
+    public void testStatusReadableWhenBackupNotAllowed() throws Exception {
+        performBackup("game1", null);
+        backupJobs.getLatestJob("game1").getCompletion().get(10, TimeUnit.SECONDS);
+
+        backupPrecondition = () -> {
+            throw ResourceAccessException.NOT_FOUND;
+        };
+        assertEquals(GameBackupStatus.State.COMPLETED, getBackupStatus("game1").getState());
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testStatusNoBackup() throws ResourceAccessException {
+        getBackupStatus("game1");
     }
 
     @Test(expected = ResourceAccessException.class)
     public void testBackupNotExisting() throws ResourceAccessException {
-        performBackup("game2");
+        performBackup("game2", null);
+    }
+
+    private void performBackup(String gameName, GameBackupOptions options) throws ResourceAccessException {
+        GamesBackupsResource resource = new GamesBackupsResource(pathManagerMock, gameName, backupJobs, backupPrecondition);
+        resource.setObserver(observerMock);
+        resource.getPostMethod(ResourcePath.createEmpty()).perform(options, null);
+    }
+
+    private GameBackupStatus getBackupStatus(String gameName) throws ResourceAccessException {
+        return new GamesBackupsResource(pathManagerMock, gameName, backupJobs, backupPrecondition).getGetMethod(ResourcePath.createEmpty()).perform(null, null);
     }
 
-    private void performBackup(String gameName) throws ResourceAccessException {
-        new GamesBackupsResource(pathManagerMock, gameName).getPostMethod(ResourcePath.createEmpty()).perform(null, null);
+    private static Path inProgressPath(Path backupPath) {
+        return backupPath.resolveSibling(".backups-in-progress").resolve(backupPath.getFileName());
     }
 }
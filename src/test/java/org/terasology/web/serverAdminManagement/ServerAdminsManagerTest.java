@@ -20,6 +20,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.terasology.web.resources.base.ResourceAccessException;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -27,6 +29,7 @@ import java.util.Set;
 
 import static junit.framework.TestCase.assertFalse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 public class ServerAdminsManagerTest {
@@ -47,9 +50,11 @@ public class ServerAdminsManagerTest {
     public void testAdminListManipulation() {
         ServerAdminsManager manager = new ServerAdminsManager(null, false);
         assertTrue(manager.isAnonymousAdminAccessEnabled());
+        long initialVersion = manager.getAdminListVersion();
         manager.addAdmin("test");
         assertSetEquals(manager.getAdminIds(), "test");
         assertFalse(manager.isAnonymousAdminAccessEnabled());
+        assertNotEquals(initialVersion, manager.getAdminListVersion());
         manager.removeAdmin("test");
         assertSetEmpty(manager.getAdminIds());
         assertTrue(manager.isAnonymousAdminAccessEnabled());
@@ -108,4 +113,21 @@ public class ServerAdminsManagerTest {
         assertSetEquals(manager.getAdminIds(), "admin1", "admin2");
     }
 
+    @Test(timeout = 10000)
+    public void testChangesSavedInBackground() throws IOException, InterruptedException {
+        Path filePath = tempFolder.getRoot().toPath().resolve("admins.json");
+        ServerAdminsManager manager = new ServerAdminsManager(filePath, true);
+        manager.addAdmin("admin1");
+        manager.addAdmin("admin2");
+        manager.removeAdmin("admin1");
+        // the changes are merged in a single write, which replaces the file atomically
+        while (!Files.exists(filePath)) {
+            Thread.sleep(50);
+        }
+        ServerAdminsManager reloaded = new ServerAdminsManager(filePath, false);
+        reloaded.loadAdminList();
+        assertSetEquals(reloaded.getAdminIds(), "admin2");
+        assertFalse(Files.exists(filePath.resolveSibling("admins.json.tmp")));
+    }
+
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.servlet;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventRingBufferTest {
+
+    @Test
+    public void testReadWithCursor() {
+        EventRingBuffer<String> buffer = new EventRingBuffer<>(4);
+        assertEquals(0, buffer.append("a"));
+        assertEquals(1, buffer.append("b"));
+        EventRingBuffer.ReadResult<String> result = buffer.readFrom(0);
+        assertEquals(Arrays.asList("a", "b"), result.getItems());
+        assertEquals(0, result.getMissedItems());
+        assertEquals(2, result.getNextCursor());
+
+        buffer.append("c");
+        result = buffer.readFrom(result.getNextCursor());
+        assertEquals(Collections.singletonList("c"), result.getItems());
+        result = buffer.readFrom(result.getNextCursor());
+        assertEquals(Collections.emptyList(), result.getItems());
+        assertEquals(3, result.getNextCursor());
+    }
+
+    @Test
+    public void testOverflow() {
+        EventRingBuffer<String> buffer = new EventRingBuffer<>(3);
+        for (String item: Arrays.asList("a", "b", "c", "d", "e", "f", "g")) {
+            buffer.append(item);
+        }
+        EventRingBuffer.ReadResult<String> result = buffer.readFrom(1);
+        assertEquals(Arrays.asList("e", "f", "g"), result.getItems());
+        assertEquals(3, result.getMissedItems());
+        assertEquals(7, result.getNextCursor());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.servlet;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class HttpSessionManagerTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(-5)); // negative, like System.nanoTime() may be
+    private final List<String> evictedTokens = new ArrayList<>();
+
+    private HttpSessionManager createManager() {
+        return new HttpSessionManager(128, TimeUnit.SECONDS, now::get, (token, session) -> evictedTokens.add(token));
+    }
+
+    private void advance(HttpSessionManager manager, long seconds) {
+        // tick every second, like the scheduler would do with this time to live
+        for (long i = 0; i < seconds; i++) {
+            now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            manager.expireIdleSessions();
+        }
+    }
+
+    @Test
+    public void testIdleSessionsAreEvicted() {
+        HttpSessionManager manager = createManager();
+        JsonSessionWithEventQueue idleSession = mock(JsonSessionWithEventQueue.class);
+        JsonSessionWithEventQueue activeSession = mock(JsonSessionWithEventQueue.class);
+        manager.add("idle", idleSession);
+        manager.add("active", activeSession);
+
+        for (int i = 0; i < 4; i++) {
+            advance(manager, 60);
+            assertSame(activeSession, manager.get("active"));
+        }
+        assertEquals(Collections.singletonList("idle"), evictedTokens);
+        assertNull(manager.get("idle"));
+        assertEquals(1, manager.getActiveSessions());
+        assertEquals(1, manager.getEvictedSessions());
+
+        advance(manager, 130);
+        assertEquals(Arrays.asList("idle", "active"), evictedTokens);
+        assertEquals(0, manager.getActiveSessions());
+    }
+
+    @Test
+    public void testRemovedSessionsAreNotEvicted() {
+        HttpSessionManager manager = createManager();
+        manager.add("removed", mock(JsonSessionWithEventQueue.class));
+        manager.add("touchedAndRemoved", mock(JsonSessionWithEventQueue.class));
+        advance(manager, 10);
+        manager.touch("touchedAndRemoved");
+        assertTrue(manager.remove("removed") != null);
+        assertTrue(manager.remove("touchedAndRemoved") != null);
+        assertNull(manager.remove("removed"));
+
+        advance(manager, 300);
+        assertTrue(evictedTokens.isEmpty());
+        assertEquals(0, manager.getEvictedSessions());
+    }
+
+    @Test
+    public void testDelayedTicksCatchUp() {
+        HttpSessionManager manager = createManager();
+        manager.add("idle", mock(JsonSessionWithEventQueue.class));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1000)); // no tick for longer than a whole revolution
+        manager.expireIdleSessions();
+        assertEquals(Collections.singletonList("idle"), evictedTokens);
+    }
+}
@@ -23,11 +23,15 @@ import org.terasology.web.io.JsonSession;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -49,6 +53,48 @@ public class JsonSessionWithEventQueueTest {
         assertEventEquals(new JsonSessionWithEventQueue.ResourceEvent(Arrays.asList("parent2", "resource2"), new JsonPrimitive("testEventData2")), returnedEventList.get(1));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEventQueueOverflow() {
+        JsonSession jsonSessionMock = mock(JsonSession.class);
+        JsonSessionWithEventQueue eventSession = new JsonSessionWithEventQueue(jsonSessionMock, 2);
+        ArgumentCaptor<BiConsumer<Collection<String>, JsonElement>> observerArgument = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(jsonSessionMock).setResourceEventListener(observerArgument.capture());
+        for (int i = 1; i <= 5; i++) {
+            observerArgument.getValue().accept(Collections.singletonList("console"), new JsonPrimitive("testEventData" + i));
+        }
+        List<JsonSessionWithEventQueue.ResourceEvent> returnedEventList = eventSession.drainEventQueue();
+        assertEquals(3, returnedEventList.size());
+        assertEquals(Long.valueOf(3), returnedEventList.get(0).getMissedEvents());
+        assertEventEquals(new JsonSessionWithEventQueue.ResourceEvent(Collections.singletonList("console"), new JsonPrimitive("testEventData4")), returnedEventList.get(1));
+        assertEventEquals(new JsonSessionWithEventQueue.ResourceEvent(Collections.singletonList("console"), new JsonPrimitive("testEventData5")), returnedEventList.get(2));
+        assertTrue(eventSession.drainEventQueue().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEventWaiters() {
+        JsonSession jsonSessionMock = mock(JsonSession.class);
+        JsonSessionWithEventQueue eventSession = new JsonSessionWithEventQueue(jsonSessionMock);
+        ArgumentCaptor<BiConsumer<Collection<String>, JsonElement>> observerArgument = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(jsonSessionMock).setResourceEventListener(observerArgument.capture());
+        AtomicInteger notifications = new AtomicInteger();
+        Runnable waiter = notifications::incrementAndGet;
+        Runnable removedWaiter = () -> fail("Removed waiters must not be notified");
+
+        assertFalse(eventSession.whenEventsAvailable(waiter));
+        assertFalse(eventSession.whenEventsAvailable(removedWaiter));
+        eventSession.removeEventWaiter(removedWaiter);
+        observerArgument.getValue().accept(Collections.singletonList("console"), new JsonPrimitive("testEventData1"));
+        observerArgument.getValue().accept(Collections.singletonList("console"), new JsonPrimitive("testEventData2"));
+        assertEquals(1, notifications.get()); // waiters are notified only once
+
+        assertTrue(eventSession.whenEventsAvailable(waiter)); // there are unread events, so it's notified immediately
+        assertEquals(2, notifications.get());
+        assertEquals(2, eventSession.drainEventQueue().size());
+        assertFalse(eventSession.whenEventsAvailable(waiter));
+    }
+
     private void assertEventEquals(JsonSessionWithEventQueue.ResourceEvent expected, JsonSessionWithEventQueue.ResourceEvent actual) {
         assertEquals(expected.getResourcePath(), actual.getResourcePath());
         assertEquals(expected.getEventData(), actual.getEventData());
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.servlet;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.terasology.web.io.JsonSession;
+import org.terasology.web.resources.ResourceUpdate;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SseEventStreamTest {
+
+    @SuppressWarnings("unchecked")
+    private BiConsumer<Collection<String>, JsonElement> captureEventListener(JsonSession jsonSessionMock) {
+        ArgumentCaptor<BiConsumer<Collection<String>, JsonElement>> eventListener = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(jsonSessionMock).setResourceEventListener(eventListener.capture());
+        return eventListener.getValue();
+    }
+
+    private List<OutboundEvent> verifyWritten(EventOutput outputMock, int count) throws IOException {
+        ArgumentCaptor<OutboundEvent> writtenEvents = ArgumentCaptor.forClass(OutboundEvent.class);
+        verify(outputMock, timeout(5000).times(count)).write(writtenEvents.capture());
+        return writtenEvents.getAllValues();
+    }
+
+    @Test
+    public void testResumeAfterLastEventId() throws IOException {
+        JsonSession jsonSessionMock = mock(JsonSession.class);
+        JsonSessionWithEventQueue session = new JsonSessionWithEventQueue(jsonSessionMock);
+        BiConsumer<Collection<String>, JsonElement> eventListener = captureEventListener(jsonSessionMock);
+        eventListener.accept(Collections.singletonList("console"), new JsonPrimitive("event0"));
+        eventListener.accept(Collections.singletonList("console"), new JsonPrimitive("event1"));
+
+        EventOutput outputMock = mock(EventOutput.class);
+        SseEventStream stream = new SseEventStream(session, outputMock, 1, () -> { }, (closedStream) -> { });
+        stream.open();
+        eventListener.accept(Collections.singletonList("console"), new JsonPrimitive("event2"));
+
+        List<OutboundEvent> written = verifyWritten(outputMock, 2);
+        assertEquals("1", written.get(0).getId());
+        assertEquals(SseEventStream.RESOURCE_EVENT, written.get(0).getName());
+        assertTrue(written.get(0).getData().toString().contains("event1"));
+        assertEquals("2", written.get(1).getId());
+        assertTrue(written.get(1).getData().toString().contains("event2"));
+        stream.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResourceChanges() throws IOException {
+        JsonSession jsonSessionMock = mock(JsonSession.class);
+        JsonSessionWithEventQueue session = new JsonSessionWithEventQueue(jsonSessionMock);
+        EventOutput outputMock = mock(EventOutput.class);
+        SseEventStream stream = new SseEventStream(session, outputMock, 0, () -> { }, (closedStream) -> { });
+        stream.open();
+        ArgumentCaptor<Consumer<ResourceUpdate>> changeSubscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(jsonSessionMock).setResourceChangeSubscriber(changeSubscriber.capture());
+
+        changeSubscriber.getValue().accept(new ResourceUpdate(new ResourcePath("config", "MOTD"), "hello"));
+        List<OutboundEvent> written = verifyWritten(outputMock, 1);
+        assertEquals(SseEventStream.RESOURCE_CHANGED, written.get(0).getName());
+        assertEquals("{\"resourcePath\":[\"config\",\"MOTD\"],\"data\":\"hello\"}", written.get(0).getData());
+        stream.close();
+        // closing the stream unsubscribes it
+        verify(jsonSessionMock, times(2)).setResourceChangeSubscriber(any());
+    }
+
+    @Test
+    public void testClosedOnWriteFailure() throws IOException, InterruptedException {
+        JsonSession jsonSessionMock = mock(JsonSession.class);
+        JsonSessionWithEventQueue session = new JsonSessionWithEventQueue(jsonSessionMock);
+        BiConsumer<Collection<String>, JsonElement> eventListener = captureEventListener(jsonSessionMock);
+        EventOutput outputMock = mock(EventOutput.class);
+        doThrow(new IOException("client went away")).when(outputMock).write(any());
+        CountDownLatch closed = new CountDownLatch(1);
+        SseEventStream stream = new SseEventStream(session, outputMock, 0, () -> { }, (closedStream) -> closed.countDown());
+        stream.open();
+
+        eventListener.accept(Collections.singletonList("console"), new JsonPrimitive("event0"));
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        verify(outputMock, atLeastOnce()).close();
+    }
+
+    @Test
+    public void testClosedOnWriteTimeout() throws IOException, InterruptedException {
+        JsonSession jsonSessionMock = mock(JsonSession.class);
+        JsonSessionWithEventQueue session = new JsonSessionWithEventQueue(jsonSessionMock);
+        BiConsumer<Collection<String>, JsonElement> eventListener = captureEventListener(jsonSessionMock);
+        EventOutput outputMock = mock(EventOutput.class);
+        CountDownLatch clientStalled = new CountDownLatch(1);
+        doAnswer((invocation) -> {
+            clientStalled.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(outputMock).write(any());
+        CountDownLatch closed = new CountDownLatch(1);
+        SseEventStream stream = new SseEventStream(session, outputMock, 0, () -> { }, (closedStream) -> closed.countDown(), 100);
+        stream.open();
+
+        eventListener.accept(Collections.singletonList("console"), new JsonPrimitive("event0"));
+        assertTrue(closed.await(2, TimeUnit.SECONDS));
+        verify(outputMock, atLeastOnce()).close();
+        clientStalled.countDown();
+    }
+}
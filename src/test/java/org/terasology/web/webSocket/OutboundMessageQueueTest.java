@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.Test;
+import org.terasology.web.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class OutboundMessageQueueTest {
+
+    private static final Collection<String> CONSOLE = Collections.singletonList("console");
+
+    /**
+     * Records the written messages; unless completeSynchronously is set, each write stays in flight until completeWrite is called.
+     */
+    private static class ConnectionMock implements OutboundMessageQueue.Connection<String> {
+        private final List<String> written = new ArrayList<>();
+        private WriteCallback pendingCallback;
+        private boolean completeSynchronously;
+        private int closeStatusCode;
+
+        @Override
+        public void write(String message, WriteCallback callback) {
+            written.add(message);
+            if (completeSynchronously) {
+                callback.writeSuccess();
+            } else {
+                pendingCallback = callback;
+            }
+        }
+
+        @Override
+        public void close(int statusCode, String reason) {
+            closeStatusCode = statusCode;
+        }
+
+        void completeWrite() {
+            WriteCallback callback = pendingCallback;
+            pendingCallback = null;
+            callback.writeSuccess();
+        }
+    }
+
+    private OutboundMessageQueue<String> createQueue(OutboundQueuePolicy policy, ConnectionMock connection) {
+        return new OutboundMessageQueue<>("test", policy, connection, String::length,
+                (path, missedEvents) -> String.join("/", path) + " missed " + missedEvents, OutboundQueueMetrics.getInstance());
+    }
+
+    @Test
+    public void testResourceChangesAreMerged() {
+        ConnectionMock connection = new ConnectionMock();
+        OutboundMessageQueue<String> queue = createQueue(OutboundQueuePolicy.DEFAULT, connection);
+        queue.offerActionResult("result");
+        queue.offerResourceChanged(Arrays.asList("modules", "installer"), "installer1");
+        queue.offerResourceChanged(Collections.singletonList("onlinePlayers"), "players1");
+        queue.offerResourceChanged(Arrays.asList("modules", "installer"), "installer2");
+        queue.offerResourceChanged(Arrays.asList("modules", "installer"), "installer3");
+        assertEquals(2, queue.getDepth());
+        assertEquals("installer3".length() + "players1".length(), queue.getPendingSize());
+
+        connection.completeWrite();
+        connection.completeWrite();
+        connection.completeWrite();
+        assertEquals(Arrays.asList("result", "installer3", "players1"), connection.written);
+        assertEquals(0, queue.getDepth());
+        assertEquals(0, queue.getPendingSize());
+    }
+
+    @Test
+    public void testDeferredEncoderSeesLatestMessage() {
+        ConnectionMock connection = new ConnectionMock();
+        OutboundMessageQueue<String> queue = createQueue(OutboundQueuePolicy.DEFAULT, connection);
+        List<String> encoded = new ArrayList<>();
+        queue.offerActionResult("result");
+        queue.offerResourceChanged(CONSOLE, "state1", (message) -> {
+            encoded.add(message);
+            return "patch";
+        });
+        queue.offerResourceChanged(CONSOLE, "state2", (message) -> {
+            encoded.add(message);
+            return "patch to " + message;
+        });
+        assertEquals("state2".length(), queue.getPendingSize());
+
+        connection.completeWrite();
+        assertEquals(Arrays.asList("result", "patch to state2"), connection.written);
+        assertEquals(Collections.singletonList("state2"), encoded);
+        assertEquals(0, queue.getPendingSize());
+    }
+
+    @Test
+    public void testDeferredEncoderRunsOutsideLock() {
+        ConnectionMock connection = new ConnectionMock();
+        OutboundMessageQueue<String> queue = createQueue(OutboundQueuePolicy.DEFAULT, connection);
+        List<Boolean> lockHeld = new ArrayList<>();
+        queue.offerResourceChanged(CONSOLE, "state", (message) -> {
+            // the threads offering other messages must not wait for the encoding
+            lockHeld.add(Thread.holdsLock(queue));
+            return "patch";
+        });
+        assertEquals(Collections.singletonList("patch"), connection.written);
+        assertFalse(lockHeld.get(0));
+        assertEquals(0, queue.getPendingSize());
+    }
+
+    @Test
+    public void testOldestEventsAreSummarized() {
+        ConnectionMock connection = new ConnectionMock();
+        OutboundMessageQueue<String> queue = createQueue(new OutboundQueuePolicy(2, OutboundQueuePolicy.EventOverflowPolicy.SUMMARIZE_OLDEST, 1000), connection);
+        queue.offerActionResult("result");
+        for (int i = 1; i <= 5; i++) {
+            queue.offerResourceEvent(CONSOLE, "event" + i);
+        }
+        assertEquals(3, queue.getDepth());
+
+        for (int i = 0; i < 3; i++) {
+            connection.completeWrite();
+        }
+        assertEquals(Arrays.asList("result", "console missed 3", "event4", "event5"), connection.written);
+    }
+
+    @Test
+    public void testOldestEventsAreDropped() {
+        ConnectionMock connection = new ConnectionMock();
+        OutboundMessageQueue<String> queue = createQueue(new OutboundQueuePolicy(2, OutboundQueuePolicy.EventOverflowPolicy.DROP_OLDEST, 1000), connection);
+        queue.offerActionResult("result");
+        for (int i = 1; i <= 5; i++) {
+            queue.offerResourceEvent(CONSOLE, "event" + i);
+        }
+        assertEquals(2, queue.getDepth());
+
+        connection.completeWrite();
+        connection.completeWrite();
+        assertEquals(Arrays.asList("result", "event4", "event5"), connection.written);
+    }
+
+    @Test
+    public void testDisconnectAboveHardLimit() {
+        ConnectionMock connection = new ConnectionMock();
+        OutboundMessageQueue<String> queue = createQueue(new OutboundQueuePolicy(100, OutboundQueuePolicy.EventOverflowPolicy.DROP_OLDEST, 10), connection);
+        queue.offerActionResult("result");
+        queue.offerActionResult("12345");
+        assertEquals(0, connection.closeStatusCode);
+        queue.offerActionResult("123456");
+        assertEquals(StatusCode.POLICY_VIOLATION, connection.closeStatusCode);
+        assertEquals(0, queue.getDepth());
+
+        queue.offerActionResult("ignored");
+        connection.completeWrite();
+        assertEquals(Collections.singletonList("result"), connection.written);
+    }
+
+    @Test
+    public void testSynchronousCompletionDoesNotRecurse() {
+        ConnectionMock connection = new ConnectionMock();
+        OutboundMessageQueue<String> queue = createQueue(new OutboundQueuePolicy(100, OutboundQueuePolicy.EventOverflowPolicy.DROP_OLDEST, Long.MAX_VALUE), connection);
+        queue.offerActionResult("first");
+        for (int i = 0; i < 100000; i++) {
+            queue.offerActionResult("message");
+        }
+        connection.completeSynchronously = true;
+        connection.completeWrite();
+        assertEquals(100001, connection.written.size());
+        assertEquals(0, queue.getDepth());
+        assertNull(connection.pendingCallback);
+    }
+
+    @Test
+    public void testPerConnectionMetrics() {
+        OutboundQueueMetrics.getInstance().register(MetricsRegistry.getInstance());
+        ConnectionMock connection = new ConnectionMock();
+        OutboundMessageQueue<String> queue = new OutboundMessageQueue<>("client1", OutboundQueuePolicy.DEFAULT, connection, String::length,
+                (path, missedEvents) -> "", OutboundQueueMetrics.getInstance());
+        queue.offerActionResult("result1");
+        queue.offerActionResult("result2");
+        queue.offerActionResult("result3");
+
+        Map<String, Number> snapshot = MetricsRegistry.getInstance().getSnapshot();
+        assertEquals(2, snapshot.get("webSocket.connection.client1.queueDepth").intValue());
+        assertEquals("result2".length() + "result3".length(), snapshot.get("webSocket.connection.client1.queueSize").intValue());
+        queue.close();
+        assertNull(MetricsRegistry.getInstance().getSnapshot().get("webSocket.connection.client1.queueDepth"));
+    }
+}
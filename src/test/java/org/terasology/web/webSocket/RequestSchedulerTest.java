@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestSchedulerTest {
+
+    /**
+     * Keeps the tasks until they are explicitly run, to simulate requests which take a long time.
+     */
+    private static class ManualExecutor implements Executor {
+        private final Deque<Runnable> started = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            started.add(command);
+        }
+
+        void runOldest() {
+            started.poll().run();
+        }
+    }
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final RequestScheduler scheduler = new RequestScheduler(executor, 10);
+    private final List<String> completed = new ArrayList<>();
+
+    private Supplier<CompletionStage<?>> task(String name) {
+        return () -> {
+            completed.add(name);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    @Test
+    public void testSameKeyInOrderOtherKeysConcurrently() {
+        scheduler.executeAsync("modules", task("install"));
+        scheduler.executeAsync("modules", task("list"));
+        scheduler.executeAsync("engineState", task("state"));
+        // the second modules request waits for the first
+        assertEquals(2, executor.started.size());
+
+        executor.started.pollLast().run(); // the engineState request completes while the installation is still running
+        assertEquals(Collections.singletonList("state"), completed);
+        assertEquals(1, executor.started.size());
+        executor.runOldest();
+        executor.runOldest();
+        assertEquals(Arrays.asList("state", "install", "list"), completed);
+    }
+
+    @Test
+    public void testExclusive() {
+        scheduler.executeAsync("games", task("before"));
+        scheduler.executeExclusiveAsync(task("auth"));
+        scheduler.executeAsync("config", task("after"));
+        assertEquals(1, executor.started.size());
+
+        executor.runOldest();
+        assertEquals(1, executor.started.size());
+        executor.runOldest();
+        assertEquals(1, executor.started.size());
+        executor.runOldest();
+        assertEquals(Arrays.asList("before", "auth", "after"), completed);
+    }
+
+    @Test
+    public void testAsyncRequestHoldsKeyUntilComplete() {
+        CompletableFuture<Void> engineTick = new CompletableFuture<>();
+        scheduler.executeAsync("console", () -> engineTick.thenRun(() -> completed.add("command")));
+        scheduler.executeAsync("console", task("next"));
+        executor.runOldest();
+        // the first request has returned, but it's waiting for the engine: the next one can't start yet
+        assertTrue(executor.started.isEmpty());
+
+        engineTick.complete(null);
+        assertEquals(1, executor.started.size());
+        executor.runOldest();
+        assertEquals(Arrays.asList("command", "next"), completed);
+    }
+
+    @Test
+    public void testLimitAndClose() {
+        scheduler.executeAsync("games", task("running"));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(scheduler.executeAsync("games", task("waiting")));
+        }
+        assertFalse(scheduler.executeAsync("games", task("rejected")));
+
+        scheduler.close();
+        executor.runOldest();
+        assertEquals(Collections.singletonList("running"), completed);
+        assertTrue(executor.started.isEmpty());
+    }
+}
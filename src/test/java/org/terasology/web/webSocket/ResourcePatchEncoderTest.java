@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+import org.terasology.web.resources.ResourceUpdate;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResourcePatchEncoderTest {
+
+    private static final ResourcePath PLAYERS = new ResourcePath("onlinePlayers");
+
+    private final ResourcePatchEncoder<String> encoder = new ResourcePatchEncoder<>(WireFormat.JSON);
+
+    private static List<String> players(int count) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add("player" + i);
+        }
+        return result;
+    }
+
+    private JsonObject encode(Object data) {
+        ResourceUpdate update = new ResourceUpdate(PLAYERS, data);
+        return new JsonParser().parse(encoder.encode(update, WebSocketHandler.encodeResourceChanged(update))).getAsJsonObject();
+    }
+
+    @Test
+    public void testPatchesAfterFirstState() {
+        assertEquals("RESOURCE_CHANGED", encode(players(200)).get("messageType").getAsString());
+
+        JsonObject patchMessage = encode(players(201));
+        assertEquals("RESOURCE_PATCH", patchMessage.get("messageType").getAsString());
+        assertEquals(1, patchMessage.getAsJsonObject("data").get("version").getAsInt());
+        assertEquals(new JsonParser().parse("[{\"op\": \"add\", \"path\": \"/200\", \"value\": \"player200\"}]"),
+                patchMessage.getAsJsonObject("data").get("patch"));
+        assertEquals(2, encode(players(199)).getAsJsonObject("data").get("version").getAsInt());
+    }
+
+    @Test
+    public void testFullStateWhenShorter() {
+        encode(players(200));
+        assertEquals(1, encode(players(201)).getAsJsonObject("data").get("version").getAsInt());
+        assertEquals("RESOURCE_CHANGED", encode(players(1)).get("messageType").getAsString());
+        assertEquals("RESOURCE_CHANGED", encode(players(100)).get("messageType").getAsString());
+        // the version is reset by the full state
+        assertEquals(1, encode(players(101)).getAsJsonObject("data").get("version").getAsInt());
+    }
+
+    @Test
+    public void testReset() {
+        encode(players(200));
+        encoder.reset(PLAYERS);
+        assertEquals("RESOURCE_CHANGED", encode(players(201)).get("messageType").getAsString());
+    }
+}
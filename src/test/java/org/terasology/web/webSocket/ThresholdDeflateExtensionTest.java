@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import org.eclipse.jetty.websocket.api.extensions.OutgoingFrames;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ThresholdDeflateExtensionTest {
+
+    private static final class FrameCapture implements OutgoingFrames {
+        private final List<Frame> frames = new ArrayList<>();
+
+        @Override
+        public void outgoingFrame(Frame frame, WriteCallback callback, BatchMode batchMode) {
+            frames.add(frame);
+            if (callback != null) {
+                callback.writeSuccess();
+            }
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    @Test
+    public void testThreshold() {
+        ThresholdDeflateExtension extension = new ThresholdDeflateExtension();
+        extension.setConfig(ExtensionConfig.parse(ThresholdDeflateExtension.NAME));
+        FrameCapture capture = new FrameCapture();
+        extension.setNextOutgoingFrames(capture);
+
+        String small = repeat('a', CompressionPolicy.DEFAULT.getMinMessageSize() - 1);
+        extension.outgoingFrame(new TextFrame().setPayload(small), null, BatchMode.OFF);
+        extension.outgoingFrame(new TextFrame().setPayload(repeat('a', CompressionPolicy.DEFAULT.getMinMessageSize())), null, BatchMode.OFF);
+
+        assertEquals(2, capture.frames.size());
+        assertFalse(capture.frames.get(0).isRsv1());
+        assertEquals(small.length(), capture.frames.get(0).getPayloadLength());
+        assertTrue(capture.frames.get(1).isRsv1());
+        assertTrue(capture.frames.get(1).getPayloadLength() < small.length());
+    }
+}
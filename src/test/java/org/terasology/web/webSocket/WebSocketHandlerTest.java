@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.io.JsonStringEncoder;
+import org.terasology.web.io.cbor.CborDecoder;
+import org.terasology.web.io.cbor.CborWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class WebSocketHandlerTest {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static String encodeWithTree(ActionResult result, Collection<String> resourcePath) {
+        return GSON.toJson(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT, resourcePath, result.toJsonTree(GSON)));
+    }
+
+    @Test
+    public void testStreamedActionResultMatchesTree() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("text", "<a & \"b\">\n");
+        data.put("number", 1.5);
+        data.put("missing", null);
+        data.put("list", Arrays.asList(1, 2, 3));
+        Collection<String> path = Arrays.asList("games", "test");
+
+        assertEquals(encodeWithTree(ActionResult.ofObject(data, GSON), path), WebSocketHandler.encodeActionResult(ActionResult.ofObject(data, GSON), path));
+        assertEquals(encodeWithTree(ActionResult.ofObject(null, GSON), null), WebSocketHandler.encodeActionResult(ActionResult.ofObject(null, GSON), null));
+        assertEquals(encodeWithTree(new ActionResult(ActionResult.Status.NOT_FOUND, "Not found"), path),
+                WebSocketHandler.encodeActionResult(new ActionResult(ActionResult.Status.NOT_FOUND, "Not found"), path));
+    }
+
+    @Test
+    public void testStreamedBatchResultMatchesTree() {
+        List<ActionResult> results = Arrays.asList(ActionResult.ofObject("value", GSON), new ActionResult(ActionResult.Status.NOT_FOUND, "Not found"),
+                ActionResult.ofSerializedData("[1,2]".getBytes(StandardCharsets.UTF_8), null));
+        assertEquals(encodeWithTree(ActionResult.ofResults(results), null), WebSocketHandler.encodeActionResult(ActionResult.ofResults(results), null));
+    }
+
+    @Test
+    public void testRequestIdEcho() {
+        ActionResult result = new ActionResult(ActionResult.Status.NOT_FOUND, "Not found");
+        Collection<String> path = Collections.singletonList("games");
+        JsonPrimitive requestId = new JsonPrimitive(42);
+        assertEquals(GSON.toJson(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT, path, requestId, result.toJsonTree(GSON))),
+                JsonStringEncoder.encode(WebSocketHandler.actionResultContent(result, path, requestId)));
+        assertEquals(requestId, WebSocketHandler.decodeMessage("{\"messageType\":\"AUTHENTICATION_REQUEST\",\"requestId\":42}").getRequestId());
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testInvalidRequestId() {
+        WebSocketHandler.decodeMessage("{\"messageType\":\"AUTHENTICATION_REQUEST\",\"requestId\":[1]}");
+    }
+
+    @Test
+    public void testLazyDataTree() {
+        ActionResult result = ActionResult.ofObject("value", GSON);
+        assertEquals("value", result.getData().getAsString());
+        assertEquals(encodeWithTree(ActionResult.ofObject("value", GSON), null), WebSocketHandler.encodeActionResult(result, null));
+    }
+
+    @Test
+    public void testCborMessageMatchesJson() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("text", "value");
+        data.put("list", Arrays.asList(1, 2.5));
+        Collection<String> path = Arrays.asList("games", "test");
+        ActionResult result = ActionResult.ofObject(data, GSON);
+
+        byte[] cbor = WireFormat.CBOR.encode(WebSocketHandler.actionResultContent(result, path));
+        assertEquals(new JsonParser().parse(WebSocketHandler.encodeActionResult(result, path)), CborDecoder.decode(cbor));
+    }
+
+    @Test
+    public void testDecodeBinaryMessage() {
+        String json = "{\"messageType\":\"RESOURCE_REQUEST\",\"data\":{\"resourcePath\":[\"console\"],\"method\":\"GET\"}}";
+        byte[] cbor = CborWriter.encode((writer) -> writer.jsonValue(json));
+        byte[] payload = new byte[cbor.length + 2];
+        System.arraycopy(cbor, 0, payload, 1, cbor.length);
+
+        ClientToServerMessage message = WebSocketHandler.decodeBinaryMessage(payload, 1, cbor.length);
+        assertEquals(ClientToServerMessage.MessageType.RESOURCE_REQUEST, message.getMessageType());
+        assertEquals(WebSocketHandler.decodeMessage(json).getData(), message.getData());
+    }
+}